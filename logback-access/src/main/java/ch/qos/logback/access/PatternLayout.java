@@ -196,6 +196,15 @@ public class PatternLayout extends PatternLayoutBase<IAccessEvent> {
     return writeLoopOnConverters(event);
   }
 
+  /**
+   * Returns true for this class only. A subclass may override doLayout, and
+   * has to opt in by overriding this method.
+   */
+  @Override
+  protected boolean supportsDirectEncoding() {
+    return getClass() == PatternLayout.class;
+  }
+
   @Override
   public void start() {
     if (getPattern().equalsIgnoreCase(CLF_PATTERN_NAME)
@@ -14,6 +14,7 @@
 package ch.qos.logback.classic;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
 import ch.qos.logback.core.AsyncAppenderBase;
 
 /**
@@ -43,10 +44,38 @@ public class AsyncAppender extends AsyncAppenderBase<ILoggingEvent> {
 
   protected void preprocess(ILoggingEvent eventObject) {
     eventObject.prepareForDeferredProcessing();
-    if(includeCallerData)
+    // deferred caller data is extracted by the worker, when first needed
+    if (includeCallerData && !isCallerDataDeferred(eventObject))
       eventObject.getCallerData();
   }
 
+  private boolean isCallerDataDeferred(ILoggingEvent eventObject) {
+    return eventObject instanceof LoggingEvent
+        && ((LoggingEvent) eventObject).isCallerDataDeferred();
+  }
+
+  /**
+   * Dropped events are counted by level.
+   */
+  @Override
+  protected String getDropCounterKey(ILoggingEvent event) {
+    return event.getLevel().toString();
+  }
+
+  /**
+   * Reports dropped events as a WARN event of a logger named after this class.
+   */
+  @Override
+  protected ILoggingEvent buildDropSummaryEvent(String message) {
+    if (!(getContext() instanceof LoggerContext)) {
+      return null;
+    }
+    Logger logger = ((LoggerContext) getContext()).getLogger(AsyncAppender.class);
+    LoggingEvent event = new LoggingEvent(AsyncAppender.class.getName(), logger, Level.WARN, message, null, null);
+    preprocess(event);
+    return event;
+  }
+
   public boolean isIncludeCallerData() {
     return includeCallerData;
   }
@@ -35,6 +35,14 @@ public class ClassicConstants {
    * The default stack data depth computed during caller data extraction.
    */
   public static final int DEFAULT_MAX_CALLEDER_DATA_DEPTH = 8;
+
+  /**
+   * The default number of classes whose packaging data is cached by a
+   * context.
+   *
+   * @since 1.1.3
+   */
+  public static final int DEFAULT_PACKAGING_DATA_CACHE_SIZE = 4096;
   
   public static final String REQUEST_REMOTE_HOST_MDC_KEY = "req.remoteHost";
   public static final String REQUEST_USER_AGENT_MDC_KEY = "req.userAgent";
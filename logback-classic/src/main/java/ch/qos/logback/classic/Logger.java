@@ -25,8 +25,11 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.spi.LocationAwareLogger;
 
+import ch.qos.logback.classic.spi.CompiledTurboFilterChain;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEventRecycler;
+import ch.qos.logback.classic.spi.TurboFilterList;
 import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.spi.AppenderAttachable;
@@ -57,6 +60,13 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
   // inherited form a parent.
   transient private int effectiveLevelInt;
 
+  /**
+   * Calls at a level lower than this value are denied without consulting the
+   * turbo filters, see {@link CompiledTurboFilterChain#getDisabledBelowInt()}.
+   */
+  transient private volatile int turboFilterThresholdInt = Integer.MIN_VALUE;
+  transient private volatile CompiledTurboFilterChain compiledTurboFilterChain;
+
   /**
    * The parent of this category. All categories have at least one ancestor
    * which is the root category.
@@ -172,6 +182,9 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
         child.handleParentLevelChange(effectiveLevelInt);
       }
     }
+    if (!loggerContext.getTurboFilterList().isEmpty()) {
+      loggerContext.invalidateTurboFilterDecisions();
+    }
     // inform listeners
     loggerContext.fireOnLevelChange(this, newLevel);
   }
@@ -248,6 +261,30 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
     return aai.getAppender(name);
   }
 
+  /**
+   * Returns the turbo filter chain of the context compiled for this logger,
+   * compiling it again if the chain or a level changed since.
+   */
+  CompiledTurboFilterChain getCompiledTurboFilterChain() {
+    final TurboFilterList turboFilterList = loggerContext.getTurboFilterList();
+    final int generation = turboFilterList.getGeneration();
+    CompiledTurboFilterChain chain = compiledTurboFilterChain;
+    if (chain == null || chain.getGeneration() != generation) {
+      chain = turboFilterList.compile(this);
+      compiledTurboFilterChain = chain;
+      turboFilterThresholdInt = chain.getDisabledBelowInt();
+      if (turboFilterList.getGeneration() != chain.getGeneration()) {
+        // invalidated while compiling
+        turboFilterThresholdInt = Integer.MIN_VALUE;
+      }
+    }
+    return chain;
+  }
+
+  void resetTurboFilterThreshold() {
+    turboFilterThresholdInt = Integer.MIN_VALUE;
+  }
+
   /**
    * Invoke all the appenders of this logger.
    * 
@@ -380,6 +417,9 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
   private void filterAndLog_0_Or3Plus(final String localFQCN,
       final Marker marker, final Level level, final String msg,
       final Object[] params, final Throwable t) {
+    if (level.levelInt < turboFilterThresholdInt) {
+      return;
+    }
 
     final FilterReply decision = loggerContext
         .getTurboFilterChainDecision_0_3OrMore(marker, this, level, msg,
@@ -399,6 +439,9 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
   private void filterAndLog_1(final String localFQCN,
       final Marker marker, final Level level, final String msg,
       final Object param, final Throwable t) {
+    if (level.levelInt < turboFilterThresholdInt) {
+      return;
+    }
 
     final FilterReply decision = loggerContext.getTurboFilterChainDecision_1(
         marker, this, level, msg, param, t);
@@ -411,6 +454,11 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
       return;
     }
 
+    final LoggingEventRecycler recycler = loggerContext.getEventRecycler();
+    if (recycler != null) {
+      recycler.buildAndAppend_1(this, localFQCN, marker, level, msg, param, t);
+      return;
+    }
     buildLoggingEventAndAppend(localFQCN, marker, level, msg,
         new Object[] { param }, t);
   }
@@ -418,6 +466,9 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
   private void filterAndLog_2(final String localFQCN,
       final Marker marker, final Level level, final String msg,
       final Object param1, final Object param2, final Throwable t) {
+    if (level.levelInt < turboFilterThresholdInt) {
+      return;
+    }
 
     final FilterReply decision = loggerContext.getTurboFilterChainDecision_2(
         marker, this, level, msg, param1, param2, t);
@@ -430,6 +481,12 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
       return;
     }
 
+    final LoggingEventRecycler recycler = loggerContext.getEventRecycler();
+    if (recycler != null) {
+      recycler.buildAndAppend_2(this, localFQCN, marker, level, msg, param1,
+          param2, t);
+      return;
+    }
     buildLoggingEventAndAppend(localFQCN, marker, level, msg, new Object[] {
         param1, param2 }, t);
   }
@@ -437,6 +494,11 @@ public final class Logger implements org.slf4j.Logger, LocationAwareLogger,
   private void buildLoggingEventAndAppend(final String localFQCN,
       final Marker marker, final Level level, final String msg,
       final Object[] params, final Throwable t) {
+    final LoggingEventRecycler recycler = loggerContext.getEventRecycler();
+    if (recycler != null) {
+      recycler.buildAndAppend(this, localFQCN, marker, level, msg, params, t);
+      return;
+    }
     LoggingEvent le = new LoggingEvent(localFQCN, this, level, msg, t, params);
     le.setMarker(marker);
     callAppenders(le);
@@ -20,9 +20,14 @@ import ch.qos.logback.classic.util.LoggerNameUtil;
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Marker;
 
+import ch.qos.logback.classic.spi.CallerDataCache;
+import ch.qos.logback.classic.spi.CallerDataExtraction;
+import ch.qos.logback.classic.spi.ClassPackagingDataCache;
+import ch.qos.logback.classic.spi.CompiledTurboFilterChain;
 import ch.qos.logback.classic.spi.LoggerComparator;
 import ch.qos.logback.classic.spi.LoggerContextListener;
 import ch.qos.logback.classic.spi.LoggerContextVO;
+import ch.qos.logback.classic.spi.LoggingEventRecycler;
 import ch.qos.logback.classic.spi.TurboFilterList;
 import ch.qos.logback.classic.turbo.TurboFilter;
 import ch.qos.logback.core.ContextBase;
@@ -53,10 +58,15 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
   private Map<String, Logger> loggerCache;
 
   private LoggerContextVO loggerContextRemoteView;
-  private final TurboFilterList turboFilterList = new TurboFilterList();
+  private final TurboFilterList turboFilterList = new TurboFilterList(this);
   private boolean packagingDataEnabled = true;
+  private ClassPackagingDataCache classPackagingDataCache = new ClassPackagingDataCache(
+          ClassicConstants.DEFAULT_PACKAGING_DATA_CACHE_SIZE);
+  private LoggingEventRecycler eventRecycler;
 
   private int maxCallerDataDepth = ClassicConstants.DEFAULT_MAX_CALLEDER_DATA_DEPTH;
+  private CallerDataExtraction callerDataExtraction = CallerDataExtraction.ON_DEMAND;
+  private CallerDataCache callerDataCache;
 
   int resetCount = 0;
   private List<String> frameworkPackages;
@@ -197,6 +207,62 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     return packagingDataEnabled;
   }
 
+  public int getPackagingDataCacheSize() {
+    return classPackagingDataCache == null ? 0 : classPackagingDataCache.getMaxSize();
+  }
+
+  /**
+   * Sets the number of classes whose packaging data is cached, and reused by
+   * the exceptions of all logging events of this context. Zero disables the
+   * cache, in which case packaging data is computed anew for each exception.
+   * Defaults to {@link ClassicConstants#DEFAULT_PACKAGING_DATA_CACHE_SIZE}.
+   *
+   * @since 1.1.3
+   */
+  public void setPackagingDataCacheSize(int packagingDataCacheSize) {
+    if (packagingDataCacheSize == getPackagingDataCacheSize()) {
+      return;
+    }
+    classPackagingDataCache = packagingDataCacheSize > 0 ? new ClassPackagingDataCache(packagingDataCacheSize) : null;
+  }
+
+  /**
+   * @return the packaging data cache, with its hit and miss counts, or null
+   *         if disabled
+   * @since 1.1.3
+   */
+  public ClassPackagingDataCache getClassPackagingDataCache() {
+    return classPackagingDataCache;
+  }
+
+  /**
+   * When set, logging events built by loggers of this context are recycled
+   * once all appenders are done with them, see {@link LoggingEventRecycler}.
+   * This avoids allocating an event per logging call, but requires every
+   * appender keeping a reference to an event to call
+   * {@link ch.qos.logback.core.spi.Recyclable#retain()}. Disabled by
+   * default.
+   *
+   * @since 1.1.3
+   */
+  public void setEventRecycling(boolean eventRecycling) {
+    if (eventRecycling) {
+      if (eventRecycler == null) {
+        eventRecycler = new LoggingEventRecycler();
+      }
+    } else {
+      eventRecycler = null;
+    }
+  }
+
+  public boolean isEventRecycling() {
+    return eventRecycler != null;
+  }
+
+  LoggingEventRecycler getEventRecycler() {
+    return eventRecycler;
+  }
+
   /**
    * This method clears all internal properties, except internal status messages,
    * closes all appenders, removes any turboFilters, fires an OnReset event,
@@ -212,6 +278,12 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     initEvaluatorMap();
     root.recursiveReset();
     resetTurboFilterList();
+    if (callerDataCache != null) {
+      callerDataCache.clear();
+    }
+    if (classPackagingDataCache != null) {
+      classPackagingDataCache.clear();
+    }
     fireOnReset();
     resetListenersExceptResetResistant();
     resetStatusListeners();
@@ -232,6 +304,20 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     turboFilterList.add(newFilter);
   }
 
+  /**
+   * Discards the turbo filter chains compiled for each logger, see
+   * {@link CompiledTurboFilterChain}. Called when the list of turbo filters,
+   * the started state of a turbo filter or the level of a logger changes.
+   *
+   * @since 1.1.3
+   */
+  public void invalidateTurboFilterDecisions() {
+    turboFilterList.nextGeneration();
+    for (Logger logger : loggerCache.values()) {
+      logger.resetTurboFilterThreshold();
+    }
+  }
+
   /**
    * First processPriorToRemoval all registered turbo filters and then clear the registration
    * list.
@@ -249,8 +335,12 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     if (turboFilterList.size() == 0) {
       return FilterReply.NEUTRAL;
     }
-    return turboFilterList.getTurboFilterChainDecision(marker, logger, level,
-            format, params, t);
+    final CompiledTurboFilterChain chain = logger.getCompiledTurboFilterChain();
+    final FilterReply reply = chain.getReplyInAdvance(level);
+    if (reply != null) {
+      return reply;
+    }
+    return chain.decide(marker, logger, level, format, params, t);
   }
 
   final FilterReply getTurboFilterChainDecision_1(final Marker marker,
@@ -259,8 +349,12 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     if (turboFilterList.size() == 0) {
       return FilterReply.NEUTRAL;
     }
-    return turboFilterList.getTurboFilterChainDecision(marker, logger, level,
-            format, new Object[]{param}, t);
+    final CompiledTurboFilterChain chain = logger.getCompiledTurboFilterChain();
+    final FilterReply reply = chain.getReplyInAdvance(level);
+    if (reply != null) {
+      return reply;
+    }
+    return chain.decide(marker, logger, level, format, new Object[]{param}, t);
   }
 
   final FilterReply getTurboFilterChainDecision_2(final Marker marker,
@@ -269,8 +363,12 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
     if (turboFilterList.size() == 0) {
       return FilterReply.NEUTRAL;
     }
-    return turboFilterList.getTurboFilterChainDecision(marker, logger, level,
-            format, new Object[]{param1, param2}, t);
+    final CompiledTurboFilterChain chain = logger.getCompiledTurboFilterChain();
+    final FilterReply reply = chain.getReplyInAdvance(level);
+    if (reply != null) {
+      return reply;
+    }
+    return chain.decide(marker, logger, level, format, new Object[]{param1, param2}, t);
   }
 
   // === start listeners ==============================================
@@ -350,6 +448,51 @@ public class LoggerContext extends ContextBase implements ILoggerFactory,
 
   public void setMaxCallerDataDepth(int maxCallerDataDepth) {
     this.maxCallerDataDepth = maxCallerDataDepth;
+    if (callerDataCache != null) {
+      callerDataCache.clear();
+    }
+  }
+
+  public CallerDataExtraction getCallerDataExtraction() {
+    return callerDataExtraction;
+  }
+
+  /**
+   * Sets when the caller data of logging events is extracted, see
+   * {@link CallerDataExtraction}. Defaults to
+   * {@link CallerDataExtraction#ON_DEMAND ON_DEMAND}.
+   *
+   * @since 1.1.3
+   */
+  public void setCallerDataExtraction(CallerDataExtraction callerDataExtraction) {
+    this.callerDataExtraction = callerDataExtraction;
+  }
+
+  public int getCallerDataCacheSize() {
+    return callerDataCache == null ? 0 : callerDataCache.getMaxSize();
+  }
+
+  /**
+   * Caches the caller data of up to <code>callerDataCacheSize</code> call
+   * sites, keyed by logger name and message template, see
+   * {@link CallerDataCache} for the limits of that key. Zero, the default,
+   * disables the cache.
+   *
+   * @since 1.1.3
+   */
+  public void setCallerDataCacheSize(int callerDataCacheSize) {
+    if (callerDataCacheSize == getCallerDataCacheSize()) {
+      return;
+    }
+    callerDataCache = callerDataCacheSize > 0 ? new CallerDataCache(callerDataCacheSize) : null;
+  }
+
+  /**
+   * @return the caller data cache, or null if disabled
+   * @since 1.1.3
+   */
+  public CallerDataCache getCallerDataCache() {
+    return callerDataCache;
   }
 
   /**
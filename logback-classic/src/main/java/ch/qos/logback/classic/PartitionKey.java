@@ -0,0 +1,35 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+/**
+ * The property of a logging event by which {@link PartitionedAsyncAppender}
+ * assigns it to a partition.
+ *
+ * @since 1.1.3
+ */
+public enum PartitionKey {
+  /**
+   * The name of the thread which issued the event.
+   */
+  THREAD,
+  /**
+   * The name of the logger.
+   */
+  LOGGER,
+  /**
+   * The value of the MDC entry named by the <b>mdcKey</b> property.
+   */
+  MDC;
+}
@@ -0,0 +1,119 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import java.util.Map;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.PartitionedAsyncAppenderBase;
+
+/**
+ * A partitioned variant of {@link AsyncAppender}. Events are assigned to a
+ * partition by thread name, logger name or the value of an MDC entry, as
+ * selected by the <b>partitionKey</b> property. As with {@link AsyncAppender},
+ * events of level TRACE, DEBUG and INFO are deemed discardable, and dropped
+ * events are counted by level.
+ *
+ * @since 1.1.3
+ */
+public class PartitionedAsyncAppender extends PartitionedAsyncAppenderBase<ILoggingEvent> {
+
+  PartitionKey partitionKey = PartitionKey.THREAD;
+  String mdcKey;
+  boolean includeCallerData = false;
+
+  @Override
+  public void start() {
+    if (partitionKey == PartitionKey.MDC && mdcKey == null) {
+      addError("The mdcKey property must be set when partitioning by MDC.");
+      return;
+    }
+    super.start();
+  }
+
+  @Override
+  protected String getPartitionKey(ILoggingEvent event) {
+    switch (partitionKey) {
+    case LOGGER:
+      return event.getLoggerName();
+    case MDC:
+      Map<String, String> mdcMap = event.getMDCPropertyMap();
+      return mdcMap == null ? null : mdcMap.get(mdcKey);
+    default:
+      return event.getThreadName();
+    }
+  }
+
+  protected boolean isDiscardable(ILoggingEvent event) {
+    Level level = event.getLevel();
+    return level.toInt() <= Level.INFO_INT;
+  }
+
+  protected void preprocess(ILoggingEvent eventObject) {
+    eventObject.prepareForDeferredProcessing();
+    // deferred caller data is extracted by the worker, when first needed
+    if (includeCallerData && !isCallerDataDeferred(eventObject))
+      eventObject.getCallerData();
+  }
+
+  @Override
+  protected String getDropCounterKey(ILoggingEvent event) {
+    return event.getLevel().toString();
+  }
+
+  /**
+   * Reports dropped events as a WARN event of a logger named after this class.
+   */
+  @Override
+  protected ILoggingEvent buildDropSummaryEvent(String message) {
+    if (!(getContext() instanceof LoggerContext)) {
+      return null;
+    }
+    Logger logger = ((LoggerContext) getContext()).getLogger(PartitionedAsyncAppender.class);
+    LoggingEvent event = new LoggingEvent(PartitionedAsyncAppender.class.getName(), logger, Level.WARN, message, null,
+        null);
+    preprocess(event);
+    return event;
+  }
+
+  private boolean isCallerDataDeferred(ILoggingEvent eventObject) {
+    return eventObject instanceof LoggingEvent
+        && ((LoggingEvent) eventObject).isCallerDataDeferred();
+  }
+
+  public PartitionKey getPartitionKey() {
+    return partitionKey;
+  }
+
+  public void setPartitionKey(PartitionKey partitionKey) {
+    this.partitionKey = partitionKey;
+  }
+
+  public String getMdcKey() {
+    return mdcKey;
+  }
+
+  public void setMdcKey(String mdcKey) {
+    this.mdcKey = mdcKey;
+  }
+
+  public boolean isIncludeCallerData() {
+    return includeCallerData;
+  }
+
+  public void setIncludeCallerData(boolean includeCallerData) {
+    this.includeCallerData = includeCallerData;
+  }
+}
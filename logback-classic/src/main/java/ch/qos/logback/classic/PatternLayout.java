@@ -149,6 +149,15 @@ public class PatternLayout extends PatternLayoutBase<ILoggingEvent> {
     return writeLoopOnConverters(event);
   }
 
+  /**
+   * Returns true for this class only. A subclass may override doLayout, and
+   * has to opt in by overriding this method.
+   */
+  @Override
+  protected boolean supportsDirectEncoding() {
+    return getClass() == PatternLayout.class;
+  }
+
   @Override
   protected String getPresentationHeaderPrefix() {
     return HEADER_PREFIX;
@@ -18,6 +18,7 @@ import ch.qos.logback.core.status.OnConsoleStatusListener;
 import org.xml.sax.Attributes;
 
 import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.CallerDataExtraction;
 import ch.qos.logback.classic.turbo.ReconfigureOnChangeFilter;
 import ch.qos.logback.core.joran.action.Action;
 import ch.qos.logback.core.joran.spi.InterpretationContext;
@@ -29,6 +30,9 @@ public class ConfigurationAction extends Action {
   static final String INTERNAL_DEBUG_ATTR = "debug";
   static final String SCAN_ATTR = "scan";
   static final String SCAN_PERIOD_ATTR = "scanPeriod";
+  static final String RECYCLE_EVENTS_ATTR = "recycleEvents";
+  static final String CALLER_DATA_EXTRACTION_ATTR = "callerDataExtraction";
+  static final String CALLER_DATA_CACHE_SIZE_ATTR = "callerDataCacheSize";
   static final String DEBUG_SYSTEM_PROPERTY_KEY = "logback.debug";
 
   long threshold = 0;
@@ -52,6 +56,8 @@ public class ConfigurationAction extends Action {
     }
 
     processScanAttrib(ic, attributes);
+    processRecycleEventsAttrib(ic, attributes);
+    processCallerDataAttribs(ic, attributes);
 
     ContextUtil contextUtil = new ContextUtil(context);
     contextUtil.addHostNameAsProperty();
@@ -102,6 +108,44 @@ public class ConfigurationAction extends Action {
     }
   }
 
+  void processRecycleEventsAttrib(InterpretationContext ic, Attributes attributes) {
+    String recycleEventsAttrib = ic.subst(attributes.getValue(RECYCLE_EVENTS_ATTR));
+    boolean recycleEvents = OptionHelper.toBoolean(recycleEventsAttrib, false);
+    if (recycleEvents) {
+      addInfo("Recycling logging events");
+    }
+    // set in both cases, so that removing the attribute takes effect on reconfiguration
+    ((LoggerContext) context).setEventRecycling(recycleEvents);
+  }
+
+  void processCallerDataAttribs(InterpretationContext ic, Attributes attributes) {
+    LoggerContext lc = (LoggerContext) context;
+    // set in all cases, so that removing an attribute takes effect on reconfiguration
+    CallerDataExtraction extraction = CallerDataExtraction.ON_DEMAND;
+    String extractionAttrib = ic.subst(attributes.getValue(CALLER_DATA_EXTRACTION_ATTR));
+    if (!OptionHelper.isEmpty(extractionAttrib)) {
+      try {
+        extraction = CallerDataExtraction.valueOf(extractionAttrib.trim().toUpperCase());
+        addInfo("Setting caller data extraction to " + extraction);
+      } catch (IllegalArgumentException e) {
+        addError("Unknown caller data extraction [" + extractionAttrib + "]", e);
+      }
+    }
+    lc.setCallerDataExtraction(extraction);
+
+    int cacheSize = 0;
+    String cacheSizeAttrib = ic.subst(attributes.getValue(CALLER_DATA_CACHE_SIZE_ATTR));
+    if (!OptionHelper.isEmpty(cacheSizeAttrib)) {
+      try {
+        cacheSize = Integer.parseInt(cacheSizeAttrib.trim());
+        addInfo("Caching the caller data of up to " + cacheSize + " call sites");
+      } catch (NumberFormatException e) {
+        addError("Error while converting [" + cacheSizeAttrib + "] to int", e);
+      }
+    }
+    lc.setCallerDataCacheSize(cacheSize);
+  }
+
   public void end(InterpretationContext ec, String name) {
     addInfo("End of configuration.");
     ec.popObject();
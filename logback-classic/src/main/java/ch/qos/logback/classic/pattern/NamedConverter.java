@@ -13,12 +13,25 @@
  */
 package ch.qos.logback.classic.pattern;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import ch.qos.logback.classic.spi.ILoggingEvent;
 
 public abstract class NamedConverter extends ClassicConverter {
 
+  /**
+   * Maximum number of abbreviated names kept in the cache. Names seen after
+   * the cache is full are abbreviated on every call.
+   */
+  static final int MAX_CACHE_SIZE = 1024;
+
   Abbreviator abbreviator = null;
 
+  // abbreviating is costly and allocates, whereas the set of logger and class
+  // names seen by an application is small
+  final ConcurrentMap<String, String> abbreviationCache = new ConcurrentHashMap<String, String>();
+
   /**
    * Gets fully qualified name from event.
    * 
@@ -50,7 +63,14 @@ public abstract class NamedConverter extends ClassicConverter {
     if (abbreviator == null) {
       return fqn;
     } else {
-      return abbreviator.abbreviate(fqn);
+      String abbreviation = abbreviationCache.get(fqn);
+      if (abbreviation == null) {
+        abbreviation = abbreviator.abbreviate(fqn);
+        if (abbreviationCache.size() < MAX_CACHE_SIZE) {
+          abbreviationCache.put(fqn, abbreviation);
+        }
+      }
+      return abbreviation;
     }
   }
 }
@@ -17,19 +17,29 @@ import ch.qos.logback.classic.spi.ILoggingEvent;
 
 public class RelativeTimeConverter extends ClassicConverter {
 
-  long lastTimestamp = -1;
-  String timesmapCache = null;
+  // an immutable holder, so that cache hits require no locking
+  volatile CacheTuple cache = new CacheTuple(-1, null);
 
   public String convert(ILoggingEvent event) {
     long now = event.getTimeStamp();
 
-    synchronized (this) {
-      // update timesmapStrCache only if now !=  lastTimestamp
-      if (now != lastTimestamp) {
-        lastTimestamp = now;
-        timesmapCache = Long.toString(now - event.getLoggerContextVO().getBirthTime());      
-      }
-      return timesmapCache;
+    CacheTuple localCache = cache;
+    // update the cache only if now differs from the cached timestamp
+    if (now == localCache.timestamp) {
+      return localCache.timestampStr;
+    }
+    String timestampStr = Long.toString(now - event.getLoggerContextVO().getBirthTime());
+    cache = new CacheTuple(now, timestampStr);
+    return timestampStr;
+  }
+
+  static class CacheTuple {
+    final long timestamp;
+    final String timestampStr;
+
+    CacheTuple(long timestamp, String timestampStr) {
+      this.timestamp = timestamp;
+      this.timestampStr = timestampStr;
     }
   }
 }
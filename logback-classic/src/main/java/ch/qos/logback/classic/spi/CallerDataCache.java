@@ -0,0 +1,103 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caller data of previous logging calls, keyed by the name of the logger and
+ * the message template of the call. A hit spares the capture of the stack
+ * and the extraction of caller data from it.
+ * <p/>
+ * The key assumes that a given logger logs a given message template from a
+ * single location. Where the same template is logged from several places,
+ * all of them report the caller data of the first one. Calls without a
+ * message template are never cached.
+ * <p/>
+ * Once <code>maxSize</code> call sites are cached, new ones are extracted
+ * every time.
+ *
+ * @since 1.1.3
+ */
+public class CallerDataCache {
+
+  private final int maxSize;
+  private final ConcurrentMap<CallSite, StackTraceElement[]> map = new ConcurrentHashMap<CallSite, StackTraceElement[]>();
+  private final AtomicInteger size = new AtomicInteger();
+
+  public CallerDataCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  public StackTraceElement[] get(String loggerName, String message) {
+    if (message == null) {
+      return null;
+    }
+    return map.get(new CallSite(loggerName, message));
+  }
+
+  public void put(String loggerName, String message, StackTraceElement[] callerData) {
+    if (message == null || callerData == null || size.get() >= maxSize) {
+      return;
+    }
+    if (map.putIfAbsent(new CallSite(loggerName, message), callerData) == null) {
+      size.incrementAndGet();
+    }
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public int size() {
+    return size.get();
+  }
+
+  public void clear() {
+    map.clear();
+    size.set(0);
+  }
+
+  static final class CallSite {
+    final String loggerName;
+    final String message;
+    final int hashCode;
+
+    CallSite(String loggerName, String message) {
+      this.loggerName = loggerName;
+      this.message = message;
+      this.hashCode = 31 * loggerName.hashCode() + message.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CallSite)) {
+        return false;
+      }
+      CallSite other = (CallSite) o;
+      return hashCode == other.hashCode && message.equals(other.message)
+          && loggerName.equals(other.loggerName);
+    }
+  }
+}
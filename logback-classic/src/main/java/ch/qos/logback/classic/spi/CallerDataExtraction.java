@@ -0,0 +1,44 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+/**
+ * When the caller data of a {@link LoggingEvent} is extracted, see
+ * {@link ch.qos.logback.classic.LoggerContext#setCallerDataExtraction(CallerDataExtraction)}.
+ *
+ * @since 1.1.3
+ */
+public enum CallerDataExtraction {
+  /**
+   * By the first call to {@link LoggingEvent#getCallerData()}, which must
+   * then be made on the thread of the logging call. Events for which no
+   * caller data is requested cost nothing. This is the default.
+   */
+  ON_DEMAND,
+  /**
+   * When the event is built, whether or not an appender needs the caller
+   * data.
+   */
+  AT_LOG_TIME,
+  /**
+   * The stack of the logging call is captured when the event is built, but
+   * the caller data is only extracted from it by the first call to
+   * {@link LoggingEvent#getCallerData()}, possibly on another thread. This
+   * lets {@link ch.qos.logback.classic.AsyncAppender} defer the extraction to
+   * its worker thread. Capturing the stack is cheaper than extracting caller
+   * data from it, but is paid for every event. The whole stack is captured,
+   * however small the maximum caller data depth.
+   */
+  DEFERRED;
+}
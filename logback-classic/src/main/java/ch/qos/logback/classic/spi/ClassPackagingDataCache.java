@@ -0,0 +1,193 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Packaging data of classes, keyed by class loader and class name, shared by
+ * the {@link PackagingDataCalculator} instances of a context so that
+ * successive exceptions do not load classes and read their code source
+ * again.
+ * <p/>
+ * Exact entries, computed from the class itself, and inexact ones, computed
+ * by loading the class by name through a class loader which may not be its
+ * own, are kept apart: a lookup only returns an entry of the same kind.
+ * <p/>
+ * Class loaders are only weakly referenced: the entries of a class loader
+ * are released once it is garbage collected. Entries computed without a
+ * class loader are kept under a <code>null</code> key.
+ * <p/>
+ * Once <code>maxSize</code> entries are cached, packaging data of new classes
+ * is computed every time.
+ *
+ * @since 1.1.3
+ */
+public class ClassPackagingDataCache {
+
+  private final int maxSize;
+  private final Table exactTable = new Table();
+  private final Table inexactTable = new Table();
+  private final ReferenceQueue<ClassLoader> collectedLoaders = new ReferenceQueue<ClassLoader>();
+
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+
+  public ClassPackagingDataCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @param exact whether to look up an exact or an inexact entry
+   * @return the cached packaging data, or null on a miss
+   */
+  public ClassPackagingData get(ClassLoader classLoader, String className, boolean exact) {
+    ConcurrentMap<String, ClassPackagingData> map = table(exact).mapOf(classLoader);
+    ClassPackagingData cpd = map == null ? null : map.get(className);
+    if (cpd == null) {
+      missCount.incrementAndGet();
+    } else {
+      hitCount.incrementAndGet();
+    }
+    return cpd;
+  }
+
+  /**
+   * Caches <code>cpd</code> as an exact or an inexact entry, depending on
+   * {@link ClassPackagingData#isExact()}.
+   */
+  public void put(ClassLoader classLoader, String className, ClassPackagingData cpd) {
+    expungeCollectedLoaders();
+    if (size.get() >= maxSize) {
+      return;
+    }
+    ConcurrentMap<String, ClassPackagingData> map = table(cpd.isExact()).createMapOf(classLoader);
+    if (map.putIfAbsent(className, cpd) == null) {
+      size.incrementAndGet();
+    }
+  }
+
+  private Table table(boolean exact) {
+    return exact ? exactTable : inexactTable;
+  }
+
+  private void expungeCollectedLoaders() {
+    Reference<? extends ClassLoader> ref;
+    while ((ref = collectedLoaders.poll()) != null) {
+      // a cleared key is only equal to itself, thus found in one table at most
+      size.addAndGet(-exactTable.remove(ref) - inexactTable.remove(ref));
+    }
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * @return the number of cached entries, including those of class loaders
+   *         collected since the last update of this cache
+   */
+  public int size() {
+    return size.get();
+  }
+
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  public void clear() {
+    exactTable.clear();
+    inexactTable.clear();
+    size.set(0);
+  }
+
+  /**
+   * Entries of one kind, by class loader and class name.
+   */
+  final class Table {
+    private final ConcurrentMap<LoaderKey, ConcurrentMap<String, ClassPackagingData>> loaderMap = new ConcurrentHashMap<LoaderKey, ConcurrentMap<String, ClassPackagingData>>();
+    private final ConcurrentMap<String, ClassPackagingData> noLoaderMap = new ConcurrentHashMap<String, ClassPackagingData>();
+
+    ConcurrentMap<String, ClassPackagingData> mapOf(ClassLoader classLoader) {
+      return classLoader == null ? noLoaderMap : loaderMap.get(new LoaderKey(classLoader, null));
+    }
+
+    ConcurrentMap<String, ClassPackagingData> createMapOf(ClassLoader classLoader) {
+      ConcurrentMap<String, ClassPackagingData> map = mapOf(classLoader);
+      if (map == null) {
+        ConcurrentMap<String, ClassPackagingData> newMap = new ConcurrentHashMap<String, ClassPackagingData>();
+        // only keys in the map are enqueued once their class loader is collected
+        map = loaderMap.putIfAbsent(new LoaderKey(classLoader, collectedLoaders), newMap);
+        if (map == null) {
+          map = newMap;
+        }
+      }
+      return map;
+    }
+
+    /**
+     * @return the number of entries removed
+     */
+    int remove(Reference<? extends ClassLoader> ref) {
+      ConcurrentMap<String, ClassPackagingData> map = loaderMap.remove(ref);
+      return map == null ? 0 : map.size();
+    }
+
+    void clear() {
+      loaderMap.clear();
+      noLoaderMap.clear();
+    }
+  }
+
+  /**
+   * Weak reference to a class loader, equal to any other reference to the
+   * same class loader until cleared.
+   */
+  static final class LoaderKey extends WeakReference<ClassLoader> {
+    final int hashCode;
+
+    LoaderKey(ClassLoader classLoader, ReferenceQueue<ClassLoader> queue) {
+      super(classLoader, queue);
+      this.hashCode = System.identityHashCode(classLoader);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof LoaderKey)) {
+        return false;
+      }
+      ClassLoader classLoader = get();
+      return classLoader != null && classLoader == ((LoaderKey) o).get();
+    }
+  }
+}
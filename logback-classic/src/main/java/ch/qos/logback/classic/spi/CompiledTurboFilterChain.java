@@ -0,0 +1,141 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * The turbo filter chain of a context, specialized for one logger.
+ * <p/>
+ * For each level, the filters whose reply is known in advance, see
+ * {@link TurboFilter#decideInAdvance(Logger, Level)}, are dropped: a
+ * NEUTRAL reply is skipped, while an ACCEPT or DENY reply ends the chain.
+ * What remains is the list of filters which must still be invoked, followed
+ * by the reply given when all of them are neutral. Levels for which no filter
+ * remains and whose calls are denied, by a filter or by the effective level of
+ * the logger, are summed up in {@link #getDisabledBelowInt()}.
+ * <p/>
+ * Instances are immutable and valid for one generation of the
+ * {@link TurboFilterList} they were compiled from.
+ *
+ * @since 1.1.3
+ */
+public final class CompiledTurboFilterChain {
+
+  static final Level[] LEVELS = { Level.TRACE, Level.DEBUG, Level.INFO, Level.WARN, Level.ERROR };
+  static final TurboFilter[] NO_FILTERS = new TurboFilter[0];
+
+  final int generation;
+  // indexed as LEVELS
+  final TurboFilter[][] filters = new TurboFilter[LEVELS.length][];
+  final FilterReply[] replies = new FilterReply[LEVELS.length];
+  final int disabledBelowInt;
+  // for levels other than those of LEVELS
+  final TurboFilter[] allFilters;
+
+  CompiledTurboFilterChain(TurboFilter[] chain, Logger logger, int generation) {
+    this.generation = generation;
+    this.allFilters = chain;
+    int effectiveLevelInt = logger.getEffectiveLevel().levelInt;
+    int threshold = Integer.MAX_VALUE;
+    for (int i = LEVELS.length - 1; i >= 0; i--) {
+      compile(chain, logger, i);
+      boolean disabled = filters[i].length == 0
+          && (replies[i] == FilterReply.DENY
+          || (replies[i] == FilterReply.NEUTRAL && effectiveLevelInt > LEVELS[i].levelInt));
+      if (!disabled) {
+        threshold = LEVELS[i].levelInt;
+      }
+    }
+    this.disabledBelowInt = threshold;
+  }
+
+  private void compile(TurboFilter[] chain, Logger logger, int index) {
+    List<TurboFilter> remaining = new ArrayList<TurboFilter>();
+    FilterReply reply = FilterReply.NEUTRAL;
+    for (TurboFilter tf : chain) {
+      FilterReply r = tf.decideInAdvance(logger, LEVELS[index]);
+      if (r == null) {
+        remaining.add(tf);
+      } else if (r != FilterReply.NEUTRAL) {
+        reply = r;
+        break;
+      }
+    }
+    filters[index] = remaining.isEmpty() ? NO_FILTERS : remaining.toArray(new TurboFilter[remaining.size()]);
+    replies[index] = reply;
+  }
+
+  static int indexOf(Level level) {
+    switch (level.levelInt) {
+    case Level.TRACE_INT:
+      return 0;
+    case Level.DEBUG_INT:
+      return 1;
+    case Level.INFO_INT:
+      return 2;
+    case Level.WARN_INT:
+      return 3;
+    case Level.ERROR_INT:
+      return 4;
+    default:
+      return -1;
+    }
+  }
+
+  public int getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Calls at a level lower than the returned value are denied, without
+   * invoking any filter.
+   */
+  public int getDisabledBelowInt() {
+    return disabledBelowInt;
+  }
+
+  /**
+   * Returns the reply for calls at <code>level</code> if no filter needs to
+   * be invoked to know it, or <code>null</code> otherwise.
+   */
+  public FilterReply getReplyInAdvance(Level level) {
+    int index = indexOf(level);
+    if (index < 0 || filters[index].length > 0) {
+      return null;
+    }
+    return replies[index];
+  }
+
+  public FilterReply decide(final Marker marker, final Logger logger, final Level level,
+      final String format, final Object[] params, final Throwable t) {
+    int index = indexOf(level);
+    TurboFilter[] toInvoke = index < 0 ? allFilters : filters[index];
+    for (int i = 0; i < toInvoke.length; i++) {
+      final FilterReply r = toInvoke[i].decide(marker, logger, level, format, params, t);
+      if (r == FilterReply.DENY || r == FilterReply.ACCEPT) {
+        return r;
+      }
+    }
+    return index < 0 ? FilterReply.NEUTRAL : replies[index];
+  }
+}
@@ -27,6 +27,7 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.spi.Recyclable;
 import org.slf4j.spi.MDCAdapter;
 
 /**
@@ -45,7 +46,7 @@ import org.slf4j.spi.MDCAdapter;
  * @author Ceki G&uuml;lc&uuml;
  * @author S&eacute;bastien Pennec
  */
-public class LoggingEvent implements ILoggingEvent {
+public class LoggingEvent implements ILoggingEvent, Recyclable {
 
   /**
    * Fully qualified name of the calling Logger class. This field does not
@@ -88,6 +89,9 @@ public class LoggingEvent implements ILoggingEvent {
 
   private StackTraceElement[] callerDataArray;
 
+  // stack of the logging call, see CallerDataExtraction.DEFERRED
+  private transient Throwable callerDataThrowable;
+
   private Marker marker;
 
   private Map<String, String> mdcPropertyMap;
@@ -99,11 +103,22 @@ public class LoggingEvent implements ILoggingEvent {
    */
   private long timeStamp;
 
+  /**
+   * Set by {@link #retain()}, after which a recycled event must not be
+   * reused.
+   */
+  transient boolean retained;
+
   public LoggingEvent() {
   }
 
   public LoggingEvent(String fqcn, Logger logger, Level level, String message,
                       Throwable throwable, Object[] argArray) {
+    init(fqcn, logger, level, message, throwable, argArray);
+  }
+
+  void init(String fqcn, Logger logger, Level level, String message,
+            Throwable throwable, Object[] argArray) {
     this.fqnOfLoggerClass = fqcn;
     this.loggerName = logger.getName();
     this.loggerContext = logger.getLoggerContext();
@@ -121,11 +136,56 @@ public class LoggingEvent implements ILoggingEvent {
       this.throwableProxy = new ThrowableProxy(throwable);
       LoggerContext lc = logger.getLoggerContext();
       if (lc.isPackagingDataEnabled()) {
-        this.throwableProxy.calculatePackagingData();
+        this.throwableProxy.calculatePackagingData(lc.getClassPackagingDataCache());
       }
     }
 
     timeStamp = System.currentTimeMillis();
+
+    switch (loggerContext.getCallerDataExtraction()) {
+    case AT_LOG_TIME:
+      getCallerData();
+      break;
+    case DEFERRED:
+      captureCallerData();
+      break;
+    default:
+      // extracted by the first call to getCallerData()
+    }
+  }
+
+  private void captureCallerData() {
+    CallerDataCache cache = loggerContext.getCallerDataCache();
+    if (cache != null) {
+      callerDataArray = cache.get(loggerName, message);
+      if (callerDataArray != null) {
+        return;
+      }
+    }
+    callerDataThrowable = new Throwable();
+  }
+
+  /**
+   * Drops every reference held by this event so that it can be initialized
+   * again by {@link LoggingEventRecycler}.
+   */
+  void clear() {
+    fqnOfLoggerClass = null;
+    threadName = null;
+    loggerName = null;
+    loggerContext = null;
+    loggerContextVO = null;
+    level = null;
+    message = null;
+    formattedMessage = null;
+    argumentArray = null;
+    throwableProxy = null;
+    callerDataArray = null;
+    callerDataThrowable = null;
+    marker = null;
+    mdcPropertyMap = null;
+    timeStamp = 0;
+    retained = false;
   }
 
   private Throwable extractThrowableAnRearrangeArguments(Object[] argArray) {
@@ -211,6 +271,16 @@ public class LoggingEvent implements ILoggingEvent {
     this.getMDCPropertyMap();
   }
 
+  /**
+   * Marks this event as referenced beyond the logging call which built it,
+   * so that it is not recycled.
+   *
+   * @since 1.1.3
+   */
+  public void retain() {
+    this.retained = true;
+  }
+
   public LoggerContextVO getLoggerContextVO() {
     return loggerContextVO;
   }
@@ -256,15 +326,40 @@ public class LoggingEvent implements ILoggingEvent {
    * Note that after serialization it is impossible to correctly extract caller
    * information.
    * </p>
+   * <p>
+   * Unless the stack of the logging call was captured when this event was
+   * built, see {@link CallerDataExtraction}, the first invocation must be made
+   * on the thread of the logging call.
+   * </p>
    */
   public StackTraceElement[] getCallerData() {
     if (callerDataArray == null) {
-      callerDataArray = CallerData.extract(new Throwable(), fqnOfLoggerClass,
-              loggerContext.getMaxCallerDataDepth(), loggerContext.getFrameworkPackages());
+      CallerDataCache cache = loggerContext.getCallerDataCache();
+      StackTraceElement[] cda = cache == null ? null : cache.get(loggerName, message);
+      if (cda == null) {
+        Throwable t = callerDataThrowable != null ? callerDataThrowable : new Throwable();
+        cda = CallerData.extract(t, fqnOfLoggerClass,
+                loggerContext.getMaxCallerDataDepth(), loggerContext.getFrameworkPackages());
+        if (cache != null) {
+          cache.put(loggerName, message, cda);
+        }
+      }
+      callerDataArray = cda;
     }
     return callerDataArray;
   }
 
+  /**
+   * Returns true if the stack of the logging call was captured when this event
+   * was built, so that {@link #getCallerData()} may first be invoked on any
+   * thread.
+   *
+   * @since 1.1.3
+   */
+  public boolean isCallerDataDeferred() {
+    return callerDataThrowable != null;
+  }
+
   public boolean hasCallerData() {
     return (callerDataArray != null);
   }
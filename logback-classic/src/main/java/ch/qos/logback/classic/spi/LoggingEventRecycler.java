@@ -0,0 +1,127 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import java.util.Arrays;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+
+/**
+ * Recycles {@link LoggingEvent} instances, along with the argument arrays of
+ * logging calls taking one or two arguments, so that an enabled logging call
+ * does not allocate them.
+ * <p/>
+ * Each thread keeps one spare event. A logging call initializes it, hands it
+ * to the appenders and, once the last appender has returned, clears it for
+ * the next call. An appender which keeps a reference to an event after
+ * returning must call {@link LoggingEvent#retain()} first, in addition to
+ * {@link ILoggingEvent#prepareForDeferredProcessing()}. The event then
+ * belongs to the appender and the thread allocates a new spare. The
+ * appenders shipped with logback which queue or buffer events do so. A
+ * logging call made while the thread's spare is in use, for instance by an
+ * appender, uses a newly allocated event.
+ * <p/>
+ * Recycling is enabled with
+ * {@link ch.qos.logback.classic.LoggerContext#setEventRecycling(boolean)}.
+ *
+ * @since 1.1.3
+ */
+public class LoggingEventRecycler {
+
+  static class Spares {
+    LoggingEvent event = new LoggingEvent();
+    Object[] oneArgument = new Object[1];
+    Object[] twoArguments = new Object[2];
+    boolean inUse = false;
+  }
+
+  final ThreadLocal<Spares> spares = new ThreadLocal<Spares>() {
+    @Override
+    protected Spares initialValue() {
+      return new Spares();
+    }
+  };
+
+  public void buildAndAppend(Logger logger, String fqcn, Marker marker, Level level,
+      String msg, Object[] params, Throwable t) {
+    Spares s = spares.get();
+    if (s.inUse) {
+      appendNewEvent(logger, fqcn, marker, level, msg, params, t);
+    } else {
+      append(s, logger, fqcn, marker, level, msg, params, t);
+    }
+  }
+
+  public void buildAndAppend_1(Logger logger, String fqcn, Marker marker, Level level,
+      String msg, Object param, Throwable t) {
+    Spares s = spares.get();
+    if (s.inUse) {
+      appendNewEvent(logger, fqcn, marker, level, msg, new Object[] { param }, t);
+    } else {
+      Object[] params = s.oneArgument;
+      params[0] = param;
+      append(s, logger, fqcn, marker, level, msg, params, t);
+    }
+  }
+
+  public void buildAndAppend_2(Logger logger, String fqcn, Marker marker, Level level,
+      String msg, Object param1, Object param2, Throwable t) {
+    Spares s = spares.get();
+    if (s.inUse) {
+      appendNewEvent(logger, fqcn, marker, level, msg, new Object[] { param1, param2 }, t);
+    } else {
+      Object[] params = s.twoArguments;
+      params[0] = param1;
+      params[1] = param2;
+      append(s, logger, fqcn, marker, level, msg, params, t);
+    }
+  }
+
+  private void appendNewEvent(Logger logger, String fqcn, Marker marker, Level level,
+      String msg, Object[] params, Throwable t) {
+    LoggingEvent le = new LoggingEvent(fqcn, logger, level, msg, t, params);
+    le.setMarker(marker);
+    logger.callAppenders(le);
+  }
+
+  private void append(Spares s, Logger logger, String fqcn, Marker marker, Level level,
+      String msg, Object[] params, Throwable t) {
+    LoggingEvent le = s.event;
+    s.inUse = true;
+    try {
+      le.init(fqcn, logger, level, msg, t, params);
+      le.setMarker(marker);
+      logger.callAppenders(le);
+    } finally {
+      s.inUse = false;
+      if (le.retained) {
+        // the event and its arguments now belong to an appender
+        s.event = new LoggingEvent();
+        if (params == s.oneArgument) {
+          s.oneArgument = new Object[1];
+        } else if (params == s.twoArguments) {
+          s.twoArguments = new Object[2];
+        }
+      } else {
+        le.clear();
+        if (params == s.oneArgument || params == s.twoArguments) {
+          Arrays.fill(params, null);
+        }
+      }
+    }
+  }
+}
@@ -15,7 +15,6 @@ package ch.qos.logback.classic.spi;
 
 import java.net.URL;
 import java.security.CodeSource;
-import java.util.HashMap;
 
 import sun.reflect.Reflection;
 // import java.security.AccessControlException; import java.security.AccessController;import java.security.PrivilegedAction;
@@ -29,7 +28,7 @@ public class PackagingDataCalculator {
 
   final static StackTraceElementProxy[] STEP_ARRAY_TEMPLATE = new StackTraceElementProxy[0];
 
-  HashMap<String, ClassPackagingData> cache = new HashMap<String, ClassPackagingData>();
+  final ClassPackagingDataCache cache;
 
   private static boolean GET_CALLER_CLASS_METHOD_AVAILABLE = false; //private static boolean HAS_GET_CLASS_LOADER_PERMISSION = false;
 
@@ -52,6 +51,23 @@ public class PackagingDataCalculator {
   }
 
 
+  /**
+   * Creates a calculator with a cache of its own.
+   */
+  public PackagingDataCalculator() {
+    this(new ClassPackagingDataCache(Integer.MAX_VALUE));
+  }
+
+  /**
+   * Creates a calculator sharing the given cache, typically the one of a
+   * {@link ch.qos.logback.classic.LoggerContext}.
+   *
+   * @since 1.1.3
+   */
+  public PackagingDataCalculator(ClassPackagingDataCache cache) {
+    this.cache = cache;
+  }
+
   public void calculate(IThrowableProxy tp) {
     while (tp != null) {
       populateFrames(tp.getStackTraceElementProxyArray());
@@ -117,21 +133,23 @@ public class PackagingDataCalculator {
 
   private ClassPackagingData calculateByExactType(Class type) {
     String className = type.getName();
-    ClassPackagingData cpd = cache.get(className);
+    ClassLoader classLoader = type.getClassLoader();
+    ClassPackagingData cpd = cache.get(classLoader, className, true);
     if (cpd != null) {
       return cpd;
     }
     String version = getImplementationVersion(type);
     String codeLocation = getCodeLocation(type);
     cpd = new ClassPackagingData(codeLocation, version);
-    cache.put(className, cpd);
+    cache.put(classLoader, className, cpd);
     return cpd;
   }
 
   private ClassPackagingData computeBySTEP(StackTraceElementProxy step,
                                            ClassLoader lastExactClassLoader) {
     String className = step.ste.getClassName();
-    ClassPackagingData cpd = cache.get(className);
+    // keyed by the class loader tried first, the class may come from another
+    ClassPackagingData cpd = cache.get(lastExactClassLoader, className, false);
     if (cpd != null) {
       return cpd;
     }
@@ -139,7 +157,7 @@ public class PackagingDataCalculator {
     String version = getImplementationVersion(type);
     String codeLocation = getCodeLocation(type);
     cpd = new ClassPackagingData(codeLocation, version, false);
-    cache.put(className, cpd);
+    cache.put(lastExactClassLoader, className, cpd);
     return cpd;
   }
 
@@ -138,9 +138,22 @@ public class ThrowableProxy implements IThrowableProxy {
   }
 
   public void calculatePackagingData() {
+    calculatePackagingData(null);
+  }
+
+  /**
+   * Same as {@link #calculatePackagingData()}, but looks up and stores
+   * packaging data in the given cache, which may be null.
+   *
+   * @since 1.1.3
+   */
+  public void calculatePackagingData(ClassPackagingDataCache cache) {
     if (calculatedPackageData) {
       return;
     }
+    if (cache != null && throwable != null && packagingDataCalculator == null) {
+      packagingDataCalculator = new PackagingDataCalculator(cache);
+    }
     PackagingDataCalculator pdc = this.getPackagingDataCalculator();
     if (pdc != null) {
       calculatedPackageData = true;
@@ -13,17 +13,23 @@
  */
 package ch.qos.logback.classic.spi;
 
+import java.util.Collection;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Marker;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.turbo.TurboFilter;
 import ch.qos.logback.core.spi.FilterReply;
 
 /**
  * Implementation of TurboFilterAttachable.
+ * <p>
+ * Every change to the list starts a new generation, which invalidates the
+ * chains compiled for each logger by {@link #compile(Logger)}.
  * 
  * @author Ceki G&uuml;lc&uuml;
  */
@@ -31,6 +37,138 @@ final public class TurboFilterList extends CopyOnWriteArrayList<TurboFilter> {
 
   private static final long serialVersionUID = 1L;
 
+  private final transient LoggerContext loggerContext;
+  private final AtomicInteger generation = new AtomicInteger();
+  private transient volatile TurboFilter[] snapshot = CompiledTurboFilterChain.NO_FILTERS;
+
+  public TurboFilterList() {
+    this(null);
+  }
+
+  /**
+   * @param loggerContext the context whose loggers are told of changes, may
+   *          be null
+   * @since 1.1.3
+   */
+  public TurboFilterList(LoggerContext loggerContext) {
+    this.loggerContext = loggerContext;
+  }
+
+  public int getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Starts a new generation, invalidating the chains compiled so far. Called
+   * by {@link LoggerContext#invalidateTurboFilterDecisions()}.
+   *
+   * @since 1.1.3
+   */
+  public void nextGeneration() {
+    snapshot = toArray(new TurboFilter[0]);
+    generation.incrementAndGet();
+  }
+
+  /**
+   * Compiles the chain for the given logger, as of the current generation.
+   *
+   * @since 1.1.3
+   */
+  public CompiledTurboFilterChain compile(Logger logger) {
+    int currentGeneration = generation.get();
+    return new CompiledTurboFilterChain(snapshot, logger, currentGeneration);
+  }
+
+  private void changed() {
+    if (loggerContext != null) {
+      loggerContext.invalidateTurboFilterDecisions();
+    } else {
+      nextGeneration();
+    }
+  }
+
+  @Override
+  public boolean add(TurboFilter tf) {
+    boolean result = super.add(tf);
+    changed();
+    return result;
+  }
+
+  @Override
+  public void add(int index, TurboFilter tf) {
+    super.add(index, tf);
+    changed();
+  }
+
+  @Override
+  public boolean addIfAbsent(TurboFilter tf) {
+    boolean result = super.addIfAbsent(tf);
+    changed();
+    return result;
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends TurboFilter> c) {
+    boolean result = super.addAll(c);
+    changed();
+    return result;
+  }
+
+  @Override
+  public boolean addAll(int index, Collection<? extends TurboFilter> c) {
+    boolean result = super.addAll(index, c);
+    changed();
+    return result;
+  }
+
+  @Override
+  public int addAllAbsent(Collection<? extends TurboFilter> c) {
+    int result = super.addAllAbsent(c);
+    changed();
+    return result;
+  }
+
+  @Override
+  public TurboFilter set(int index, TurboFilter tf) {
+    TurboFilter result = super.set(index, tf);
+    changed();
+    return result;
+  }
+
+  @Override
+  public TurboFilter remove(int index) {
+    TurboFilter result = super.remove(index);
+    changed();
+    return result;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    boolean result = super.remove(o);
+    changed();
+    return result;
+  }
+
+  @Override
+  public boolean removeAll(Collection<?> c) {
+    boolean result = super.removeAll(c);
+    changed();
+    return result;
+  }
+
+  @Override
+  public boolean retainAll(Collection<?> c) {
+    boolean result = super.retainAll(c);
+    changed();
+    return result;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    changed();
+  }
+
   /**
    * Loop through the filters in the chain. As soon as a filter decides on
    * ACCEPT or DENY, then that value is returned. If all of the filters return
@@ -54,11 +192,11 @@ final public class TurboFilterList extends CopyOnWriteArrayList<TurboFilter> {
       }
     }
     
-    Object[] tfa = toArray();
+    final TurboFilter[] tfa = snapshot;
     final int len = tfa.length;
     for (int i = 0; i < len; i++) {
     //for (TurboFilter tf : this) {
-      final TurboFilter tf = (TurboFilter) tfa[i];
+      final TurboFilter tf = tfa[i];
       final FilterReply r = tf.decide(marker, logger, level, format, params, t);
       if (r == FilterReply.DENY || r == FilterReply.ACCEPT) {
         return r;
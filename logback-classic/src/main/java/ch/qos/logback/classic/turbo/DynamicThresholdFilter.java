@@ -254,4 +254,35 @@ public class DynamicThresholdFilter extends TurboFilter {
       return onLower;
     }
   }
+
+  /**
+   * The reply is known in advance when <code>level</code> is higher or equal
+   * to every threshold, or lower than every threshold, whatever the MDC
+   * value.
+   */
+  @Override
+  public FilterReply decideInAdvance(Logger logger, Level level) {
+    if (!isStarted()) {
+      return FilterReply.NEUTRAL;
+    }
+    if (onHigherOrEqual == onLower) {
+      return onLower;
+    }
+    boolean higherOrEqualToAll = level.isGreaterOrEqual(defaultThreshold);
+    boolean lowerThanAll = !higherOrEqualToAll;
+    for (Level threshold : valueLevelMap.values()) {
+      if (level.isGreaterOrEqual(threshold)) {
+        lowerThanAll = false;
+      } else {
+        higherOrEqualToAll = false;
+      }
+    }
+    if (higherOrEqualToAll) {
+      return onHigherOrEqual;
+    }
+    if (lowerThanAll) {
+      return onLower;
+    }
+    return null;
+  }
 }
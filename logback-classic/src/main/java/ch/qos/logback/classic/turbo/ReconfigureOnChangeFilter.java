@@ -95,6 +95,18 @@ public class ReconfigureOnChangeFilter extends TurboFilter {
   private volatile long lastMaskCheck = System.currentTimeMillis();
 
 
+  /**
+   * Calls disabled by the level of their logger need not be counted towards
+   * change detection, so their reply is NEUTRAL in advance.
+   */
+  @Override
+  public FilterReply decideInAdvance(Logger logger, Level level) {
+    if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+      return FilterReply.NEUTRAL;
+    }
+    return null;
+  }
+
   @Override
   public FilterReply decide(Marker marker, Logger logger, Level level,
                             String format, Object[] params, Throwable t) {
@@ -17,6 +17,7 @@ import org.slf4j.Marker;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.core.spi.ContextAwareBase;
 import ch.qos.logback.core.spi.FilterReply;
 import ch.qos.logback.core.spi.LifeCycle;
@@ -53,8 +54,28 @@ public abstract class TurboFilter extends ContextAwareBase implements LifeCycle
   public abstract FilterReply decide(Marker marker, Logger logger,
       Level level, String format, Object[] params, Throwable t);
 
+  /**
+   * Returns the reply of {@link #decide} for every call made on
+   * <code>logger</code> at <code>level</code>, whatever the other arguments,
+   * or <code>null</code> if the reply depends on them. This implementation
+   * returns <code>null</code>.
+   * <p>
+   * When the reply is known in advance, the {@link LoggerContext} may answer
+   * calls without invoking {@link #decide}. The reply must therefore depend
+   * only on the arguments given and on the properties of this filter set
+   * before it is started, and skipping {@link #decide} must be harmless.
+   * Answers are recomputed whenever the turbo filter list, a logger level or
+   * the started state of a filter changes.
+   *
+   * @since 1.1.3
+   */
+  public FilterReply decideInAdvance(Logger logger, Level level) {
+    return null;
+  }
+
   public void start() {
     this.start = true;
+    invalidateDecisions();
   }
   
   public boolean isStarted() {
@@ -63,6 +84,13 @@ public abstract class TurboFilter extends ContextAwareBase implements LifeCycle
  
   public void stop() {
     this.start = false;
+    invalidateDecisions();
+  }
+
+  private void invalidateDecisions() {
+    if (context instanceof LoggerContext) {
+      ((LoggerContext) context).invalidateTurboFilterDecisions();
+    }
   }
 
 
@@ -0,0 +1,362 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.util;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable map of MDC keys to values, implemented as a hash array mapped
+ * trie. {@link #with} and {@link #without} return a new map sharing all but
+ * the path to the modified entry with this one, so that a thread can update
+ * its MDC while logging events keep the maps they captured, without copying.
+ * <p/>
+ * Values may be null. The mutators of {@link Map} throw
+ * UnsupportedOperationException.
+ */
+final class PersistentMDCMap extends AbstractMap<String, String> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  static final PersistentMDCMap EMPTY = new PersistentMDCMap(BitmapNode.EMPTY, 0);
+
+  // returned by Node.find for absent keys, since values may be null
+  static final Object NOT_FOUND = new Object();
+
+  private final Node root;
+  private final int size;
+  private transient volatile Set<Map.Entry<String, String>> entrySet;
+
+  private PersistentMDCMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  static PersistentMDCMap copyOf(Map<String, String> map) {
+    PersistentMDCMap result = EMPTY;
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      result = result.with(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+
+  static int hash(Object key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  PersistentMDCMap with(String key, String value) {
+    boolean[] added = new boolean[1];
+    Node newRoot = root.assoc(0, hash(key), key, value, added);
+    if (newRoot == root) {
+      return this;
+    }
+    return new PersistentMDCMap(newRoot, added[0] ? size + 1 : size);
+  }
+
+  PersistentMDCMap without(String key) {
+    Node newRoot = root.without(0, hash(key), key);
+    if (newRoot == root) {
+      return this;
+    }
+    return newRoot == null ? EMPTY : new PersistentMDCMap(newRoot, size - 1);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof String && root.find(0, hash(key), key) != NOT_FOUND;
+  }
+
+  @Override
+  public String get(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    Object value = root.find(0, hash(key), key);
+    return value == NOT_FOUND ? null : (String) value;
+  }
+
+  @Override
+  public Set<Map.Entry<String, String>> entrySet() {
+    Set<Map.Entry<String, String>> result = entrySet;
+    if (result == null) {
+      List<Map.Entry<String, String>> entries = new ArrayList<Map.Entry<String, String>>(size);
+      root.collect(entries);
+      result = new EntrySet(entries);
+      entrySet = result;
+    }
+    return result;
+  }
+
+  // receivers of serialized events need not know this class
+  private Object writeReplace() {
+    return new HashMap<String, String>(this);
+  }
+
+  static final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+    final List<Map.Entry<String, String>> entries;
+
+    EntrySet(List<Map.Entry<String, String>> entries) {
+      this.entries = entries;
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+      final Iterator<Map.Entry<String, String>> it = entries.iterator();
+      return new Iterator<Map.Entry<String, String>>() {
+        public boolean hasNext() {
+          return it.hasNext();
+        }
+
+        public Map.Entry<String, String> next() {
+          return it.next();
+        }
+
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return entries.size();
+    }
+  }
+
+  interface Node {
+    Object find(int shift, int hash, Object key);
+
+    Node assoc(int shift, int hash, String key, String value, boolean[] added);
+
+    /**
+     * @return this node if the key is absent, null if no entry is left
+     */
+    Node without(int shift, int hash, Object key);
+
+    void collect(List<Map.Entry<String, String>> entries);
+  }
+
+  /**
+   * Up to 32 slots selected by 5 bits of the hash. Each slot takes two array
+   * elements: a key and its value, or null and a sub-node.
+   */
+  static final class BitmapNode implements Node {
+    static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    final int bitmap;
+    final Object[] array;
+
+    BitmapNode(int bitmap, Object[] array) {
+      this.bitmap = bitmap;
+      this.array = array;
+    }
+
+    static int bit(int hash, int shift) {
+      return 1 << ((hash >>> shift) & 31);
+    }
+
+    int index(int bit) {
+      return 2 * Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    public Object find(int shift, int hash, Object key) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return NOT_FOUND;
+      }
+      int idx = index(bit);
+      Object k = array[idx];
+      Object v = array[idx + 1];
+      if (k == null) {
+        return ((Node) v).find(shift + 5, hash, key);
+      }
+      return key.equals(k) ? v : NOT_FOUND;
+    }
+
+    public Node assoc(int shift, int hash, String key, String value, boolean[] added) {
+      int bit = bit(hash, shift);
+      int idx = index(bit);
+      if ((bitmap & bit) == 0) {
+        Object[] newArray = new Object[array.length + 2];
+        System.arraycopy(array, 0, newArray, 0, idx);
+        newArray[idx] = key;
+        newArray[idx + 1] = value;
+        System.arraycopy(array, idx, newArray, idx + 2, array.length - idx);
+        added[0] = true;
+        return new BitmapNode(bitmap | bit, newArray);
+      }
+      Object k = array[idx];
+      Object v = array[idx + 1];
+      if (k == null) {
+        Node node = ((Node) v).assoc(shift + 5, hash, key, value, added);
+        return node == v ? this : copyAndSet(idx + 1, node);
+      }
+      if (key.equals(k)) {
+        if (value == null ? v == null : value.equals(v)) {
+          return this;
+        }
+        return copyAndSet(idx + 1, value);
+      }
+      added[0] = true;
+      Node node = createNode(shift + 5, (String) k, (String) v, hash, key, value);
+      Object[] newArray = array.clone();
+      newArray[idx] = null;
+      newArray[idx + 1] = node;
+      return new BitmapNode(bitmap, newArray);
+    }
+
+    public Node without(int shift, int hash, Object key) {
+      int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return this;
+      }
+      int idx = index(bit);
+      Object k = array[idx];
+      Object v = array[idx + 1];
+      if (k == null) {
+        Node node = ((Node) v).without(shift + 5, hash, key);
+        if (node == v) {
+          return this;
+        }
+        if (node != null) {
+          return copyAndSet(idx + 1, node);
+        }
+      } else if (!key.equals(k)) {
+        return this;
+      }
+      if (bitmap == bit) {
+        return null;
+      }
+      Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, idx);
+      System.arraycopy(array, idx + 2, newArray, idx, array.length - idx - 2);
+      return new BitmapNode(bitmap ^ bit, newArray);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void collect(List<Map.Entry<String, String>> entries) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (array[i] == null) {
+          ((Node) array[i + 1]).collect(entries);
+        } else {
+          entries.add(new SimpleImmutableEntry<String, String>((String) array[i], (String) array[i + 1]));
+        }
+      }
+    }
+
+    private BitmapNode copyAndSet(int i, Object o) {
+      Object[] newArray = array.clone();
+      newArray[i] = o;
+      return new BitmapNode(bitmap, newArray);
+    }
+
+    private static Node createNode(int shift, String key1, String value1, int hash2, String key2,
+        String value2) {
+      int hash1 = hash(key1);
+      if (hash1 == hash2) {
+        return new CollisionNode(hash1, new Object[] { key1, value1, key2, value2 });
+      }
+      boolean[] added = new boolean[1];
+      return EMPTY.assoc(shift, hash1, key1, value1, added).assoc(shift, hash2, key2, value2, added);
+    }
+  }
+
+  /**
+   * Entries whose keys have the same hash, as alternating keys and values.
+   */
+  static final class CollisionNode implements Node {
+    final int hash;
+    final Object[] array;
+
+    CollisionNode(int hash, Object[] array) {
+      this.hash = hash;
+      this.array = array;
+    }
+
+    int indexOf(Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    public Object find(int shift, int hash, Object key) {
+      if (hash != this.hash) {
+        return NOT_FOUND;
+      }
+      int idx = indexOf(key);
+      return idx < 0 ? NOT_FOUND : array[idx + 1];
+    }
+
+    public Node assoc(int shift, int hash, String key, String value, boolean[] added) {
+      if (hash != this.hash) {
+        // nest this node in a bitmap node, then add the new entry beside it
+        Node parent = new BitmapNode(BitmapNode.bit(this.hash, shift), new Object[] { null, this });
+        return parent.assoc(shift, hash, key, value, added);
+      }
+      int idx = indexOf(key);
+      if (idx >= 0) {
+        Object v = array[idx + 1];
+        if (value == null ? v == null : value.equals(v)) {
+          return this;
+        }
+        Object[] newArray = array.clone();
+        newArray[idx + 1] = value;
+        return new CollisionNode(hash, newArray);
+      }
+      Object[] newArray = Arrays.copyOf(array, array.length + 2);
+      newArray[array.length] = key;
+      newArray[array.length + 1] = value;
+      added[0] = true;
+      return new CollisionNode(hash, newArray);
+    }
+
+    public Node without(int shift, int hash, Object key) {
+      int idx = hash == this.hash ? indexOf(key) : -1;
+      if (idx < 0) {
+        return this;
+      }
+      if (array.length == 2) {
+        return null;
+      }
+      Object[] newArray = new Object[array.length - 2];
+      System.arraycopy(array, 0, newArray, 0, idx);
+      System.arraycopy(array, idx + 2, newArray, idx, array.length - idx - 2);
+      return new CollisionNode(hash, newArray);
+    }
+
+    public void collect(List<Map.Entry<String, String>> entries) {
+      for (int i = 0; i < array.length; i += 2) {
+        entries.add(new SimpleImmutableEntry<String, String>((String) array[i], (String) array[i + 1]));
+      }
+    }
+  }
+}
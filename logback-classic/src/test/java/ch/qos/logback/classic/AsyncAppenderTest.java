@@ -91,4 +91,26 @@ public class AsyncAppenderTest {
     StackTraceElement ste = e.getCallerData()[0];
     assertEquals(thisClassName, ste.getClassName());
   }
+
+  @Test
+  public void droppedEventsAreCountedByLevelAndReported() {
+    int loopLen = 3;
+    asyncAppender.addAppender(listAppender);
+    // all DEBUG events are discarded
+    asyncAppender.setDiscardingThreshold(AsyncAppender.DEFAULT_QUEUE_SIZE + 1);
+    asyncAppender.start();
+
+    for (int i = 0; i < loopLen; i++) {
+      asyncAppender.doAppend(builder.build(diff));
+    }
+    asyncAppender.stop();
+
+    assertEquals(loopLen, asyncAppender.getDroppedEventCount(Level.DEBUG.toString()));
+    assertEquals(0, asyncAppender.getDroppedEventCount(Level.INFO.toString()));
+    assertEquals(1, listAppender.list.size());
+    ILoggingEvent summary = listAppender.list.get(0);
+    assertEquals(Level.WARN, summary.getLevel());
+    assertEquals(AsyncAppender.class.getName(), summary.getLoggerName());
+    assertTrue(summary.getFormattedMessage().contains("dropped " + loopLen + " events"));
+  }
 }
@@ -0,0 +1,200 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import ch.qos.logback.classic.spi.CompiledTurboFilterChain;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.turbo.DynamicThresholdFilter;
+import ch.qos.logback.classic.turbo.MDCValueLevelPair;
+import ch.qos.logback.classic.turbo.MarkerFilter;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.spi.FilterReply;
+
+public class CompiledTurboFilterChainTest {
+
+  LoggerContext loggerContext = new LoggerContext();
+  Logger logger = loggerContext.getLogger(CompiledTurboFilterChainTest.class);
+  ListAppender<ILoggingEvent> listAppender = new ListAppender<ILoggingEvent>();
+
+  /**
+   * Counts its invocations, and denies calls below a level known in advance.
+   */
+  static class CountingFilter extends TurboFilter {
+    int count;
+    Level denyBelow = Level.INFO;
+
+    @Override
+    public FilterReply decideInAdvance(Logger logger, Level level) {
+      return level.isGreaterOrEqual(denyBelow) ? null : FilterReply.DENY;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+        Throwable t) {
+      count++;
+      return level.isGreaterOrEqual(denyBelow) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    listAppender.setContext(loggerContext);
+    listAppender.start();
+    logger.addAppender(listAppender);
+    logger.setLevel(Level.TRACE);
+  }
+
+  CountingFilter addCountingFilter() {
+    CountingFilter filter = new CountingFilter();
+    filter.setContext(loggerContext);
+    filter.start();
+    loggerContext.addTurboFilter(filter);
+    return filter;
+  }
+
+  @Test
+  public void filtersDenyingInAdvanceAreNotInvoked() {
+    CountingFilter filter = addCountingFilter();
+    logger.debug("a");
+    logger.debug("b {}", 1);
+    logger.trace("c {} {}", 1, 2);
+    assertEquals(0, filter.count);
+    logger.info("d");
+    logger.warn("e {}", 1);
+    assertEquals(2, filter.count);
+    assertEquals(2, listAppender.list.size());
+    assertEquals(Level.INFO.levelInt, logger.getCompiledTurboFilterChain().getDisabledBelowInt());
+  }
+
+  @Test
+  public void addingAFilterInvalidatesTheChain() {
+    logger.debug("a");
+    CountingFilter filter = addCountingFilter();
+    int generation = logger.getCompiledTurboFilterChain().getGeneration();
+    logger.debug("b");
+    assertEquals(1, listAppender.list.size());
+
+    CountingFilter other = addCountingFilter();
+    assertTrue(generation != logger.getCompiledTurboFilterChain().getGeneration());
+    logger.info("c");
+    assertEquals(1, filter.count);
+    assertEquals(1, other.count);
+
+    loggerContext.resetTurboFilterList();
+    logger.debug("d");
+    assertEquals(3, listAppender.list.size());
+  }
+
+  @Test
+  public void stoppingAFilterInvalidatesTheChain() {
+    CountingFilter filter = addCountingFilter();
+    logger.debug("a");
+    assertEquals(0, listAppender.list.size());
+    filter.stop();
+    // a stopped filter still replies in advance, but the chain is compiled again
+    filter.denyBelow = Level.TRACE;
+    logger.debug("b");
+    assertEquals(1, listAppender.list.size());
+  }
+
+  @Test
+  public void settingALevelInvalidatesTheChain() {
+    TurboFilter neutral = new TurboFilter() {
+      @Override
+      public FilterReply decideInAdvance(Logger logger, Level level) {
+        return FilterReply.NEUTRAL;
+      }
+
+      @Override
+      public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+          Throwable t) {
+        return FilterReply.NEUTRAL;
+      }
+    };
+    neutral.start();
+    loggerContext.addTurboFilter(neutral);
+    logger.setLevel(Level.WARN);
+    logger.info("a");
+    assertEquals(Level.WARN.levelInt, logger.getCompiledTurboFilterChain().getDisabledBelowInt());
+
+    loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.ERROR);
+    logger.setLevel(null);
+    assertEquals(Level.ERROR.levelInt, logger.getCompiledTurboFilterChain().getDisabledBelowInt());
+    logger.setLevel(Level.DEBUG);
+    logger.debug("b");
+    assertEquals(1, listAppender.list.size());
+  }
+
+  @Test
+  public void filtersDependingOnTheCallAreAlwaysInvoked() {
+    MarkerFilter markerFilter = new MarkerFilter();
+    markerFilter.setMarker("SHOW");
+    markerFilter.setOnMatch("ACCEPT");
+    markerFilter.start();
+    loggerContext.addTurboFilter(markerFilter);
+    logger.setLevel(Level.ERROR);
+
+    CompiledTurboFilterChain chain = logger.getCompiledTurboFilterChain();
+    assertNull(chain.getReplyInAdvance(Level.DEBUG));
+    assertEquals(Level.TRACE.levelInt, chain.getDisabledBelowInt());
+    logger.debug(MarkerFactory.getMarker("SHOW"), "a");
+    logger.debug("b");
+    assertEquals(1, listAppender.list.size());
+  }
+
+  @Test
+  public void dynamicThresholdFilterDecidesInAdvance() {
+    DynamicThresholdFilter filter = new DynamicThresholdFilter();
+    filter.setKey("userId");
+    filter.setDefaultThreshold(Level.INFO);
+    MDCValueLevelPair pair = new MDCValueLevelPair();
+    pair.setValue("alice");
+    pair.setLevel(Level.DEBUG);
+    filter.addMDCValueLevelPair(pair);
+    filter.setOnHigherOrEqual(FilterReply.ACCEPT);
+    filter.setOnLower(FilterReply.DENY);
+    assertEquals(FilterReply.NEUTRAL, filter.decideInAdvance(logger, Level.TRACE));
+
+    filter.start();
+    assertEquals(FilterReply.DENY, filter.decideInAdvance(logger, Level.TRACE));
+    assertNull(filter.decideInAdvance(logger, Level.DEBUG));
+    assertEquals(FilterReply.ACCEPT, filter.decideInAdvance(logger, Level.INFO));
+    assertEquals(FilterReply.ACCEPT, filter.decideInAdvance(logger, Level.ERROR));
+
+    filter.setOnHigherOrEqual(FilterReply.DENY);
+    assertEquals(FilterReply.DENY, filter.decideInAdvance(logger, Level.DEBUG));
+  }
+
+  @Test
+  public void unknownReplyKeepsFiltering() {
+    CountingFilter filter = addCountingFilter();
+    filter.denyBelow = Level.DEBUG;
+    CompiledTurboFilterChain chain = logger.getCompiledTurboFilterChain();
+    assertFalse(chain.getReplyInAdvance(Level.TRACE) == null);
+    assertNull(chain.getReplyInAdvance(Level.DEBUG));
+    assertEquals(FilterReply.NEUTRAL, chain.decide(null, logger, Level.DEBUG, "x", null, null));
+    assertEquals(1, filter.count);
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+/**
+ * Measures the bytes allocated per logging call through a FileAppender, with
+ * and without event recycling. Relies on the allocation counters of HotSpot
+ * JVMs.
+ */
+@Ignore
+public class LoggingEventRecyclingPerfTest {
+
+  static int WARMUP_LENGTH = 200 * 1000;
+  static int RUN_LENGTH = 1000 * 1000;
+
+  LoggerContext lc = new LoggerContext();
+  Logger logger = lc.getLogger(this.getClass());
+  FileAppender<ILoggingEvent> fileAppender = new FileAppender<ILoggingEvent>();
+
+  @After
+  public void tearDown() {
+    lc.stop();
+  }
+
+  void startFileAppender(String pattern) {
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(lc);
+    encoder.setPattern(pattern);
+    encoder.start();
+    fileAppender.setContext(lc);
+    fileAppender.setEncoder(encoder);
+    fileAppender.setAppend(false);
+    fileAppender.setFile(ClassicTestConstants.OUTPUT_DIR_PREFIX + "recycling-"
+        + RandomUtil.getPositiveInt() + ".log");
+    fileAppender.start();
+    logger.addAppender(fileAppender);
+    logger.setAdditive(false);
+  }
+
+  static long allocatedBytes() throws Exception {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    Method method = Class.forName("com.sun.management.ThreadMXBean")
+        .getMethod("getThreadAllocatedBytes", long.class);
+    return (Long) method.invoke(threadMXBean, Thread.currentThread().getId());
+  }
+
+  void printBytesPerCall(String label) throws Exception {
+    Integer arg = 42;
+    for (int i = 0; i < WARMUP_LENGTH; i++) {
+      logger.info("constant message");
+      logger.info("one argument {}", arg);
+    }
+    long start = allocatedBytes();
+    for (int i = 0; i < RUN_LENGTH; i++) {
+      logger.info("constant message");
+    }
+    long middle = allocatedBytes();
+    for (int i = 0; i < RUN_LENGTH; i++) {
+      logger.info("one argument {}", arg);
+    }
+    long end = allocatedBytes();
+    // formatting a message with arguments allocates the resulting string
+    System.out.println(label + " bytes/call constant=" + (double) (middle - start) / RUN_LENGTH
+        + " oneArgument=" + (double) (end - middle) / RUN_LENGTH);
+  }
+
+  @Test
+  public void withoutRecycling() throws Exception {
+    startFileAppender("%-5level %logger{0} - %msg%n");
+    printBytesPerCall("withoutRecycling");
+  }
+
+  @Test
+  public void withRecycling() throws Exception {
+    lc.setEventRecycling(true);
+    startFileAppender("%-5level %logger{0} - %msg%n");
+    printBytesPerCall("withRecycling");
+  }
+}
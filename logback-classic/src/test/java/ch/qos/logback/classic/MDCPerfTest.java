@@ -0,0 +1,132 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+/**
+ * Measures the time and the bytes allocated per iteration of a request-like
+ * loop, which updates one of 10 MDC keys and logs, through a FileAppender.
+ * The MDC part alone is measured by taking the snapshot a logging event would
+ * take instead of logging. Relies on the allocation counters of HotSpot JVMs.
+ */
+@Ignore
+public class MDCPerfTest {
+
+  static int KEY_COUNT = 10;
+  static int WARMUP_LENGTH = 200 * 1000;
+  static int RUN_LENGTH = 1000 * 1000;
+
+  LoggerContext lc = new LoggerContext();
+  Logger logger = lc.getLogger(this.getClass());
+  FileAppender<ILoggingEvent> fileAppender = new FileAppender<ILoggingEvent>();
+  String[] keys = new String[KEY_COUNT];
+  String[] values = new String[KEY_COUNT];
+
+  @After
+  public void tearDown() {
+    MDC.clear();
+    lc.stop();
+  }
+
+  void startFileAppender(String pattern) {
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(lc);
+    encoder.setPattern(pattern);
+    encoder.start();
+    fileAppender.setContext(lc);
+    fileAppender.setEncoder(encoder);
+    fileAppender.setAppend(false);
+    fileAppender.setFile(ClassicTestConstants.OUTPUT_DIR_PREFIX + "mdc-"
+        + RandomUtil.getPositiveInt() + ".log");
+    fileAppender.start();
+    logger.addAppender(fileAppender);
+    logger.setAdditive(false);
+  }
+
+  static long allocatedBytes() throws Exception {
+    ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    Method method = Class.forName("com.sun.management.ThreadMXBean")
+        .getMethod("getThreadAllocatedBytes", long.class);
+    return (Long) method.invoke(threadMXBean, Thread.currentThread().getId());
+  }
+
+  void loop(int len) {
+    for (int i = 0; i < len; i++) {
+      int k = i % KEY_COUNT;
+      MDC.put(keys[k], values[(i / KEY_COUNT) % KEY_COUNT]);
+      logger.info("request step");
+    }
+  }
+
+  int snapshotLoop(int len) {
+    LogbackMDCAdapter mdcAdapter = (LogbackMDCAdapter) MDC.getMDCAdapter();
+    int total = 0;
+    for (int i = 0; i < len; i++) {
+      int k = i % KEY_COUNT;
+      MDC.put(keys[k], values[(i / KEY_COUNT) % KEY_COUNT]);
+      total += mdcAdapter.getPropertyMap().size();
+    }
+    return total;
+  }
+
+  void fillMDC() {
+    for (int i = 0; i < KEY_COUNT; i++) {
+      keys[i] = "k" + i;
+      values[i] = "value" + i;
+      MDC.put(keys[i], values[i]);
+    }
+  }
+
+  void printPerIteration(String label, long start, long end, long startBytes, long endBytes) {
+    System.out.println(label + " ns/iteration=" + (double) (end - start) / RUN_LENGTH
+        + " bytes/iteration=" + (double) (endBytes - startBytes) / RUN_LENGTH);
+  }
+
+  @Test
+  public void interleavedPutAndLog() throws Exception {
+    startFileAppender("%-5level %X{k0} - %msg%n");
+    fillMDC();
+    loop(WARMUP_LENGTH);
+    long startBytes = allocatedBytes();
+    long start = System.nanoTime();
+    loop(RUN_LENGTH);
+    long end = System.nanoTime();
+    printPerIteration("interleavedPutAndLog", start, end, startBytes, allocatedBytes());
+  }
+
+  @Test
+  public void interleavedPutAndSnapshot() throws Exception {
+    fillMDC();
+    snapshotLoop(WARMUP_LENGTH);
+    long startBytes = allocatedBytes();
+    long start = System.nanoTime();
+    snapshotLoop(RUN_LENGTH);
+    long end = System.nanoTime();
+    printPerIteration("interleavedPutAndSnapshot", start, end, startBytes, allocatedBytes());
+  }
+}
@@ -22,7 +22,8 @@ import org.junit.runners.Suite.SuiteClasses;
         ScenarioBasedLoggerContextTest.class, PatternLayoutTest.class,
         LoggerTest.class, LoggerSerializationTest.class,
         LoggerMessageFormattingTest.class, MDCTest.class,
-        TurboFilteringInLoggerTest.class,
-        AsyncAppenderTest.class})
+        TurboFilteringInLoggerTest.class, CompiledTurboFilterChainTest.class,
+        AsyncAppenderTest.class,
+        PartitionedAsyncAppenderTest.class})
 public class PackageTest {
 }
\ No newline at end of file
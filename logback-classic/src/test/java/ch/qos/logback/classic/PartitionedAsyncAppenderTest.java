@@ -0,0 +1,105 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.status.StatusChecker;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class PartitionedAsyncAppenderTest {
+
+  LoggerContext context = new LoggerContext();
+  StatusChecker statusChecker = new StatusChecker(context);
+  PartitionedAsyncAppender partitionedAppender = new PartitionedAsyncAppender();
+
+  @Before
+  public void setUp() {
+    partitionedAppender.setContext(context);
+  }
+
+  ListAppender<ILoggingEvent> buildListAppender(String name) {
+    ListAppender<ILoggingEvent> la = new ListAppender<ILoggingEvent>();
+    la.setContext(context);
+    la.setName(name);
+    la.start();
+    return la;
+  }
+
+  LoggingEvent buildEvent(String loggerName, int i) {
+    Logger logger = context.getLogger(loggerName);
+    return new LoggingEvent(getClass().getName(), logger, Level.WARN, "hello " + i, null, null);
+  }
+
+  @Test
+  public void eventsOfTheSameLoggerStayInOrder() {
+    int loopLen = 50;
+    ListAppender<ILoggingEvent> la = buildListAppender("list");
+    partitionedAppender.addAppender(la);
+    partitionedAppender.setPartitionKey(PartitionKey.LOGGER);
+    partitionedAppender.start();
+    for (int i = 0; i < loopLen; i++) {
+      partitionedAppender.doAppend(buildEvent("a", i));
+      partitionedAppender.doAppend(buildEvent("b", i));
+    }
+    partitionedAppender.stop();
+
+    assertEquals(2 * loopLen, la.list.size());
+    int a = 0;
+    int b = 0;
+    for (ILoggingEvent e : la.list) {
+      if (e.getLoggerName().equals("a")) {
+        assertEquals("hello " + a++, e.getMessage());
+      } else {
+        assertEquals("hello " + b++, e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void partitionByMdcValue() {
+    String key = "tenant";
+    partitionedAppender.addAppender(buildListAppender("list"));
+    partitionedAppender.setPartitionKey(PartitionKey.MDC);
+    partitionedAppender.setMdcKey(key);
+    partitionedAppender.start();
+
+    MDC.put(key, "x");
+    LoggingEvent x = buildEvent("a", 0);
+    x.prepareForDeferredProcessing();
+    MDC.put(key, "y");
+    LoggingEvent y = buildEvent("a", 0);
+    y.prepareForDeferredProcessing();
+    MDC.remove(key);
+
+    assertEquals("x", partitionedAppender.getPartitionKey(x));
+    assertEquals("y", partitionedAppender.getPartitionKey(y));
+    partitionedAppender.stop();
+  }
+
+  @Test
+  public void partitionByMdcWithoutMdcKeyShouldResultInNonStartedAppender() {
+    partitionedAppender.addAppender(buildListAppender("list"));
+    partitionedAppender.setPartitionKey(PartitionKey.MDC);
+    partitionedAppender.start();
+    assertFalse(partitionedAppender.isStarted());
+    statusChecker.assertContainsMatch("The mdcKey property must be set");
+  }
+}
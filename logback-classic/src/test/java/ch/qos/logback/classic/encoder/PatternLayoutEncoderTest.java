@@ -18,6 +18,9 @@ import static org.junit.Assert.*;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import ch.qos.logback.classic.PatternLayout;
 import org.junit.Before;
@@ -28,6 +31,8 @@ import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.pattern.PatternLayoutBase;
+import ch.qos.logback.core.pattern.PatternLayoutEncoderBase;
 
 public class PatternLayoutEncoderTest {
 
@@ -74,4 +79,116 @@ public class PatternLayoutEncoderTest {
     assertEquals(msg, new String(baos.toByteArray(), utf8Charset.name()));
   }
 
+  @Test
+  public void directEncodingMatchesLayoutOutput() throws IOException {
+    String[] charsetNames = {"UTF-8", "UTF-16", "ISO-8859-1"};
+    String msg = "x \u03b1\u03b2 \u65e5\u672c \ud83d\ude00";
+    for (String name : charsetNames) {
+      PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+      encoder.setContext(context);
+      encoder.setPattern("%d %-5level [%thread] %logger{36} - %msg%n");
+      encoder.setCharset(Charset.forName(name));
+      encoder.start();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      encoder.init(out);
+
+      ILoggingEvent event = makeLoggingEvent(msg);
+      // compare bytes, UTF-16 writes a byte order mark for each event
+      byte[] expected = encoder.getLayout().doLayout(event).getBytes(name);
+      encoder.doEncode(event);
+      assertArrayEquals(name, expected, out.toByteArray());
+    }
+  }
+
+  @Test
+  public void encodeTo() throws IOException {
+    ple.setPattern("%level %m%n");
+    init(baos);
+    ByteArrayOutputStream other = new ByteArrayOutputStream();
+    ple.encodeTo(makeLoggingEvent("hello"), other);
+    assertEquals(0, baos.size());
+    assertEquals("DEBUG hello" + System.getProperty("line.separator"), other.toString());
+  }
+
+  @Test
+  public void doLayoutOverrideIsHonoured() throws IOException {
+    MaskingPatternLayoutEncoder encoder = new MaskingPatternLayoutEncoder();
+    encoder.setContext(context);
+    encoder.setPattern("%m,");
+    encoder.start();
+    encoder.init(baos);
+    encoder.doEncode(makeLoggingEvent("pin 1234"));
+    List<ILoggingEvent> eventList = new ArrayList<ILoggingEvent>();
+    eventList.add(makeLoggingEvent("card 42"));
+    encoder.doEncodeBatch(eventList);
+    ByteArrayOutputStream other = new ByteArrayOutputStream();
+    encoder.encodeTo(makeLoggingEvent("code 7"), other);
+    assertEquals("pin ****,card **,", baos.toString());
+    assertEquals("code *,", other.toString());
+  }
+
+  @Test
+  public void doLayoutOfDirectPatternLayoutBaseSubclassIsHonoured() throws IOException {
+    UpperCasePatternLayoutEncoder encoder = new UpperCasePatternLayoutEncoder();
+    encoder.setContext(context);
+    encoder.setPattern("%m,");
+    encoder.start();
+    encoder.init(baos);
+    encoder.doEncode(makeLoggingEvent("hello"));
+    assertEquals("HELLO,", baos.toString());
+  }
+
+  @Test
+  public void batch() throws IOException {
+    ple.setPattern("%m,");
+    init(baos);
+    List<ILoggingEvent> eventList = new ArrayList<ILoggingEvent>();
+    for (int i = 0; i < 3; i++) {
+      eventList.add(makeLoggingEvent("m" + i));
+    }
+    ple.doEncodeBatch(eventList);
+    assertEquals("m0,m1,m2,", baos.toString());
+  }
+
+  static class MaskingPatternLayout extends PatternLayout {
+    @Override
+    public String doLayout(ILoggingEvent event) {
+      return super.doLayout(event).replaceAll("[0-9]", "*");
+    }
+  }
+
+  static class UpperCasePatternLayout extends PatternLayoutBase<ILoggingEvent> {
+    @Override
+    public Map<String, String> getDefaultConverterMap() {
+      return PatternLayout.defaultConverterMap;
+    }
+
+    public String doLayout(ILoggingEvent event) {
+      return writeLoopOnConverters(event).toUpperCase();
+    }
+  }
+
+  static class MaskingPatternLayoutEncoder extends PatternLayoutEncoderBase<ILoggingEvent> {
+    @Override
+    public void start() {
+      PatternLayout patternLayout = new MaskingPatternLayout();
+      patternLayout.setContext(context);
+      patternLayout.setPattern(getPattern());
+      patternLayout.start();
+      this.layout = patternLayout;
+      super.start();
+    }
+  }
+
+  static class UpperCasePatternLayoutEncoder extends PatternLayoutEncoderBase<ILoggingEvent> {
+    @Override
+    public void start() {
+      UpperCasePatternLayout patternLayout = new UpperCasePatternLayout();
+      patternLayout.setContext(context);
+      patternLayout.setPattern(getPattern());
+      patternLayout.start();
+      this.layout = patternLayout;
+      super.start();
+    }
+  }
 }
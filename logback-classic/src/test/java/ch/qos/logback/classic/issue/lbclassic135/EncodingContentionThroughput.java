@@ -0,0 +1,81 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.issue.lbclassic135;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.contention.ThreadedThroughputCalculator;
+
+/**
+ * Measures the throughput of 16 threads logging through a single
+ * OutputStreamAppender, with events encoded under the appender's lock and
+ * outside of it. Output is discarded so that encoding dominates.
+ */
+public class EncodingContentionThroughput {
+
+  static int THREAD_COUNT = 16;
+  static long OVERALL_DURATION_IN_MILLIS = 5000;
+
+  public static void main(String args[]) throws InterruptedException {
+    ThreadedThroughputCalculator tp = new ThreadedThroughputCalculator(OVERALL_DURATION_IN_MILLIS);
+    tp.printEnvironmentInfo("EncodingContentionThroughput");
+
+    for (boolean encodeOutsideLock : new boolean[] { false, true, false, true }) {
+      LoggerContext lc = new LoggerContext();
+      Logger logger = buildLoggerContext(lc, encodeOutsideLock);
+      tp.execute(buildArray(logger));
+      tp.printThroughput("encodeOutsideLock=" + encodeOutsideLock + ": ");
+      lc.stop();
+    }
+  }
+
+  static Logger buildLoggerContext(LoggerContext lc, boolean encodeOutsideLock) {
+    Logger root = lc.getLogger(Logger.ROOT_LOGGER_NAME);
+
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(lc);
+    encoder.setPattern("%d %-5level [%thread] %logger{36} - %msg%n");
+    encoder.start();
+    OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<ILoggingEvent>();
+    appender.setContext(lc);
+    appender.setEncoder(encoder);
+    appender.setEncodeOutsideLock(encodeOutsideLock);
+    appender.setOutputStream(new NullOutputStream());
+    appender.start();
+    root.addAppender(appender);
+    return lc.getLogger(EncodingContentionThroughput.class);
+  }
+
+  static LoggingRunnable[] buildArray(Logger logger) {
+    LoggingRunnable[] array = new LoggingRunnable[THREAD_COUNT];
+    for (int i = 0; i < THREAD_COUNT; i++) {
+      array[i] = new LoggingRunnable(logger);
+    }
+    return array;
+  }
+
+  static class NullOutputStream extends OutputStream {
+    public void write(int b) throws IOException {
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.multiJVM;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+/**
+ * Measures the throughput of several JVMs writing to the same file in prudent
+ * mode, first with a file lock per event and then with a file lock per group
+ * commit. The resulting files are verified with {@link Checker}.
+ * 
+ * <p>Without arguments, this class spawns the writer JVMs itself, using the
+ * current classpath.
+ */
+public class PrudentModePerf {
+
+  static final String CHILD = "child";
+
+  static int JVM_COUNT = 4;
+  static int LEN = 20 * 1000;
+  static int DIFF = RandomUtil.getPositiveInt() % 1000;
+
+  static void usage(String msg) {
+    System.err.println(msg);
+    System.err.println("Usage: java " + PrudentModePerf.class.getName()
+        + " [jvmCount runLength]\n"
+        + "   jvmCount (integer) the number of writer JVMs\n"
+        + "   runLength (integer) the number of logs to generate per JVM");
+    System.exit(1);
+  }
+
+  public static void main(String[] argv) throws Exception {
+    if (argv.length > 0 && CHILD.equals(argv[0])) {
+      child(argv[1], Integer.parseInt(argv[2]), argv[3], Boolean.parseBoolean(argv[4]));
+      return;
+    }
+    if (argv.length == 2) {
+      JVM_COUNT = Integer.parseInt(argv[0]);
+      LEN = Integer.parseInt(argv[1]);
+    } else if (argv.length != 0) {
+      usage("Wrong number of arguments.");
+    }
+
+    perfCase(false);
+    perfCase(true);
+  }
+
+  static void perfCase(boolean groupCommit) throws Exception {
+    String filename = "target/test-output/prudent-" + DIFF + "-" + groupCommit + ".log";
+    new File(filename).delete();
+
+    List<Process> processList = new ArrayList<Process>();
+    long start = System.nanoTime();
+    for (int i = 0; i < JVM_COUNT; i++) {
+      ProcessBuilder pb = new ProcessBuilder(javaCommand(), "-cp",
+          System.getProperty("java.class.path"), PrudentModePerf.class.getName(),
+          CHILD, "S" + i, Integer.toString(LEN), filename, Boolean.toString(groupCommit));
+      pb.redirectErrorStream(true);
+      processList.add(pb.start());
+    }
+    for (Process p : processList) {
+      // the children are silent, nothing fills the pipe
+      p.waitFor();
+    }
+    double seconds = (System.nanoTime() - start) / 1.0e9;
+
+    System.out.println("groupCommit=" + groupCommit + ", " + JVM_COUNT + " JVMs: "
+        + (long) (JVM_COUNT * LEN / seconds) + " events/s (including JVM startup)");
+    Checker.LEN = LEN;
+    Checker.FILENAME = filename;
+    for (int i = 0; i < JVM_COUNT; i++) {
+      Checker.check("S" + i, filename, true);
+    }
+    System.out.println("------------------------------------------------");
+  }
+
+  static String javaCommand() {
+    return System.getProperty("java.home") + File.separator + "bin"
+        + File.separator + "java";
+  }
+
+  static void child(String stamp, int len, String filename, boolean groupCommit) {
+    LoggerContext loggerContext = new LoggerContext();
+
+    PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setPattern(stamp + " %5p - %m%n");
+    encoder.setContext(loggerContext);
+    encoder.start();
+
+    FileAppender<ILoggingEvent> fa = new FileAppender<ILoggingEvent>();
+    fa.setEncoder(encoder);
+    fa.setFile(filename);
+    fa.setPrudent(true);
+    fa.setGroupCommit(groupCommit);
+    fa.setContext(loggerContext);
+    fa.start();
+
+    ch.qos.logback.classic.Logger root = loggerContext
+        .getLogger(Logger.ROOT_LOGGER_NAME);
+    root.addAppender(fa);
+
+    Logger logger = loggerContext.getLogger(PrudentModePerf.class);
+    for (int i = 0; i < len; i++) {
+      logger.debug(LoggingThread.msgLong + " " + i);
+    }
+    loggerContext.stop();
+  }
+}
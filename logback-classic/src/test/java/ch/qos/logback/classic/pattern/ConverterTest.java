@@ -169,6 +169,25 @@ public class ConverterTest {
     }
   }
 
+  @Test
+  public void abbreviatedLoggerNamesAreCached() {
+    LoggerConverter converter = new LoggerConverter();
+    this.optionList.add("20");
+    converter.setOptionList(this.optionList);
+    converter.start();
+    String first = converter.convert(le);
+    assertEquals("c.q.l.c.p.ConverterTest", first);
+    assertTrue(first == converter.convert(le));
+
+    Abbreviator abbreviator = new TargetLengthBasedClassNameAbbreviator(20);
+    for (int i = 0; i < 2 * NamedConverter.MAX_CACHE_SIZE; i++) {
+      String name = "org.example.component.Name" + i;
+      le.setLoggerName(name);
+      assertEquals(abbreviator.abbreviate(name), converter.convert(le));
+    }
+    assertEquals(NamedConverter.MAX_CACHE_SIZE, converter.abbreviationCache.size());
+  }
+
   @Test
   public void testVeryLongLoggerName() {
     ClassicConverter converter = new LoggerConverter();
@@ -0,0 +1,170 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.read.ListAppender;
+
+public class CallerDataExtractionTest {
+
+  LoggerContext loggerContext = new LoggerContext();
+  Logger logger = loggerContext.getLogger(CallerDataExtractionTest.class);
+  ListAppender<ILoggingEvent> listAppender = new ListAppender<ILoggingEvent>();
+
+  @Before
+  public void setUp() {
+    listAppender.setContext(loggerContext);
+    listAppender.start();
+    logger.addAppender(listAppender);
+  }
+
+  /**
+   * Returns the method name of the caller data of <code>event</code>, read on
+   * another thread.
+   */
+  String callerMethodSeenByAnotherThread(final ILoggingEvent event) throws InterruptedException {
+    final String[] result = new String[1];
+    Thread thread = new Thread(new Runnable() {
+      public void run() {
+        StackTraceElement[] cda = event.getCallerData();
+        result[0] = cda.length == 0 ? null : cda[0].getMethodName();
+      }
+    });
+    thread.start();
+    thread.join();
+    return result[0];
+  }
+
+  @Test
+  public void onDemandByDefault() throws InterruptedException {
+    assertEquals(CallerDataExtraction.ON_DEMAND, loggerContext.getCallerDataExtraction());
+    logger.info("hello");
+    LoggingEvent event = (LoggingEvent) listAppender.list.get(0);
+    assertFalse(event.hasCallerData());
+    assertFalse(event.isCallerDataDeferred());
+    // the logging call is not on the stack of another thread
+    assertFalse("onDemandByDefault".equals(callerMethodSeenByAnotherThread(event)));
+  }
+
+  @Test
+  public void atLogTime() throws InterruptedException {
+    loggerContext.setCallerDataExtraction(CallerDataExtraction.AT_LOG_TIME);
+    logger.info("hello");
+    LoggingEvent event = (LoggingEvent) listAppender.list.get(0);
+    assertTrue(event.hasCallerData());
+    assertEquals("atLogTime", callerMethodSeenByAnotherThread(event));
+  }
+
+  @Test
+  public void deferred() throws InterruptedException {
+    loggerContext.setCallerDataExtraction(CallerDataExtraction.DEFERRED);
+    logger.info("hello");
+    LoggingEvent event = (LoggingEvent) listAppender.list.get(0);
+    assertFalse(event.hasCallerData());
+    assertTrue(event.isCallerDataDeferred());
+    assertEquals("deferred", callerMethodSeenByAnotherThread(event));
+  }
+
+  @Test
+  public void asyncAppenderLeavesDeferredCallerDataToItsWorker() throws InterruptedException {
+    loggerContext.setCallerDataExtraction(CallerDataExtraction.DEFERRED);
+    logger.detachAppender(listAppender);
+    AsyncAppender asyncAppender = new AsyncAppender();
+    asyncAppender.setContext(loggerContext);
+    asyncAppender.setIncludeCallerData(true);
+    asyncAppender.addAppender(listAppender);
+    asyncAppender.start();
+    logger.addAppender(asyncAppender);
+
+    logger.info("hello");
+    asyncAppender.stop();
+
+    ILoggingEvent event = listAppender.list.get(0);
+    assertFalse(event.hasCallerData());
+    assertEquals("asyncAppenderLeavesDeferredCallerDataToItsWorker", callerMethodSeenByAnotherThread(event));
+  }
+
+  void logHello() {
+    logger.info("hello {}", 1);
+  }
+
+  void logHelloAgain() {
+    logger.info("hello {}", 2);
+  }
+
+  @Test
+  public void callerDataIsCachedByLoggerAndTemplate() {
+    loggerContext.setCallerDataCacheSize(10);
+    loggerContext.setCallerDataExtraction(CallerDataExtraction.DEFERRED);
+    CallerDataCache cache = loggerContext.getCallerDataCache();
+
+    logHello();
+    ILoggingEvent first = listAppender.list.get(0);
+    assertEquals("logHello", first.getCallerData()[0].getMethodName());
+    assertEquals(1, cache.size());
+
+    logHello();
+    LoggingEvent second = (LoggingEvent) listAppender.list.get(1);
+    // found in the cache when the event was built
+    assertTrue(second.hasCallerData());
+    assertFalse(second.isCallerDataDeferred());
+    assertSame(first.getCallerData(), second.getCallerData());
+
+    // the same template logged elsewhere reports the first location
+    logHelloAgain();
+    assertEquals("logHello", listAppender.list.get(2).getCallerData()[0].getMethodName());
+
+    logger.info("bye");
+    listAppender.list.get(3).getCallerData();
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void callerDataCacheIsBounded() {
+    CallerDataCache cache = new CallerDataCache(2);
+    StackTraceElement[] cda = new StackTraceElement[] { CallerData.naInstance() };
+    cache.put("a", "x", cda);
+    cache.put("a", "y", cda);
+    cache.put("a", "z", cda);
+    cache.put("a", null, cda);
+    assertEquals(2, cache.size());
+    assertSame(cda, cache.get("a", "x"));
+    assertNull(cache.get("b", "x"));
+    assertNull(cache.get("a", "z"));
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertNull(cache.get("a", "x"));
+  }
+
+  @Test
+  public void cacheIsDisabledByDefault() {
+    assertNull(loggerContext.getCallerDataCache());
+    loggerContext.setCallerDataCacheSize(5);
+    assertEquals(5, loggerContext.getCallerDataCacheSize());
+    loggerContext.setCallerDataCacheSize(0);
+    assertNull(loggerContext.getCallerDataCache());
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.Test;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.read.ListAppender;
+
+public class ClassPackagingDataCacheTest {
+
+  ClassPackagingData cpd = new ClassPackagingData("a.jar", "1.0");
+
+  @Test
+  public void hitsAndMisses() {
+    ClassPackagingDataCache cache = new ClassPackagingDataCache(10);
+    ClassLoader classLoader = getClass().getClassLoader();
+    assertNull(cache.get(classLoader, "x.Y", true));
+    cache.put(classLoader, "x.Y", cpd);
+    assertSame(cpd, cache.get(classLoader, "x.Y", true));
+    assertNull(cache.get(null, "x.Y", true));
+    assertEquals(1, cache.getHitCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void classLoadersHaveSeparateEntries() {
+    ClassPackagingDataCache cache = new ClassPackagingDataCache(10);
+    ClassLoader other = new URLClassLoader(new URL[0], getClass().getClassLoader());
+    ClassPackagingData otherCpd = new ClassPackagingData("b.jar", "2.0");
+    cache.put(getClass().getClassLoader(), "x.Y", cpd);
+    cache.put(other, "x.Y", otherCpd);
+    cache.put(null, "x.Y", cpd);
+    assertSame(cpd, cache.get(getClass().getClassLoader(), "x.Y", true));
+    assertSame(otherCpd, cache.get(other, "x.Y", true));
+    assertSame(cpd, cache.get(null, "x.Y", true));
+    assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void exactAndInexactEntriesAreKeptApart() {
+    ClassPackagingDataCache cache = new ClassPackagingDataCache(10);
+    ClassLoader classLoader = getClass().getClassLoader();
+    ClassPackagingData inexactCpd = new ClassPackagingData("b.jar", "2.0", false);
+    cache.put(classLoader, "x.Y", inexactCpd);
+    assertNull(cache.get(classLoader, "x.Y", true));
+    cache.put(classLoader, "x.Y", cpd);
+    assertSame(cpd, cache.get(classLoader, "x.Y", true));
+    assertSame(inexactCpd, cache.get(classLoader, "x.Y", false));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void bounded() {
+    ClassPackagingDataCache cache = new ClassPackagingDataCache(2);
+    cache.put(null, "a.A", cpd);
+    cache.put(null, "a.B", cpd);
+    cache.put(null, "a.C", cpd);
+    assertEquals(2, cache.size());
+    assertNull(cache.get(null, "a.C", true));
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    cache.put(null, "a.C", cpd);
+    assertSame(cpd, cache.get(null, "a.C", true));
+  }
+
+  @Test
+  public void entriesOfCollectedClassLoadersAreReleased() throws InterruptedException {
+    ClassPackagingDataCache cache = new ClassPackagingDataCache(10);
+    cache.put(new URLClassLoader(new URL[0]), "x.Y", cpd);
+    assertEquals(1, cache.size());
+    for (int i = 0; i < 50 && cache.size() > 0; i++) {
+      System.gc();
+      Thread.sleep(10);
+      // collected class loaders are expunged on updates
+      cache.put(null, "x.Y", cpd);
+    }
+    assertEquals(1, cache.size());
+    assertSame(cpd, cache.get(null, "x.Y", true));
+  }
+
+  @Test
+  public void sharedAcrossExceptionsOfAContext() {
+    LoggerContext loggerContext = new LoggerContext();
+    Logger logger = loggerContext.getLogger(ClassPackagingDataCacheTest.class);
+    ListAppender<ILoggingEvent> listAppender = new ListAppender<ILoggingEvent>();
+    listAppender.setContext(loggerContext);
+    listAppender.start();
+    logger.addAppender(listAppender);
+
+    ClassPackagingDataCache cache = loggerContext.getClassPackagingDataCache();
+    assertNotNull(cache);
+    logger.error("first", new Exception("x"));
+    long missCount = cache.getMissCount();
+    assertTrue(cache.size() > 0);
+
+    logger.error("second", new Exception("y"));
+    assertEquals(missCount, cache.getMissCount());
+    assertTrue(cache.getHitCount() > 0);
+    StackTraceElementProxy step = listAppender.list.get(1).getThrowableProxy().getStackTraceElementProxyArray()[0];
+    assertNotNull(step.getClassPackagingData());
+
+    loggerContext.setPackagingDataCacheSize(0);
+    assertNull(loggerContext.getClassPackagingDataCache());
+  }
+}
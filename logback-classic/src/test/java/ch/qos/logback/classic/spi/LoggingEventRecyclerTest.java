@@ -0,0 +1,139 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.spi;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.read.ListAppender;
+
+public class LoggingEventRecyclerTest {
+
+  LoggerContext loggerContext = new LoggerContext();
+  Logger logger = loggerContext.getLogger(LoggingEventRecyclerTest.class);
+  RecordingAppender recordingAppender = new RecordingAppender();
+
+  /**
+   * Records the events it sees and their messages, without retaining them.
+   */
+  class RecordingAppender extends AppenderBase<ILoggingEvent> {
+    List<ILoggingEvent> events = new ArrayList<ILoggingEvent>();
+    List<String> messages = new ArrayList<String>();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+      events.add(event);
+      messages.add(event.getFormattedMessage());
+    }
+  }
+
+  @Before
+  public void setUp() {
+    loggerContext.setEventRecycling(true);
+    recordingAppender.setContext(loggerContext);
+    recordingAppender.start();
+    logger.setAdditive(false);
+    logger.addAppender(recordingAppender);
+  }
+
+  @Test
+  public void eventsAreReused() {
+    logger.info("x={}", 1);
+    logger.info("x={} y={}", 2, 3);
+    logger.info("done");
+
+    assertEquals(3, recordingAppender.events.size());
+    assertSame(recordingAppender.events.get(0), recordingAppender.events.get(1));
+    assertSame(recordingAppender.events.get(0), recordingAppender.events.get(2));
+    assertEquals("[x=1, x=2 y=3, done]", recordingAppender.messages.toString());
+    // cleared once appended
+    assertNull(recordingAppender.events.get(0).getMessage());
+    assertNull(recordingAppender.events.get(0).getArgumentArray());
+  }
+
+  @Test
+  public void retainedEventsAreNotReused() {
+    ListAppender<ILoggingEvent> listAppender = new ListAppender<ILoggingEvent>();
+    listAppender.setContext(loggerContext);
+    listAppender.start();
+    logger.addAppender(listAppender);
+
+    logger.info("x={}", 1);
+    logger.info("x={}", 2);
+    logger.info("x={} y={}", 3, 4);
+
+    assertEquals(3, listAppender.list.size());
+    assertNotSame(listAppender.list.get(0), listAppender.list.get(1));
+    assertEquals("x=1", listAppender.list.get(0).getFormattedMessage());
+    assertEquals("x=2", listAppender.list.get(1).getFormattedMessage());
+    assertEquals("x={} y={}", listAppender.list.get(2).getMessage());
+    assertArrayEquals(new Object[] { 3, 4 }, listAppender.list.get(2).getArgumentArray());
+  }
+
+  @Test
+  public void loggingFromAnAppenderUsesANewEvent() {
+    final Logger other = loggerContext.getLogger("other");
+    final List<String> outerMessages = new ArrayList<String>();
+    AppenderBase<ILoggingEvent> loggingAppender = new AppenderBase<ILoggingEvent>() {
+      @Override
+      protected void append(ILoggingEvent event) {
+        other.info("nested {}", event.getArgumentArray()[0]);
+        outerMessages.add(event.getFormattedMessage());
+      }
+    };
+    loggingAppender.setContext(loggerContext);
+    loggingAppender.start();
+    logger.addAppender(loggingAppender);
+    other.setAdditive(false);
+    other.addAppender(recordingAppender);
+
+    logger.info("outer {}", 1);
+
+    assertEquals("[outer 1]", outerMessages.toString());
+    assertEquals("[outer 1, nested 1]", recordingAppender.messages.toString());
+    assertNotSame(recordingAppender.events.get(0), recordingAppender.events.get(1));
+  }
+
+  @Test
+  public void argumentArrayOfTheCallerIsLeftAlone() {
+    Object[] params = new Object[] { "a", "b" };
+    logger.info("{} {}", params);
+    logger.info("{} {}", "c", "d");
+
+    assertEquals("[a b, c d]", recordingAppender.messages.toString());
+    assertArrayEquals(new Object[] { "a", "b" }, params);
+  }
+
+  @Test
+  public void disabledRecycling() {
+    loggerContext.setEventRecycling(false);
+    logger.info("x={}", 1);
+    logger.info("x={}", 2);
+
+    assertNotSame(recordingAppender.events.get(0), recordingAppender.events.get(1));
+    assertEquals("x=1", recordingAppender.events.get(0).getFormattedMessage());
+  }
+}
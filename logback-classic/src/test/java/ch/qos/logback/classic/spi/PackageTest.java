@@ -21,6 +21,7 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses( { ContextListenerTest.class, CallerDataTest.class,
     LoggerComparatorTest.class, LoggingEventTest.class, LoggingEventSerializationTest.class,
     LoggingEventSerializationPerfTest.class, ThrowableProxyTest.class,
-    PackagingDataCalculatorTest.class })
+    PackagingDataCalculatorTest.class, LoggingEventRecyclerTest.class,
+    CallerDataExtractionTest.class, ClassPackagingDataCacheTest.class })
 public class PackageTest  {
 }
\ No newline at end of file
@@ -83,6 +83,34 @@ public class LogbackMDCAdapterTest {
     assertEquals("v0", map0.get("k0"));
   }
 
+  @Test
+  public void propertyMapIsASnapshot() {
+    mdcAdapter.put("k0", "v0");
+    mdcAdapter.put("k1", "v1");
+    Map<String, String> map0 = mdcAdapter.getPropertyMap();
+    mdcAdapter.put("k0", "v2");
+    mdcAdapter.remove("k1");
+    assertEquals("v0", map0.get("k0"));
+    assertEquals("v1", map0.get("k1"));
+    assertEquals("v2", mdcAdapter.get("k0"));
+    assertNull(mdcAdapter.get("k1"));
+    // reading does not change the map
+    assertTrue(mdcAdapter.getPropertyMap() == mdcAdapter.getPropertyMap());
+  }
+
+  @Test
+  public void copyOfContextMapIsMutable() {
+    mdcAdapter.put("k0", "v0");
+    Map<String, String> copy = mdcAdapter.getCopyOfContextMap();
+    copy.put("k1", "v1");
+    assertNull(mdcAdapter.get("k1"));
+
+    mdcAdapter.setContextMap(copy);
+    assertEquals("v1", mdcAdapter.get("k1"));
+    copy.put("k2", "v2");
+    assertNull(mdcAdapter.get("k2"));
+  }
+
   // =================================================
 
   /**
@@ -0,0 +1,122 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.classic.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PersistentMDCMapTest {
+
+  @Test
+  public void withAndWithout() {
+    PersistentMDCMap map0 = PersistentMDCMap.EMPTY.with("a", "1");
+    PersistentMDCMap map1 = map0.with("b", "2");
+    PersistentMDCMap map2 = map1.with("a", "3").without("b");
+
+    assertEquals(1, map0.size());
+    assertEquals("1", map0.get("a"));
+    assertNull(map0.get("b"));
+    assertEquals(2, map1.size());
+    assertEquals("2", map1.get("b"));
+    assertEquals(1, map2.size());
+    assertEquals("3", map2.get("a"));
+    assertFalse(map2.containsKey("b"));
+  }
+
+  @Test
+  public void unchangedMapsAreReturnedAsIs() {
+    PersistentMDCMap map = PersistentMDCMap.EMPTY.with("a", "1").with("b", null);
+    assertSame(map, map.with("a", "1"));
+    assertSame(map, map.with("b", null));
+    assertSame(map, map.without("c"));
+    assertSame(PersistentMDCMap.EMPTY, map.without("a").without("b"));
+  }
+
+  @Test
+  public void nullValues() {
+    PersistentMDCMap map = PersistentMDCMap.EMPTY.with("a", null);
+    assertTrue(map.containsKey("a"));
+    assertNull(map.get("a"));
+    assertEquals(1, map.size());
+    assertFalse(map.containsKey(null));
+  }
+
+  @Test
+  public void collidingKeys() {
+    // "Aa" and "BB" have the same hash code
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    PersistentMDCMap map = PersistentMDCMap.EMPTY.with("Aa", "1").with("BB", "2").with("C", "3");
+    assertEquals("1", map.get("Aa"));
+    assertEquals("2", map.get("BB"));
+    assertEquals(3, map.size());
+    PersistentMDCMap removed = map.without("Aa");
+    assertNull(removed.get("Aa"));
+    assertEquals("2", removed.get("BB"));
+    assertEquals(2, removed.size());
+    assertEquals(PersistentMDCMap.EMPTY, removed.without("BB").without("C"));
+  }
+
+  @Test
+  public void behavesAsHashMap() {
+    Random random = new Random(1234);
+    Map<String, String> witness = new HashMap<String, String>();
+    PersistentMDCMap map = PersistentMDCMap.EMPTY;
+    for (int i = 0; i < 20000; i++) {
+      String key = "k" + random.nextInt(500);
+      if (random.nextInt(3) == 0) {
+        witness.remove(key);
+        map = map.without(key);
+      } else {
+        String value = random.nextInt(10) == 0 ? null : "v" + i;
+        witness.put(key, value);
+        map = map.with(key, value);
+      }
+      assertEquals(witness.size(), map.size());
+    }
+    assertEquals(witness, map);
+    assertEquals(map, witness);
+    assertEquals(witness.hashCode(), map.hashCode());
+    assertEquals(witness, PersistentMDCMap.copyOf(witness));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void immutable() {
+    PersistentMDCMap.EMPTY.with("a", "1").put("b", "2");
+  }
+
+  @Test
+  public void serializedAsHashMap() throws Exception {
+    PersistentMDCMap map = PersistentMDCMap.EMPTY.with("a", "1").with("b", null);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(baos);
+    oos.writeObject(map);
+    oos.close();
+    Object result = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())).readObject();
+    assertEquals(HashMap.class, result.getClass());
+    assertEquals(map, result);
+  }
+}
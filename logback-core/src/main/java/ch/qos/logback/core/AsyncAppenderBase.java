@@ -15,10 +15,29 @@ package ch.qos.logback.core;
 
 import ch.qos.logback.core.spi.AppenderAttachable;
 import ch.qos.logback.core.spi.AppenderAttachableImpl;
-
+import ch.qos.logback.core.spi.Recyclable;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.OverflowPolicy;
+import ch.qos.logback.core.util.QueueType;
+import ch.qos.logback.core.util.RingBufferBlockingQueue;
+import ch.qos.logback.core.util.WaitStrategy;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This appender and derived classes, log events asynchronously.  In order to avoid loss of logging events, this
@@ -28,6 +47,20 @@ import java.util.concurrent.BlockingQueue;
  * This appender buffers events in a {@link BlockingQueue}. {@link Worker} thread created by this appender takes
  * events from the head of the queue, and dispatches them to the single appender attached to this appender.
  * <p/>
+ * <p>If <b>maxBatchSize</b> is larger than one, the worker drains up to that many events from the queue at a time
+ * and hands them over as a single batch. Attached appenders implementing {@link BatchAppender} process the batch
+ * as a whole, e.g. flushing once per batch. The worker may wait up to <b>maxLingerTime</b> milliseconds for a
+ * batch to fill up before dispatching it.</p>
+ * <p>By default, the queue is an {@link ArrayBlockingQueue}. Setting <b>queueType</b> to
+ * {@link QueueType#RING_BUFFER RING_BUFFER} selects a lock-free {@link RingBufferBlockingQueue} instead, in which
+ * case <b>waitStrategy</b> determines how the worker waits for events. Derived classes may plug in other queues by
+ * overriding {@link #createBlockingQueue(int)}.</p>
+ * <p>When the queue is full, <b>overflowPolicy</b> decides whether the calling thread blocks, blocks for at most
+ * <b>eventDelayLimit</b>, or whether the newest or oldest event is dropped. Setting <b>neverBlock</b> to true is a
+ * shorthand for {@link OverflowPolicy#DROP_NEWEST DROP_NEWEST}. Dropped events, including those discarded because of
+ * the <b>discardingThreshold</b>, are counted per {@link #getDropCounterKey(Object) key}. Every
+ * <b>dropSummaryPeriod</b>, the worker reports how many events were lost since the last report. If <b>jmx</b> is
+ * set, the counters are also exposed as an {@link AsyncAppenderView} MBean.</p>
  * <p>Please refer to the <a href="http://logback.qos.ch/manual/appenders.html#AsyncAppender">logback manual</a> for
  * further information about this appender.</p>
  *
@@ -36,7 +69,7 @@ import java.util.concurrent.BlockingQueue;
  * @author Torsten Juergeleit
  * @since 1.0.4
  */
-public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implements AppenderAttachable<E> {
+public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implements AppenderAttachable<E>, AsyncAppenderView {
 
   AppenderAttachableImpl<E> aai = new AppenderAttachableImpl<E>();
   BlockingQueue<E> blockingQueue;
@@ -61,7 +94,46 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
    */
   public static final int DEFAULT_MAX_FLUSH_TIME = 1000;
   int maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
-  
+
+  /**
+   * The default maximum number of events dispatched by the worker in one go. The
+   * default value of 1 disables batching.
+   */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 1;
+  int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+  /**
+   * The default time in milliseconds the worker waits for a batch to fill up. By
+   * default, whatever is available in the queue is dispatched without waiting.
+   */
+  public static final int DEFAULT_MAX_LINGER_TIME = 0;
+  int maxLingerTime = DEFAULT_MAX_LINGER_TIME;
+
+  QueueType queueType = QueueType.ARRAY_BLOCKING;
+  WaitStrategy waitStrategy = WaitStrategy.SPIN_THEN_PARK;
+
+  OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+  /**
+   * The default time an appending thread may block with the BLOCK_WITH_TIMEOUT
+   * overflow policy.
+   */
+  public static final int DEFAULT_EVENT_DELAY_LIMIT = 100;
+  Duration eventDelayLimit = new Duration(DEFAULT_EVENT_DELAY_LIMIT);
+
+  /**
+   * The default period between two reports of dropped events.
+   */
+  public static final long DEFAULT_DROP_SUMMARY_PERIOD = 60 * 1000;
+  Duration dropSummaryPeriod = new Duration(DEFAULT_DROP_SUMMARY_PERIOD);
+
+  static final String DEFAULT_DROP_COUNTER_KEY = "ALL";
+  final ConcurrentMap<String, AtomicLong> droppedEventCounts = new ConcurrentHashMap<String, AtomicLong>();
+  final AtomicLong droppedEventCount = new AtomicLong();
+
+  boolean jmx = false;
+  ObjectName objectName;
+
   /**
    * Is the eventObject passed as parameter discardable? The base class's implementation of this method always returns
    * 'false' but sub-classes may (and do) override this method.
@@ -86,6 +158,32 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
   protected void preprocess(E eventObject) {
   }
 
+  /**
+   * Returns the key under which a dropped event is counted. The base class
+   * counts all events under the same key but sub-classes may, for example,
+   * count events by level.
+   *
+   * @param eventObject the dropped event
+   * @return the key of the drop counter to increment
+   * @since 1.1.3
+   */
+  protected String getDropCounterKey(E eventObject) {
+    return DEFAULT_DROP_COUNTER_KEY;
+  }
+
+  /**
+   * Build an event reporting lost events, to be passed on to the attached
+   * appender. The base class returns null, in which case the report is added
+   * as a warning to the status manager instead.
+   *
+   * @param message a message describing how many events were dropped
+   * @return an event carrying the message, or null
+   * @since 1.1.3
+   */
+  protected E buildDropSummaryEvent(String message) {
+    return null;
+  }
+
 
   @Override
   public void start() {
@@ -97,18 +195,83 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
       addError("Invalid queue size [" + queueSize + "]");
       return;
     }
-    blockingQueue = new ArrayBlockingQueue<E>(queueSize);
-
+    if (maxBatchSize < 1) {
+      addError("Invalid maxBatchSize [" + maxBatchSize + "]");
+      return;
+    }
+    if (overflowPolicy == OverflowPolicy.DROP_OLDEST && queueType == QueueType.RING_BUFFER) {
+      addWarn("The DROP_OLDEST overflow policy is not supported by a ring buffer queue. Using DROP_NEWEST instead.");
+      overflowPolicy = OverflowPolicy.DROP_NEWEST;
+    }
     if (discardingThreshold == UNDEFINED)
       discardingThreshold = queueSize / 5;
     addInfo("Setting discardingThreshold to " + discardingThreshold);
-    worker.setDaemon(true);
-    worker.setName("AsyncAppender-Worker-" + getName());
+    createWorker();
     // make sure this instance is marked as "started" before staring the worker Thread
     super.start();
+    startWorker();
+    if (jmx) {
+      registerMBean();
+    }
+  }
+
+  /**
+   * Create the queue and the worker thread. Called by {@link #start()} before
+   * this appender is marked as started.
+   */
+  void createWorker() {
+    blockingQueue = createBlockingQueue(queueSize);
+    worker.setDaemon(true);
+    worker.setName("AsyncAppender-Worker-" + getName());
+  }
+
+  void startWorker() {
     worker.start();
   }
 
+  private void registerMBean() {
+    MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+    try {
+      objectName = new ObjectName("ch.qos.logback.core:Type=AsyncAppender,Name=" + getName());
+      if (mbs.isRegistered(objectName)) {
+        mbs.unregisterMBean(objectName);
+      }
+      mbs.registerMBean(new StandardMBean(this, AsyncAppenderView.class), objectName);
+    } catch (Exception e) {
+      addError("Failed to register mbean", e);
+      objectName = null;
+    }
+  }
+
+  private void unregisterMBean() {
+    try {
+      MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+      if (mbs.isRegistered(objectName)) {
+        mbs.unregisterMBean(objectName);
+      }
+    } catch (Exception e) {
+      addError("Failed to unregister mbean", e);
+    }
+    objectName = null;
+  }
+
+  /**
+   * Create the queue holding events until they are dispatched by the worker.
+   * The queue must support concurrent producers, but is consumed by the
+   * worker thread only.
+   *
+   * @param capacity the capacity of the queue, i.e. the queueSize property
+   * @return a new, empty queue
+   * @since 1.1.3
+   */
+  protected BlockingQueue<E> createBlockingQueue(int capacity) {
+    if (queueType == QueueType.RING_BUFFER) {
+      addInfo("Using a ring buffer queue with " + waitStrategy + " wait strategy");
+      return new RingBufferBlockingQueue<E>(capacity, waitStrategy);
+    }
+    return new ArrayBlockingQueue<E>(capacity);
+  }
+
   @Override
   public void stop() {
     if (!isStarted())
@@ -117,7 +280,19 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
     // mark this appender as stopped so that Worker can also processPriorToRemoval if it is invoking aii.appendLoopOnAppenders
     // and sub-appenders consume the interruption
     super.stop();
+    if (objectName != null) {
+      unregisterMBean();
+    }
 
+    stopWorker();
+  }
+
+  /**
+   * Interrupt the worker thread and wait at most maxFlushTime milliseconds for
+   * it to flush the queue. Called by {@link #stop()} after this appender is
+   * marked as stopped.
+   */
+  void stopWorker() {
     // interrupt the worker thread so that it can terminate. Note that the interruption can be consumed
     // by sub-appenders
     worker.interrupt();
@@ -141,8 +316,13 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
   @Override
   protected void append(E eventObject) {
     if (isQueueBelowDiscardingThreshold() && isDiscardable(eventObject)) {
+      recordDroppedEvent(eventObject);
       return;
     }
+    // the event is processed after append returns
+    if (eventObject instanceof Recyclable) {
+      ((Recyclable) eventObject).retain();
+    }
     preprocess(eventObject);
     put(eventObject);
   }
@@ -153,9 +333,53 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
 
   private void put(E eventObject) {
     try {
-      blockingQueue.put(eventObject);
+      switch (overflowPolicy) {
+      case BLOCK_WITH_TIMEOUT:
+        if (!blockingQueue.offer(eventObject, eventDelayLimit.getMilliseconds(), TimeUnit.MILLISECONDS)) {
+          recordDroppedEvent(eventObject);
+        }
+        break;
+      case DROP_NEWEST:
+        if (!blockingQueue.offer(eventObject)) {
+          recordDroppedEvent(eventObject);
+        }
+        break;
+      case DROP_OLDEST:
+        while (!blockingQueue.offer(eventObject)) {
+          E oldest = blockingQueue.poll();
+          if (oldest != null) {
+            recordDroppedEvent(oldest);
+          }
+        }
+        break;
+      default:
+        blockingQueue.put(eventObject);
+      }
     } catch (InterruptedException e) {
+      recordDroppedEvent(eventObject);
+    }
+  }
+
+  void recordDroppedEvent(E eventObject) {
+    String key = getDropCounterKey(eventObject);
+    AtomicLong counter = droppedEventCounts.get(key);
+    if (counter == null) {
+      AtomicLong newCounter = new AtomicLong();
+      counter = droppedEventCounts.putIfAbsent(key, newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
     }
+    counter.incrementAndGet();
+    droppedEventCount.incrementAndGet();
+  }
+
+  /**
+   * Called by the worker thread once the queue is flushed, just before it
+   * exits. Stops the attached appender.
+   */
+  void workerExited() {
+    aai.detachAndStopAllAppenders();
   }
 
   public int getQueueSize() {
@@ -182,6 +406,139 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
     this.maxFlushTime = maxFlushTime;
   }
 
+  public QueueType getQueueType() {
+    return queueType;
+  }
+
+  /**
+   * Sets the type of queue used to hand over events to the worker thread.
+   *
+   * @param queueType
+   * @since 1.1.3
+   */
+  public void setQueueType(QueueType queueType) {
+    this.queueType = queueType;
+  }
+
+  public WaitStrategy getWaitStrategy() {
+    return waitStrategy;
+  }
+
+  /**
+   * Sets how the worker waits for events. Only relevant if queueType is
+   * RING_BUFFER.
+   *
+   * @param waitStrategy
+   * @since 1.1.3
+   */
+  public void setWaitStrategy(WaitStrategy waitStrategy) {
+    this.waitStrategy = waitStrategy;
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  /**
+   * Sets what happens to events appended while the queue is full.
+   *
+   * @param overflowPolicy
+   * @since 1.1.3
+   */
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  public boolean isNeverBlock() {
+    return overflowPolicy == OverflowPolicy.DROP_NEWEST || overflowPolicy == OverflowPolicy.DROP_OLDEST;
+  }
+
+  /**
+   * If true, events appended while the queue is full are dropped instead of
+   * blocking the calling thread. Equivalent to setting overflowPolicy to
+   * DROP_NEWEST, or back to BLOCK if false.
+   *
+   * @param neverBlock
+   * @since 1.1.3
+   */
+  public void setNeverBlock(boolean neverBlock) {
+    this.overflowPolicy = neverBlock ? OverflowPolicy.DROP_NEWEST : OverflowPolicy.BLOCK;
+  }
+
+  public Duration getEventDelayLimit() {
+    return eventDelayLimit;
+  }
+
+  /**
+   * Sets how long an appending thread may block with the BLOCK_WITH_TIMEOUT
+   * overflow policy before its event is dropped.
+   *
+   * @param eventDelayLimit
+   * @since 1.1.3
+   */
+  public void setEventDelayLimit(Duration eventDelayLimit) {
+    this.eventDelayLimit = eventDelayLimit;
+  }
+
+  public Duration getDropSummaryPeriod() {
+    return dropSummaryPeriod;
+  }
+
+  /**
+   * Sets the minimum period between two reports of dropped events.
+   *
+   * @param dropSummaryPeriod
+   * @since 1.1.3
+   */
+  public void setDropSummaryPeriod(Duration dropSummaryPeriod) {
+    this.dropSummaryPeriod = dropSummaryPeriod;
+  }
+
+  public boolean isJmx() {
+    return jmx;
+  }
+
+  /**
+   * If true, the appender registers itself as an {@link AsyncAppenderView}
+   * MBean with the platform MBean server while started.
+   *
+   * @param jmx
+   * @since 1.1.3
+   */
+  public void setJmx(boolean jmx) {
+    this.jmx = jmx;
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of events the worker dispatches in a single batch.
+   * Values larger than 1 enable batch mode.
+   *
+   * @param maxBatchSize
+   * @since 1.1.3
+   */
+  public void setMaxBatchSize(int maxBatchSize) {
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public int getMaxLingerTime() {
+    return maxLingerTime;
+  }
+
+  /**
+   * Sets the maximum time in milliseconds the worker waits for a batch to fill
+   * up before dispatching it. Only relevant in batch mode.
+   *
+   * @param maxLingerTime
+   * @since 1.1.3
+   */
+  public void setMaxLingerTime(int maxLingerTime) {
+    this.maxLingerTime = maxLingerTime;
+  }
+
   /**
    * Returns the number of elements currently in the blocking queue.
    *
@@ -201,6 +558,44 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
     return blockingQueue.remainingCapacity();
   }
 
+  /**
+   * Returns the total number of events dropped since this appender was
+   * created.
+   *
+   * @return the number of dropped events
+   * @since 1.1.3
+   */
+  public long getDroppedEventCount() {
+    return droppedEventCount.get();
+  }
+
+  /**
+   * Returns the number of dropped events counted under the given key, e.g. a
+   * level name.
+   *
+   * @param key the drop counter key
+   * @return the number of dropped events for this key
+   * @since 1.1.3
+   */
+  public long getDroppedEventCount(String key) {
+    AtomicLong counter = droppedEventCounts.get(key);
+    return counter == null ? 0 : counter.get();
+  }
+
+  /**
+   * Returns a snapshot of the drop counters, by key.
+   *
+   * @return the number of dropped events by key
+   * @since 1.1.3
+   */
+  public Map<String, Long> getDroppedEventCounts() {
+    Map<String, Long> counts = new TreeMap<String, Long>();
+    for (Map.Entry<String, AtomicLong> entry : droppedEventCounts.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().get());
+    }
+    return counts;
+  }
+
 
 
   public void addAppender(Appender<E> newAppender) {
@@ -240,15 +635,39 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
 
   class Worker extends Thread {
 
+    long lastDropSummaryTime = System.currentTimeMillis();
+    Map<String, Long> reportedDropCounts = new HashMap<String, Long>();
+
     public void run() {
       AsyncAppenderBase<E> parent = AsyncAppenderBase.this;
       AppenderAttachableImpl<E> aai = parent.aai;
+      List<E> batch = null;
+      if (parent.maxBatchSize > 1) {
+        batch = new ArrayList<E>(parent.maxBatchSize);
+      }
 
       // loop while the parent is started
       while (parent.isStarted()) {
         try {
-          E e = parent.blockingQueue.take();
-          aai.appendLoopOnAppenders(e);
+          // wait no longer than the next drop summary, which is due even if
+          // no event arrives
+          long timeout = Math.max(1, lastDropSummaryTime + parent.dropSummaryPeriod.getMilliseconds()
+              - System.currentTimeMillis());
+          if (batch == null) {
+            E e = parent.blockingQueue.poll(timeout, TimeUnit.MILLISECONDS);
+            if (e != null) {
+              aai.appendLoopOnAppenders(e);
+            }
+          } else {
+            fillBatch(batch, timeout);
+            if (!batch.isEmpty()) {
+              aai.appendBatchLoopOnAppenders(batch);
+              batch.clear();
+            }
+          }
+          if (System.currentTimeMillis() - lastDropSummaryTime >= parent.dropSummaryPeriod.getMilliseconds()) {
+            reportDroppedEvents();
+          }
         } catch (InterruptedException ie) {
           break;
         }
@@ -256,13 +675,95 @@ public class AsyncAppenderBase<E> extends UnsynchronizedAppenderBase<E> implemen
 
       addInfo("Worker thread will flush remaining events before exiting. ");
 
-      for (E e : parent.blockingQueue) {
-        aai.appendLoopOnAppenders(e);
-        parent.blockingQueue.remove(e);
+      if (batch == null) {
+        for (E e : parent.blockingQueue) {
+          aai.appendLoopOnAppenders(e);
+          parent.blockingQueue.remove(e);
+        }
+      } else {
+        // events collected before the interruption precede those still in the queue
+        for (E e : parent.blockingQueue) {
+          if (batch.size() == parent.maxBatchSize) {
+            aai.appendBatchLoopOnAppenders(batch);
+            batch.clear();
+          }
+          batch.add(e);
+          parent.blockingQueue.remove(e);
+        }
+        if (!batch.isEmpty()) {
+          aai.appendBatchLoopOnAppenders(batch);
+          batch.clear();
+        }
       }
-      
+      reportDroppedEvents();
+
+      parent.workerExited();
+    }
+
+    /**
+     * Report events dropped since the last report, if any, either as an event
+     * passed on to the attached appender or as a status message.
+     */
+    void reportDroppedEvents() {
+      AsyncAppenderBase<E> parent = AsyncAppenderBase.this;
+      lastDropSummaryTime = System.currentTimeMillis();
+      Map<String, Long> counts = parent.getDroppedEventCounts();
+      StringBuilder details = new StringBuilder();
+      long total = 0;
+      for (Map.Entry<String, Long> entry : counts.entrySet()) {
+        Long reported = reportedDropCounts.get(entry.getKey());
+        long delta = entry.getValue() - (reported == null ? 0 : reported);
+        if (delta > 0) {
+          details.append(total == 0 ? "" : ", ").append(entry.getKey()).append('=').append(delta);
+          total += delta;
+        }
+      }
+      if (total == 0) {
+        return;
+      }
+      reportedDropCounts = counts;
+      String message = "AsyncAppender [" + parent.getName() + "] dropped " + total + " events since the last report ("
+          + details + ")";
+      E summary = parent.buildDropSummaryEvent(message);
+      if (summary == null) {
+        addWarn(message);
+      } else {
+        aai.appendLoopOnAppenders(summary);
+      }
+    }
 
-      aai.detachAndStopAllAppenders();
+    /**
+     * Wait at most <code>timeout</code> milliseconds for a first event, then
+     * take as many events as are available, up to maxBatchSize, lingering for
+     * at most maxLingerTime milliseconds. The batch stays empty if no event
+     * arrived in time. On interruption, events already taken from the queue
+     * remain in the batch.
+     */
+    private void fillBatch(List<E> batch, long timeout) throws InterruptedException {
+      AsyncAppenderBase<E> parent = AsyncAppenderBase.this;
+      int max = parent.maxBatchSize;
+      E first = parent.blockingQueue.poll(timeout, TimeUnit.MILLISECONDS);
+      if (first == null) {
+        return;
+      }
+      batch.add(first);
+      parent.blockingQueue.drainTo(batch, max - batch.size());
+      if (parent.maxLingerTime <= 0) {
+        return;
+      }
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parent.maxLingerTime);
+      while (batch.size() < max) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return;
+        }
+        E e = parent.blockingQueue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (e == null) {
+          return;
+        }
+        batch.add(e);
+        parent.blockingQueue.drainTo(batch, max - batch.size());
+      }
     }
   }
 }
@@ -0,0 +1,36 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link AsyncAppenderBase}, registered with the
+ * platform MBean server if the appender's <b>jmx</b> property is set.
+ *
+ * @since 1.1.3
+ */
+public interface AsyncAppenderView {
+
+  int getQueueSize();
+
+  int getNumberOfElementsInQueue();
+
+  int getRemainingCapacity();
+
+  long getDroppedEventCount();
+
+  Map<String, Long> getDroppedEventCounts();
+
+}
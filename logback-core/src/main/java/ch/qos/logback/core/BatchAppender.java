@@ -0,0 +1,37 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import java.util.List;
+
+/**
+ * An {@link Appender} which is able to process several events in a single
+ * invocation. Appenders which dispatch events in bulk, e.g.
+ * {@link AsyncAppenderBase} in batch mode, will hand over whole batches to
+ * appenders implementing this interface so that the cost of locking and
+ * flushing can be paid once per batch instead of once per event.
+ *
+ * @since 1.1.3
+ */
+public interface BatchAppender<E> extends Appender<E> {
+
+  /**
+   * Append all events contained in the list, in list order. Implementations
+   * must not retain a reference to the list after this method returns.
+   *
+   * @param eventList
+   */
+  void doAppendBatch(List<E> eventList) throws LogbackException;
+
+}
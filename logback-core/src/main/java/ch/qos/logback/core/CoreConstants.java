@@ -136,6 +136,9 @@ public class CoreConstants {
   // Context Object name for the shutdown hook
   public static final String SHUTDOWN_HOOK_THREAD = "SHUTDOWN_HOOK";
 
+  // Context Object name for the shared executor maintaining archives
+  public static final String MAINTENANCE_EXECUTOR = "MAINTENANCE_EXECUTOR";
+
 
 
   /**
@@ -13,12 +13,17 @@
  */
 package ch.qos.logback.core;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
+import java.util.List;
 
 import ch.qos.logback.core.recovery.ResilientFileOutputStream;
+import ch.qos.logback.core.util.FileOutputMode;
+import ch.qos.logback.core.util.FileSize;
 import ch.qos.logback.core.util.FileUtil;
 
 /**
@@ -27,6 +32,22 @@ import ch.qos.logback.core.util.FileUtil;
  * For more information about this appender, please refer to the online manual
  * at http://logback.qos.ch/manual/appenders.html#FileAppender
  * 
+ * <p>The <b>outputMode</b> property selects how bytes reach the file, see
+ * {@link FileOutputMode}. In {@link FileOutputMode#MAPPED MAPPED} mode the
+ * file is mapped in regions of <b>mappedRegionSize</b> bytes. Since the file
+ * is extended by a whole region at a time, its length as reported by the file
+ * system exceeds the data written until the file is closed; use
+ * {@link #getBytesWritten()} instead. Prudent mode
+ * cannot be combined with mapping, and falls back to
+ * {@link FileOutputMode#CHANNEL CHANNEL} mode.
+ * 
+ * <p>In prudent mode, every event is normally written while holding an
+ * exclusive lock on the file. When <b>groupCommit</b> is also set, events are
+ * instead buffered as described in {@link OutputStreamAppender}, and the lock
+ * is acquired once per group commit to append all buffered events at the end
+ * of the file. Events from one JVM then reach the file up to
+ * <b>groupCommitMaxLatency</b> later, but the file is locked far less often.
+ * 
  * @author Ceki G&uuml;lc&uuml;
  */
 public class FileAppender<E> extends OutputStreamAppender<E> {
@@ -45,6 +66,15 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
 
   private boolean prudent = false;
 
+  /**
+   * The default size of regions mapped in {@link FileOutputMode#MAPPED MAPPED}
+   * mode.
+   */
+  public static final String DEFAULT_MAPPED_REGION_SIZE = "8 MB";
+
+  private FileOutputMode outputMode = FileOutputMode.STREAM;
+  private FileSize mappedRegionSize = FileSize.valueOf(DEFAULT_MAPPED_REGION_SIZE);
+
   /**
    * The <b>File</b> property takes a string value which should be the name of
    * the file to append to.
@@ -102,6 +132,13 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
           setAppend(true);
           addWarn("Setting \"Append\" property to true on account of \"Prudent\" mode");
         }
+        if (isGroupCommit()) {
+          addInfo("Prudent mode with group commit, locking the file once per commit");
+        }
+        if (outputMode == FileOutputMode.MAPPED) {
+          setOutputMode(FileOutputMode.CHANNEL);
+          addWarn("Setting \"OutputMode\" property to CHANNEL on account of \"Prudent\" mode");
+        }
       }
 
       try {
@@ -146,14 +183,28 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
       }
 
       ResilientFileOutputStream resilientFos = new ResilientFileOutputStream(
-          file, append);
+          file, append, outputMode, mappedRegionSize.getSize());
       resilientFos.setContext(context);
-      setOutputStream(resilientFos);
+      setOutputStream(decorateFileOutputStream(resilientFos));
+      countPreexistingBytes(resilientFos.getInitialLength());
     } finally {
       lock.unlock();
     }
   }
 
+  /**
+   * Returns the stream events are written to, given the stream writing to
+   * the file. Subclasses may wrap the returned stream further.
+   *
+   * @since 1.1.3
+   */
+  protected OutputStream decorateFileOutputStream(ResilientFileOutputStream resilientFos) {
+    if (prudent && isGroupCommit()) {
+      return new LockingAppendOutputStream(resilientFos);
+    }
+    return resilientFos;
+  }
+
   /**
    * @see #setPrudent(boolean)
    * 
@@ -177,34 +228,155 @@ public class FileAppender<E> extends OutputStreamAppender<E> {
     this.append = append;
   }
 
-  private void safeWrite(E event) throws IOException {
-    ResilientFileOutputStream resilientFOS = (ResilientFileOutputStream) getOutputStream();
-    FileChannel fileChannel = resilientFOS.getChannel();
+  public FileOutputMode getOutputMode() {
+    return outputMode;
+  }
+
+  /**
+   * Select how bytes are written to the file. The default is
+   * {@link FileOutputMode#STREAM STREAM}.
+   *
+   * @param outputMode
+   * @since 1.1.3
+   */
+  public void setOutputMode(FileOutputMode outputMode) {
+    this.outputMode = outputMode;
+  }
+
+  public FileSize getMappedRegionSize() {
+    return mappedRegionSize;
+  }
+
+  /**
+   * The size of the regions mapped in {@link FileOutputMode#MAPPED MAPPED}
+   * mode, 8 MB by default.
+   *
+   * @param mappedRegionSize
+   * @since 1.1.3
+   */
+  public void setMappedRegionSize(FileSize mappedRegionSize) {
+    this.mappedRegionSize = mappedRegionSize;
+  }
+
+  /**
+   * True if each event must be written under its own file lock, false in
+   * normal mode or if the lock is taken once per group commit.
+   */
+  private boolean lockPerEvent() {
+    return prudent && !isGroupCommit();
+  }
+
+  /**
+   * Acquires an exclusive lock on the file and moves the channel to the end
+   * of the file, where other JVMs may have written since. Returns null if the
+   * channel is not available.
+   */
+  static FileLock lockAndSeekToEnd(FileChannel fileChannel) throws IOException {
     if (fileChannel == null) {
-      return;
+      return null;
     }
-    FileLock fileLock = null;
+    FileLock fileLock = fileChannel.lock();
     try {
-      fileLock = fileChannel.lock();
       long position = fileChannel.position();
       long size = fileChannel.size();
       if (size != position) {
         fileChannel.position(size);
       }
-      super.writeOut(event);
-    } finally {
-      if (fileLock != null) {
-        fileLock.release();
+    } catch (IOException e) {
+      fileLock.release();
+      throw e;
+    }
+    return fileLock;
+  }
+
+  /**
+   * Write the event, or if not null the bytes it was encoded into, at the end
+   * of the file while holding an exclusive lock on the file.
+   */
+  private void safeWrite(E event, ByteArrayOutputStream encoded) throws IOException {
+    ResilientFileOutputStream resilientFOS = (ResilientFileOutputStream) getOutputStream();
+    FileLock fileLock = lockAndSeekToEnd(resilientFOS.getChannel());
+    if (fileLock == null) {
+      return;
+    }
+    try {
+      if (encoded != null) {
+        super.writeOutEncoded(encoded);
+      } else {
+        super.writeOut(event);
       }
+    } finally {
+      fileLock.release();
     }
   }
 
   @Override
   protected void writeOut(E event) throws IOException {
-    if (prudent) {
-      safeWrite(event);
+    if (lockPerEvent()) {
+      safeWrite(event, null);
     } else {
       super.writeOut(event);
     }
   }
+
+  @Override
+  protected void writeOutEncoded(ByteArrayOutputStream encoded) throws IOException {
+    if (lockPerEvent()) {
+      safeWrite(null, encoded);
+    } else {
+      super.writeOutEncoded(encoded);
+    }
+  }
+
+  @Override
+  protected void writeOutBatch(List<E> eventList) throws IOException {
+    if (lockPerEvent()) {
+      for (E event : eventList) {
+        safeWrite(event, null);
+      }
+    } else {
+      super.writeOutBatch(eventList);
+    }
+  }
+
+  /**
+   * Appends every chunk it is given at the end of the file while holding an
+   * exclusive lock on the file, then flushes it. Used in prudent mode with
+   * group commit, where each chunk holds all events of a commit.
+   */
+  static class LockingAppendOutputStream extends OutputStream {
+
+    final ResilientFileOutputStream out;
+
+    LockingAppendOutputStream(ResilientFileOutputStream out) {
+      this.out = out;
+    }
+
+    public void write(int b) throws IOException {
+      write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+      FileLock fileLock = lockAndSeekToEnd(out.getChannel());
+      if (fileLock == null) {
+        return;
+      }
+      try {
+        out.write(b, off, len);
+        out.flush();
+      } finally {
+        fileLock.release();
+      }
+    }
+
+    /**
+     * Does nothing, bytes are flushed before the lock is released.
+     */
+    public void flush() {
+    }
+
+    public void close() throws IOException {
+      out.close();
+    }
+  }
 }
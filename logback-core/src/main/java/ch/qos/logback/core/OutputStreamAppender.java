@@ -15,18 +15,39 @@ package ch.qos.logback.core;
 
 import static ch.qos.logback.core.CoreConstants.CODES_URL;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 import ch.qos.logback.core.encoder.Encoder;
 import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
 import ch.qos.logback.core.spi.DeferredProcessingAware;
 import ch.qos.logback.core.status.ErrorStatus;
+import ch.qos.logback.core.util.CountingOutputStream;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileSize;
+import ch.qos.logback.core.util.GroupCommitOutputStream;
 
 /**
  * OutputStreamAppender appends events to a {@link OutputStream}. This class
  * provides basic services that other appenders build upon.
+ * <p>
+ * In <b>groupCommit</b> mode, encoded events are collected in a buffer of
+ * <b>groupCommitBufferSize</b> bytes and written out and flushed together
+ * once the buffer is full or <b>groupCommitMaxEvents</b> events are pending,
+ * whichever comes first. A background thread commits pending events so that
+ * none remains unflushed for longer than <b>groupCommitMaxLatency</b>, and a
+ * shutdown hook commits them when the JVM exits.
+ * <p>
+ * If <b>encodeOutsideLock</b> is set and the encoder is a
+ * {@link LayoutWrappingEncoder}, each thread encodes its events into a
+ * reusable thread-local buffer without holding the appender's lock. The lock
+ * then only guards copying the bytes to the output stream. The layout must be
+ * thread-safe, as is the case for pattern layouts.
  * 
  * For more information about this appender, please refer to the online manual
  * at http://logback.qos.ch/manual/appenders.html#OutputStreamAppender
@@ -49,8 +70,54 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
 
   /**
    * This is the {@link OutputStream outputStream} where output will be written.
+   * It counts the bytes written to the stream given to
+   * {@link #setOutputStream(OutputStream)}.
    */
-  private OutputStream outputStream;
+  private volatile CountingOutputStream outputStream;
+
+  /**
+   * The default size of the group commit buffer.
+   */
+  public static final String DEFAULT_GROUP_COMMIT_BUFFER_SIZE = "8 kb";
+  /**
+   * The default number of events after which a group commit occurs.
+   */
+  public static final int DEFAULT_GROUP_COMMIT_MAX_EVENTS = 256;
+  /**
+   * The default maximum time events remain uncommitted, in milliseconds.
+   */
+  public static final long DEFAULT_GROUP_COMMIT_MAX_LATENCY = 5;
+
+  boolean groupCommit = false;
+  FileSize groupCommitBufferSize = FileSize.valueOf(DEFAULT_GROUP_COMMIT_BUFFER_SIZE);
+  int groupCommitMaxEvents = DEFAULT_GROUP_COMMIT_MAX_EVENTS;
+  Duration groupCommitMaxLatency = new Duration(DEFAULT_GROUP_COMMIT_MAX_LATENCY);
+
+  /**
+   * The group commit buffer wrapping the output stream, null unless in
+   * groupCommit mode.
+   */
+  private GroupCommitOutputStream groupCommitStream;
+  private GroupCommitFlusher groupCommitFlusher;
+  private Thread groupCommitShutdownHook;
+
+  /**
+   * Encoding buffers larger than this are not retained between events.
+   */
+  static final int MAX_RETAINED_ENCODING_BUFFER_SIZE = 64 * 1024;
+
+  boolean encodeOutsideLock = false;
+
+  /**
+   * The encoder used outside the lock, null unless in encodeOutsideLock mode.
+   */
+  private LayoutWrappingEncoder<E> lockFreeEncoder;
+  private final ThreadLocal<ByteArrayOutputStream> encodingBuffer = new ThreadLocal<ByteArrayOutputStream>() {
+    @Override
+    protected ByteArrayOutputStream initialValue() {
+      return new ByteArrayOutputStream(256);
+    }
+  };
 
   /**
    * The underlying output stream used by this appender.
@@ -58,7 +125,35 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
    * @return
    */
   public OutputStream getOutputStream() {
-    return outputStream;
+    CountingOutputStream cos = outputStream;
+    return cos == null ? null : cos.getUnderlyingOutputStream();
+  }
+
+  /**
+   * The number of bytes written to the current output stream since it was
+   * set, including the header written by the encoder and, for files opened
+   * in append mode, the bytes already present in the file. Events pending in
+   * groupCommit mode are counted. Returns 0 if there is no output stream.
+   * <p/>
+   * This method may be invoked without holding the appender's lock.
+   *
+   * @since 1.1.3
+   */
+  public long getBytesWritten() {
+    CountingOutputStream cos = outputStream;
+    return cos == null ? 0 : cos.getCount();
+  }
+
+  /**
+   * Count <code>length</code> bytes as already written to the current output
+   * stream, as for a file opened in append mode.
+   *
+   * @since 1.1.3
+   */
+  protected void countPreexistingBytes(long length) {
+    if (outputStream != null) {
+      outputStream.addToCount(length);
+    }
   }
 
   /**
@@ -80,7 +175,73 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
     }
     // only error free appenders should be activated
     if (errors == 0) {
+      if (encodeOutsideLock) {
+        initLockFreeEncoder();
+      }
       super.start();
+      if (groupCommitStream != null) {
+        startGroupCommit();
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void initLockFreeEncoder() {
+    if (encoder instanceof LayoutWrappingEncoder) {
+      lockFreeEncoder = (LayoutWrappingEncoder<E>) encoder;
+    } else {
+      addWarn("The \"EncodeOutsideLock\" property requires a LayoutWrappingEncoder. Encoding under lock.");
+    }
+  }
+
+  private void startGroupCommit() {
+    groupCommitFlusher = new GroupCommitFlusher();
+    groupCommitFlusher.setDaemon(true);
+    groupCommitFlusher.setName("GroupCommit-Flusher-" + getName());
+    groupCommitFlusher.start();
+    groupCommitShutdownHook = new Thread(new Runnable() {
+      public void run() {
+        commitPendingEvents();
+      }
+    }, "GroupCommit-ShutdownHook-" + getName());
+    Runtime.getRuntime().addShutdownHook(groupCommitShutdownHook);
+    addInfo("Group commit enabled, flushing at least every " + groupCommitMaxLatency);
+  }
+
+  private void stopGroupCommit() {
+    if (groupCommitFlusher != null) {
+      groupCommitFlusher.stopFlushing();
+      try {
+        groupCommitFlusher.join();
+      } catch (InterruptedException e) {
+        addError("Failed to join group commit flusher thread.", e);
+      }
+      groupCommitFlusher = null;
+    }
+    if (groupCommitShutdownHook != null) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(groupCommitShutdownHook);
+      } catch (IllegalStateException e) {
+        // the JVM is shutting down, the hook is running or has run
+      }
+      groupCommitShutdownHook = null;
+    }
+  }
+
+  /**
+   * Write out and flush events buffered in groupCommit mode.
+   */
+  void commitPendingEvents() {
+    lock.lock();
+    try {
+      if (groupCommitStream != null && groupCommitStream.hasPendingBytes()) {
+        groupCommitStream.commit();
+      }
+    } catch (IOException ioe) {
+      this.started = false;
+      addStatus(new ErrorStatus("IO failure in appender", this, ioe));
+    } finally {
+      lock.unlock();
     }
   }
 
@@ -103,6 +264,15 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
     subAppend(eventObject);
   }
 
+  @Override
+  protected void appendBatch(List<E> eventList) {
+    if (!isStarted()) {
+      return;
+    }
+
+    subAppendBatch(eventList);
+  }
+
   /**
    * Stop this appender instance. The underlying stream or writer is also
    * closed.
@@ -111,6 +281,8 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
    * Stopped appenders cannot be reused.
    */
   public void stop() {
+    // the flusher takes the lock, stop it before
+    stopGroupCommit();
     lock.lock();
     try {
       closeOutputStream();
@@ -130,6 +302,7 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
         encoderClose();
         this.outputStream.close();
         this.outputStream = null;
+        this.groupCommitStream = null;
       } catch (IOException e) {
         addStatus(new ErrorStatus(
             "Could not close output stream for OutputStreamAppender.", this, e));
@@ -178,7 +351,12 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
       // close any previously opened output stream
       closeOutputStream();
 
-      this.outputStream = outputStream;
+      if (groupCommit) {
+        groupCommitStream = new GroupCommitOutputStream(outputStream, (int) groupCommitBufferSize.getSize(),
+            groupCommitMaxEvents);
+        outputStream = groupCommitStream;
+      }
+      this.outputStream = new CountingOutputStream(outputStream);
       if (encoder == null) {
         addWarn("Encoder has not been set. Cannot invoke its init method.");
         return;
@@ -194,6 +372,53 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
     this.encoder.doEncode(event);
   }
 
+  /**
+   * Write out a batch of events. If the encoder is a
+   * {@link LayoutWrappingEncoder}, the underlying stream is flushed at most
+   * once for the whole batch.
+   *
+   * @since 1.1.3
+   */
+  @SuppressWarnings("unchecked")
+  protected void writeOutBatch(List<E> eventList) throws IOException {
+    if (this.encoder instanceof LayoutWrappingEncoder) {
+      ((LayoutWrappingEncoder<E>) this.encoder).doEncodeBatch(eventList);
+    } else {
+      for (E event : eventList) {
+        writeOut(event);
+      }
+    }
+  }
+
+  /**
+   * Write out the bytes of one or more events, encoded outside the lock in
+   * encodeOutsideLock mode. Invoked with the lock held.
+   *
+   * @since 1.1.3
+   */
+  protected void writeOutEncoded(ByteArrayOutputStream encoded) throws IOException {
+    if (this.outputStream == null) {
+      // closed while the event was being encoded
+      return;
+    }
+    encoded.writeTo(this.outputStream);
+    if (lockFreeEncoder.isImmediateFlush()) {
+      this.outputStream.flush();
+    }
+  }
+
+  private ByteArrayOutputStream getEncodingBuffer() {
+    ByteArrayOutputStream buffer = encodingBuffer.get();
+    buffer.reset();
+    return buffer;
+  }
+
+  private void releaseEncodingBuffer(ByteArrayOutputStream buffer) {
+    if (buffer.size() > MAX_RETAINED_ENCODING_BUFFER_SIZE) {
+      encodingBuffer.remove();
+    }
+  }
+
   /**
    * Actual writing occurs here.
    * <p>
@@ -211,12 +436,30 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
       if (event instanceof DeferredProcessingAware) {
         ((DeferredProcessingAware) event).prepareForDeferredProcessing();
       }
+      if (lockFreeEncoder != null) {
+        ByteArrayOutputStream buffer = getEncodingBuffer();
+        lockFreeEncoder.encodeTo(event, buffer);
+        lock.lock();
+        try {
+          writeOutEncoded(buffer);
+          if (groupCommitStream != null) {
+            groupCommitStream.endOfEvents(1);
+          }
+        } finally {
+          lock.unlock();
+        }
+        releaseEncodingBuffer(buffer);
+        return;
+      }
       // the synchronization prevents the OutputStream from being closed while we
       // are writing. It also prevents multiple threads from entering the same
       // converter. Converters assume that they are in a synchronized block.
       lock.lock();
       try {
         writeOut(event);
+        if (groupCommitStream != null) {
+          groupCommitStream.endOfEvents(1);
+        }
       } finally {
         lock.unlock();
       }
@@ -228,6 +471,54 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
     }
   }
 
+  /**
+   * Batch counterpart of {@link #subAppend}. The lock is acquired once for the
+   * whole batch.
+   *
+   * @since 1.1.3
+   */
+  protected void subAppendBatch(List<E> eventList) {
+    if (!isStarted()) {
+      return;
+    }
+    try {
+      for (E event : eventList) {
+        if (event instanceof DeferredProcessingAware) {
+          ((DeferredProcessingAware) event).prepareForDeferredProcessing();
+        }
+      }
+      if (lockFreeEncoder != null) {
+        ByteArrayOutputStream buffer = getEncodingBuffer();
+        for (E event : eventList) {
+          lockFreeEncoder.encodeTo(event, buffer);
+        }
+        lock.lock();
+        try {
+          writeOutEncoded(buffer);
+          if (groupCommitStream != null) {
+            groupCommitStream.endOfEvents(eventList.size());
+          }
+        } finally {
+          lock.unlock();
+        }
+        releaseEncodingBuffer(buffer);
+        return;
+      }
+      lock.lock();
+      try {
+        writeOutBatch(eventList);
+        if (groupCommitStream != null) {
+          groupCommitStream.endOfEvents(eventList.size());
+        }
+      } finally {
+        lock.unlock();
+      }
+    } catch (IOException ioe) {
+      this.started = false;
+      addStatus(new ErrorStatus("IO failure in appender", this, ioe));
+    }
+  }
+
   public Encoder<E> getEncoder() {
     return encoder;
   }
@@ -235,5 +526,105 @@ public class OutputStreamAppender<E> extends UnsynchronizedAppenderBase<E> {
   public void setEncoder(Encoder<E> encoder) {
     this.encoder = encoder;
   }
-  
+
+  public boolean isEncodeOutsideLock() {
+    return encodeOutsideLock;
+  }
+
+  /**
+   * If true, events are encoded without holding this appender's lock. Requires
+   * a {@link LayoutWrappingEncoder} with a thread-safe layout.
+   *
+   * @param encodeOutsideLock
+   * @since 1.1.3
+   */
+  public void setEncodeOutsideLock(boolean encodeOutsideLock) {
+    this.encodeOutsideLock = encodeOutsideLock;
+  }
+
+  public boolean isGroupCommit() {
+    return groupCommit;
+  }
+
+  /**
+   * Enables group commit mode. Must be set before the output stream is.
+   *
+   * @param groupCommit
+   * @since 1.1.3
+   */
+  public void setGroupCommit(boolean groupCommit) {
+    this.groupCommit = groupCommit;
+  }
+
+  public FileSize getGroupCommitBufferSize() {
+    return groupCommitBufferSize;
+  }
+
+  /**
+   * Sets the number of bytes buffered before a group commit occurs.
+   *
+   * @param groupCommitBufferSize
+   * @since 1.1.3
+   */
+  public void setGroupCommitBufferSize(FileSize groupCommitBufferSize) {
+    this.groupCommitBufferSize = groupCommitBufferSize;
+  }
+
+  public int getGroupCommitMaxEvents() {
+    return groupCommitMaxEvents;
+  }
+
+  /**
+   * Sets the number of events buffered before a group commit occurs.
+   *
+   * @param groupCommitMaxEvents
+   * @since 1.1.3
+   */
+  public void setGroupCommitMaxEvents(int groupCommitMaxEvents) {
+    this.groupCommitMaxEvents = groupCommitMaxEvents;
+  }
+
+  public Duration getGroupCommitMaxLatency() {
+    return groupCommitMaxLatency;
+  }
+
+  /**
+   * Sets the maximum time buffered events wait for a group commit.
+   *
+   * @param groupCommitMaxLatency
+   * @since 1.1.3
+   */
+  public void setGroupCommitMaxLatency(Duration groupCommitMaxLatency) {
+    this.groupCommitMaxLatency = groupCommitMaxLatency;
+  }
+
+  /**
+   * Commits pending events every groupCommitMaxLatency.
+   */
+  class GroupCommitFlusher extends Thread {
+
+    // not stopped by interruption: a commit made by an interrupted thread
+    // would close interruptible channels such as FileChannel
+    volatile boolean stopped = false;
+
+    public void run() {
+      long periodNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, groupCommitMaxLatency.getMilliseconds()));
+      long deadline = System.nanoTime() + periodNanos;
+      while (!stopped) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining > 0) {
+          // parkNanos may return early, without any unpark
+          LockSupport.parkNanos(this, remaining);
+          continue;
+        }
+        commitPendingEvents();
+        deadline = System.nanoTime() + periodNanos;
+      }
+    }
+
+    void stopFlushing() {
+      stopped = true;
+      LockSupport.unpark(this);
+    }
+  }
 }
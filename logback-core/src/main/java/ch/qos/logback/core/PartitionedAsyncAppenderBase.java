@@ -0,0 +1,282 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An asynchronous appender which spreads events over several queues, each
+ * drained by its own worker thread.
+ * <p/>
+ * Events are assigned to one of <b>partitionCount</b> partitions by hashing
+ * the key returned by {@link #getPartitionKey(Object)}. Events with the same
+ * key thus always go through the same queue and worker, and stay in order.
+ * <p/>
+ * Unlike {@link AsyncAppenderBase}, any number of appenders may be attached.
+ * Each attached appender gets its own <b>partitionCount</b> partitions and
+ * receives every event, so that a slow appender does not hold back the
+ * others.
+ * <p/>
+ * Each partition is an {@link AsyncAppenderBase} of its own, configured with
+ * the properties of this appender. <b>queueSize</b>, <b>discardingThreshold</b>,
+ * <b>overflowPolicy</b>, <b>maxBatchSize</b>, <b>queueType</b> and the other
+ * queue properties thus apply to each partition's queue. On stop, all
+ * workers are interrupted at once and given <b>maxFlushTime</b> milliseconds
+ * in total to flush their queues. Dropped events are reported per partition, and counted in total by this
+ * appender. The last worker to finish stops the attached appenders.
+ *
+ * @param <E>
+ * @since 1.1.3
+ */
+public class PartitionedAsyncAppenderBase<E> extends AsyncAppenderBase<E> {
+
+  /**
+   * The default number of partitions.
+   */
+  public static final int DEFAULT_PARTITION_COUNT = 4;
+  int partitionCount = DEFAULT_PARTITION_COUNT;
+
+  /**
+   * The partitions of each attached appender, in the order of attachment.
+   */
+  List<List<Partition>> partitionsByAppender;
+  final AtomicInteger runningWorkers = new AtomicInteger();
+
+  /**
+   * Returns the key used to assign the event to a partition. Events with equal
+   * keys are dispatched in order by the same worker. The base class partitions
+   * events by the name of the calling thread.
+   *
+   * @param eventObject
+   * @return the partition key, may be null
+   */
+  protected String getPartitionKey(E eventObject) {
+    return Thread.currentThread().getName();
+  }
+
+  @Override
+  public void start() {
+    if (partitionCount < 1) {
+      addError("Invalid partition count [" + partitionCount + "]");
+      return;
+    }
+    super.start();
+  }
+
+  /**
+   * Create and start the partitions of each attached appender. They are
+   * started before this appender, so that append never finds a partition
+   * without its queue.
+   */
+  @Override
+  void createWorker() {
+    List<List<Partition>> partitions = new ArrayList<List<Partition>>();
+    Iterator<Appender<E>> it = aai.iteratorForAppenders();
+    while (it.hasNext()) {
+      Appender<E> appender = it.next();
+      List<Partition> partitionsOfAppender = new ArrayList<Partition>(partitionCount);
+      for (int i = 0; i < partitionCount; i++) {
+        partitionsOfAppender.add(new Partition(appender, i));
+      }
+      partitions.add(partitionsOfAppender);
+    }
+    runningWorkers.set(partitions.size() * partitionCount);
+    for (List<Partition> partitionsOfAppender : partitions) {
+      for (Partition partition : partitionsOfAppender) {
+        partition.start();
+      }
+    }
+    partitionsByAppender = partitions;
+  }
+
+  @Override
+  void startWorker() {
+    // the workers of the partitions are already running
+  }
+
+  /**
+   * Stop every partition, which interrupts its worker, then wait for all
+   * workers against a single deadline.
+   */
+  @Override
+  void stopWorker() {
+    for (List<Partition> partitionsOfAppender : partitionsByAppender) {
+      for (Partition partition : partitionsOfAppender) {
+        partition.stop();
+      }
+    }
+    long deadline = System.currentTimeMillis() + maxFlushTime;
+    try {
+      for (List<Partition> partitionsOfAppender : partitionsByAppender) {
+        for (Partition partition : partitionsOfAppender) {
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining > 0) {
+            partition.worker.join(remaining);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      addError("Failed to join worker threads. " + getNumberOfElementsInQueue() + " queued events may be discarded.", e);
+      return;
+    }
+    if (runningWorkers.get() > 0) {
+      addWarn("Max queue flush timeout (" + maxFlushTime + " ms) exceeded. Approximately " + getNumberOfElementsInQueue()
+          + " queued events were possibly discarded.");
+    } else {
+      addInfo("Queue flush finished successfully within timeout.");
+    }
+  }
+
+  @Override
+  protected void append(E eventObject) {
+    int index = partitionIndex(getPartitionKey(eventObject), partitionsByAppender.get(0).size());
+    for (List<Partition> partitionsOfAppender : partitionsByAppender) {
+      partitionsOfAppender.get(index).append(eventObject);
+    }
+  }
+
+  static int partitionIndex(String key, int partitionCount) {
+    if (key == null) {
+      return 0;
+    }
+    return (key.hashCode() & Integer.MAX_VALUE) % partitionCount;
+  }
+
+  public int getPartitionCount() {
+    return partitionCount;
+  }
+
+  public void setPartitionCount(int partitionCount) {
+    this.partitionCount = partitionCount;
+  }
+
+  /**
+   * Returns the number of elements currently in the queues of all partitions.
+   *
+   * @return number of elements currently in the queues.
+   */
+  @Override
+  public int getNumberOfElementsInQueue() {
+    int count = 0;
+    for (List<Partition> partitionsOfAppender : partitionsByAppender) {
+      for (Partition partition : partitionsOfAppender) {
+        count += partition.getNumberOfElementsInQueue();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the remaining capacity of the queues of all partitions.
+   *
+   * @return the remaining capacity
+   */
+  @Override
+  public int getRemainingCapacity() {
+    int capacity = 0;
+    for (List<Partition> partitionsOfAppender : partitionsByAppender) {
+      for (Partition partition : partitionsOfAppender) {
+        capacity += partition.getRemainingCapacity();
+      }
+    }
+    return capacity;
+  }
+
+  @Override
+  public void addAppender(Appender<E> newAppender) {
+    appenderCount++;
+    addInfo("Attaching appender named [" + newAppender.getName() + "] to PartitionedAsyncAppender.");
+    aai.addAppender(newAppender);
+  }
+
+  /**
+   * A queue and worker feeding one attached appender, configured like and
+   * delegating its hooks to the enclosing appender.
+   */
+  class Partition extends AsyncAppenderBase<E> {
+
+    Partition(Appender<E> appender, int index) {
+      PartitionedAsyncAppenderBase<E> parent = PartitionedAsyncAppenderBase.this;
+      setContext(parent.getContext());
+      setName(parent.getName() + "-" + appender.getName() + "-" + index);
+      queueSize = parent.queueSize;
+      discardingThreshold = parent.discardingThreshold;
+      maxFlushTime = parent.maxFlushTime;
+      maxBatchSize = parent.maxBatchSize;
+      maxLingerTime = parent.maxLingerTime;
+      queueType = parent.queueType;
+      waitStrategy = parent.waitStrategy;
+      overflowPolicy = parent.overflowPolicy;
+      eventDelayLimit = parent.eventDelayLimit;
+      dropSummaryPeriod = parent.dropSummaryPeriod;
+      appenderCount = 1;
+      aai.addAppender(appender);
+    }
+
+    @Override
+    protected BlockingQueue<E> createBlockingQueue(int capacity) {
+      return PartitionedAsyncAppenderBase.this.createBlockingQueue(capacity);
+    }
+
+    @Override
+    protected boolean isDiscardable(E eventObject) {
+      return PartitionedAsyncAppenderBase.this.isDiscardable(eventObject);
+    }
+
+    @Override
+    protected void preprocess(E eventObject) {
+      PartitionedAsyncAppenderBase.this.preprocess(eventObject);
+    }
+
+    @Override
+    protected String getDropCounterKey(E eventObject) {
+      return PartitionedAsyncAppenderBase.this.getDropCounterKey(eventObject);
+    }
+
+    @Override
+    protected E buildDropSummaryEvent(String message) {
+      return PartitionedAsyncAppenderBase.this.buildDropSummaryEvent(message);
+    }
+
+    @Override
+    void recordDroppedEvent(E eventObject) {
+      super.recordDroppedEvent(eventObject);
+      PartitionedAsyncAppenderBase.this.recordDroppedEvent(eventObject);
+    }
+
+    /**
+     * Only interrupts the worker. The enclosing appender waits for the
+     * workers of all partitions at once.
+     */
+    @Override
+    void stopWorker() {
+      worker.interrupt();
+    }
+
+    /**
+     * The attached appenders are shared between partitions, the last worker to
+     * exit stops them.
+     */
+    @Override
+    void workerExited() {
+      if (runningWorkers.decrementAndGet() == 0) {
+        PartitionedAsyncAppenderBase.this.aai.detachAndStopAllAppenders();
+      }
+    }
+  }
+}
@@ -13,6 +13,7 @@
  */
 package ch.qos.logback.core;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import ch.qos.logback.core.filter.Filter;
@@ -29,7 +30,7 @@ import ch.qos.logback.core.status.WarnStatus;
  * @author Ralph Goers
  */
 abstract public class UnsynchronizedAppenderBase<E> extends ContextAwareBase implements
-    Appender<E> {
+    BatchAppender<E> {
 
   protected boolean started = false;
 
@@ -96,8 +97,85 @@ abstract public class UnsynchronizedAppenderBase<E> extends ContextAwareBase imp
     }
   }
 
+  public void doAppendBatch(List<E> eventList) {
+    // WARNING: The guard check MUST be the first statement in the
+    // doAppendBatch() method.
+
+    // prevent re-entry.
+    if (Boolean.TRUE.equals(guard.get())) {
+      return;
+    }
+
+    try {
+      guard.set(Boolean.TRUE);
+
+      if (!this.started) {
+        if (statusRepeatCount++ < ALLOWED_REPEATS) {
+          addStatus(new WarnStatus(
+              "Attempted to append to non started appender [" + name + "].",
+              this));
+        }
+        return;
+      }
+
+      List<E> acceptedList = filterBatch(eventList);
+      if (acceptedList.isEmpty()) {
+        return;
+      }
+
+      // ok, we now invoke derived class' implementation of appendBatch
+      this.appendBatch(acceptedList);
+
+    } catch (Exception e) {
+      if (exceptionCount++ < ALLOWED_REPEATS) {
+        addError("Appender [" + name + "] failed to append.", e);
+      }
+    } finally {
+      guard.set(Boolean.FALSE);
+    }
+  }
+
+  /**
+   * Returns the events of the list which are not denied by the filter chain.
+   * The list passed as parameter is returned as is if no event is denied.
+   */
+  private List<E> filterBatch(List<E> eventList) {
+    List<E> acceptedList = null;
+    int size = eventList.size();
+    for (int i = 0; i < size; i++) {
+      E eventObject = eventList.get(i);
+      if (getFilterChainDecision(eventObject) == FilterReply.DENY) {
+        if (acceptedList == null) {
+          acceptedList = new ArrayList<E>(eventList.subList(0, i));
+        }
+      } else if (acceptedList != null) {
+        acceptedList.add(eventObject);
+      }
+    }
+    return acceptedList == null ? eventList : acceptedList;
+  }
+
   abstract protected void append(E eventObject);
 
+  /**
+   * Append a batch of events which have already passed the filter chain. The
+   * default implementation invokes {@link #append} for each event. Derived
+   * classes able to process the batch as a whole should override this method.
+   *
+   * @param eventList
+   */
+  protected void appendBatch(List<E> eventList) {
+    for (E eventObject : eventList) {
+      try {
+        this.append(eventObject);
+      } catch (Exception e) {
+        if (exceptionCount++ < ALLOWED_REPEATS) {
+          addError("Appender [" + name + "] failed to append.", e);
+        }
+      }
+    }
+  }
+
   /**
    * Set the name of this appender.
    */
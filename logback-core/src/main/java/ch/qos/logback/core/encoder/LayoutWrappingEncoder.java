@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.util.List;
 
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.Layout;
@@ -137,6 +138,33 @@ public class LayoutWrappingEncoder<E> extends EncoderBase<E> {
       outputStream.flush();
   }
 
+  /**
+   * Encode the event into the given stream instead of the stream this encoder
+   * was initialized with. The stream is not flushed. This method may be
+   * called concurrently if the layout is thread-safe.
+   *
+   * @since 1.1.3
+   */
+  public void encodeTo(E event, OutputStream os) throws IOException {
+    String txt = layout.doLayout(event);
+    os.write(convertToBytes(txt));
+  }
+
+  /**
+   * Encode and write all events in the list. When immediateFlush is true, the
+   * underlying OutputStream is flushed once, after the last event.
+   *
+   * @since 1.1.3
+   */
+  public void doEncodeBatch(List<E> eventList) throws IOException {
+    for (E event : eventList) {
+      String txt = layout.doLayout(event);
+      outputStream.write(convertToBytes(txt));
+    }
+    if (immediateFlush)
+      outputStream.flush();
+  }
+
   public boolean isStarted() {
     return false;
   }
@@ -0,0 +1,146 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.encoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Converts the contents of a reusable {@link StringBuilder} into bytes of a
+ * given charset without creating intermediate Strings or byte arrays. The
+ * builder, the char buffer and the byte buffer are all kept between calls so
+ * that, once they have grown to the size of a typical message, encoding does
+ * not allocate.
+ * <p/>
+ * Malformed input and unmappable characters are replaced, which gives the same
+ * bytes as {@link String#getBytes(String)}.
+ * <p/>
+ * Instances are not thread-safe. Callers are expected to keep one instance per
+ * thread.
+ *
+ * @since 1.1.3
+ */
+public class StringBuilderEncoder {
+
+  static final int INITIAL_CAPACITY = 256;
+
+  /**
+   * Buffers which grew beyond this size while encoding an exceptionally large
+   * message are released rather than retained.
+   */
+  static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+  private final CharsetEncoder charsetEncoder;
+
+  private StringBuilder builder = new StringBuilder(INITIAL_CAPACITY);
+  private CharBuffer charBuffer = CharBuffer.allocate(INITIAL_CAPACITY);
+  private ByteBuffer byteBuffer;
+
+  /**
+   * @param charset the charset to encode to, the platform default if null
+   */
+  public StringBuilderEncoder(Charset charset) {
+    if (charset == null) {
+      charset = Charset.defaultCharset();
+    }
+    this.charsetEncoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.byteBuffer = ByteBuffer.allocate(byteCapacityFor(INITIAL_CAPACITY));
+  }
+
+  /**
+   * Returns the reusable builder, emptied.
+   */
+  public StringBuilder getBuilder() {
+    builder.setLength(0);
+    return builder;
+  }
+
+  /**
+   * Encode the current contents of the builder returned by
+   * {@link #getBuilder()} and write the resulting bytes to the given stream
+   * with a single call to {@link OutputStream#write(byte[], int, int)}.
+   */
+  public void encodeTo(OutputStream os) throws IOException {
+    int len = builder.length();
+    if (len == 0) {
+      return;
+    }
+    if (charBuffer.capacity() < len) {
+      charBuffer = CharBuffer.allocate(len);
+    }
+    builder.getChars(0, len, charBuffer.array(), 0);
+    charBuffer.position(0);
+    charBuffer.limit(len);
+
+    if (byteBuffer.capacity() < byteCapacityFor(len)) {
+      byteBuffer = ByteBuffer.allocate(byteCapacityFor(len));
+    }
+    byteBuffer.clear();
+    charsetEncoder.reset();
+    CoderResult cr = charsetEncoder.encode(charBuffer, byteBuffer, true);
+    while (cr.isOverflow()) {
+      growByteBuffer();
+      cr = charsetEncoder.encode(charBuffer, byteBuffer, true);
+    }
+    checkResult(cr);
+    cr = charsetEncoder.flush(byteBuffer);
+    while (cr.isOverflow()) {
+      growByteBuffer();
+      cr = charsetEncoder.flush(byteBuffer);
+    }
+    checkResult(cr);
+
+    os.write(byteBuffer.array(), 0, byteBuffer.position());
+    releaseOversizedBuffers();
+  }
+
+  private int byteCapacityFor(int charCount) {
+    return (int) Math.ceil(charCount * charsetEncoder.maxBytesPerChar());
+  }
+
+  private void growByteBuffer() {
+    ByteBuffer larger = ByteBuffer.allocate(byteBuffer.capacity() * 2);
+    byteBuffer.flip();
+    larger.put(byteBuffer);
+    byteBuffer = larger;
+  }
+
+  private void checkResult(CoderResult cr) throws CharacterCodingException {
+    // with REPLACE actions only underflow or overflow are expected
+    if (cr.isError()) {
+      cr.throwException();
+    }
+  }
+
+  private void releaseOversizedBuffers() {
+    if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+      builder = new StringBuilder(INITIAL_CAPACITY);
+    }
+    if (charBuffer.capacity() > MAX_RETAINED_CAPACITY) {
+      charBuffer = CharBuffer.allocate(INITIAL_CAPACITY);
+    }
+    if (byteBuffer.capacity() > byteCapacityFor(MAX_RETAINED_CAPACITY)) {
+      byteBuffer = ByteBuffer.allocate(byteCapacityFor(INITIAL_CAPACITY));
+    }
+  }
+}
@@ -35,6 +35,7 @@ import javax.net.SocketFactory;
 import ch.qos.logback.core.AppenderBase;
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.spi.PreSerializationTransformer;
+import ch.qos.logback.core.spi.Recyclable;
 import ch.qos.logback.core.util.CloseUtil;
 import ch.qos.logback.core.util.Duration;
 
@@ -160,6 +161,10 @@ public abstract class AbstractSocketAppender<E> extends AppenderBase<E>
   @Override
   protected void append(E event) {
     if (event == null || !isStarted()) return;
+    // the event is serialized after append returns
+    if (event instanceof Recyclable) {
+      ((Recyclable) event).retain();
+    }
 
     try {
       final boolean inserted = queue.offer(event, eventDelayLimit.getMilliseconds(), TimeUnit.MILLISECONDS);
@@ -42,6 +42,7 @@ import ch.qos.logback.core.pattern.PatternLayoutBase;
 import ch.qos.logback.core.sift.DefaultDiscriminator;
 import ch.qos.logback.core.sift.Discriminator;
 import ch.qos.logback.core.spi.CyclicBufferTracker;
+import ch.qos.logback.core.spi.Recyclable;
 import ch.qos.logback.core.util.ContentTypeUtil;
 import ch.qos.logback.core.util.OptionHelper;
 
@@ -206,6 +207,10 @@ public abstract class SMTPAppenderBase<E> extends AppenderBase<E> {
       return;
     }
 
+    // kept in a cyclic buffer until an e-mail is sent
+    if (eventObject instanceof Recyclable) {
+      ((Recyclable) eventObject).retain();
+    }
     String key = discriminator.getDiscriminatingValue(eventObject);
     long now = System.currentTimeMillis();
     final CyclicBuffer<E> cb = cbTracker.getOrCreate(key, now);
@@ -114,12 +114,34 @@ abstract public class PatternLayoutBase<E> extends LayoutBase<E> {
 
   protected String writeLoopOnConverters(E event) {
     StringBuilder buf = new StringBuilder(128);
+    writeLoopOnConverters(event, buf);
+    return buf.toString();
+  }
+
+  /**
+   * Append the output of every converter to the given buffer.
+   *
+   * @since 1.1.3
+   */
+  protected void writeLoopOnConverters(E event, StringBuilder buf) {
     Converter<E> c = head;
     while (c != null) {
       c.write(buf, event);
       c = c.getNext();
     }
-    return buf.toString();
+  }
+
+  /**
+   * May encoders skip {@link #doLayout(Object)} and write the output of the
+   * converters straight into their buffers, see
+   * {@link PatternLayoutEncoderBase}? Only layouts whose doLayout does
+   * nothing but {@link #writeLoopOnConverters(Object)} when started may
+   * return true. The base class returns false.
+   *
+   * @since 1.1.3
+   */
+  protected boolean supportsDirectEncoding() {
+    return false;
   }
 
   public String getPattern() {
@@ -13,13 +13,37 @@
  */
 package ch.qos.logback.core.pattern;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
 import ch.qos.logback.core.Layout;
 import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import ch.qos.logback.core.encoder.StringBuilderEncoder;
 
+/**
+ * Base class for encoders wrapping a {@link PatternLayoutBase}.
+ * <p/>
+ * Events are laid out into a per-thread StringBuilder which is then encoded
+ * into bytes through a reused {@link StringBuilderEncoder}, so that no
+ * intermediate String or byte array is created per event. Converters which
+ * only implement {@link Converter#convert(Object)} keep working unchanged, the
+ * String they return is appended to the builder.
+ * <p/>
+ * This direct path is only taken for layouts which declare that it is safe,
+ * see {@link PatternLayoutBase#supportsDirectEncoding()}. Other layouts,
+ * e.g. ones overriding doLayout to mask parts of the message, are encoded
+ * through doLayout.
+ */
 public class PatternLayoutEncoderBase<E> extends LayoutWrappingEncoder<E> {
 
   String pattern;
 
+  // null unless the layout is a PatternLayoutBase supporting direct
+  // encoding, set in start()
+  private ThreadLocal<StringBuilderEncoder> directEncoder;
+
   // due to popular demand outputPatternAsHeader is set to false by default
   protected boolean outputPatternAsHeader = false;
 
@@ -59,6 +83,71 @@ public class PatternLayoutEncoderBase<E> extends LayoutWrappingEncoder<E> {
     this.outputPatternAsHeader = outputPatternAsHeader;
   }
 
+  @Override
+  public void start() {
+    if (layout instanceof PatternLayoutBase && ((PatternLayoutBase<?>) layout).supportsDirectEncoding()) {
+      final Charset charset = getCharset();
+      directEncoder = new ThreadLocal<StringBuilderEncoder>() {
+        @Override
+        protected StringBuilderEncoder initialValue() {
+          return new StringBuilderEncoder(charset);
+        }
+      };
+    }
+    super.start();
+  }
+
+  @Override
+  public void doEncode(E event) throws IOException {
+    if (directEncoder == null) {
+      super.doEncode(event);
+      return;
+    }
+    StringBuilderEncoder sbe = directEncoder.get();
+    layoutTo(event, sbe.getBuilder());
+    sbe.encodeTo(outputStream);
+    if (isImmediateFlush())
+      outputStream.flush();
+  }
+
+  @Override
+  public void encodeTo(E event, OutputStream os) throws IOException {
+    if (directEncoder == null) {
+      super.encodeTo(event, os);
+      return;
+    }
+    StringBuilderEncoder sbe = directEncoder.get();
+    layoutTo(event, sbe.getBuilder());
+    sbe.encodeTo(os);
+  }
+
+  /**
+   * Lay out all events into the same builder and write them with a single
+   * call to the underlying OutputStream.
+   */
+  @Override
+  public void doEncodeBatch(List<E> eventList) throws IOException {
+    if (directEncoder == null) {
+      super.doEncodeBatch(eventList);
+      return;
+    }
+    StringBuilderEncoder sbe = directEncoder.get();
+    StringBuilder buf = sbe.getBuilder();
+    for (E event : eventList) {
+      layoutTo(event, buf);
+    }
+    sbe.encodeTo(outputStream);
+    if (isImmediateFlush())
+      outputStream.flush();
+  }
+
+  private void layoutTo(E event, StringBuilder buf) {
+    PatternLayoutBase<E> patternLayout = (PatternLayoutBase<E>) layout;
+    if (patternLayout.isStarted()) {
+      patternLayout.writeLoopOnConverters(event, buf);
+    }
+  }
+
   @Override
   public void setLayout(Layout<E> layout) {
     throw new UnsupportedOperationException("one cannot set the layout of "
@@ -15,6 +15,7 @@ package ch.qos.logback.core.read;
 
 import ch.qos.logback.core.AppenderBase;
 import ch.qos.logback.core.helpers.CyclicBuffer;
+import ch.qos.logback.core.spi.Recyclable;
 
 /**
  * CyclicBufferAppender stores events in a cyclic buffer of user-specified size. As the 
@@ -43,6 +44,9 @@ public class CyclicBufferAppender<E> extends AppenderBase<E> {
     if (!isStarted()) {
       return;
     }
+    if (eventObject instanceof Recyclable) {
+      ((Recyclable) eventObject).retain();
+    }
     cb.add(eventObject);
   }
 
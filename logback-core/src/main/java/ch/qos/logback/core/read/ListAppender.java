@@ -17,12 +17,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.spi.Recyclable;
 
 public class ListAppender<E> extends AppenderBase<E> {
 
   public List<E> list = new ArrayList<E>();
   
   protected void append(E e) {
+    if (e instanceof Recyclable) {
+      ((Recyclable) e).retain();
+    }
     list.add(e);
   }
 }
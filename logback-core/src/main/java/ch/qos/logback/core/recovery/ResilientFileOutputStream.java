@@ -16,31 +16,96 @@ package ch.qos.logback.core.recovery;
 import java.io.*;
 import java.nio.channels.FileChannel;
 
+import ch.qos.logback.core.util.ChannelOutputStream;
+import ch.qos.logback.core.util.FileOutputMode;
+import ch.qos.logback.core.util.MappedFileOutputStream;
+
 public class ResilientFileOutputStream extends ResilientOutputStreamBase {
 
+  static final int BUFFER_SIZE = 8192;
+
   private File file;
   private FileOutputStream fos;
+  private FileChannel channel;
+  private FileOutputMode outputMode = FileOutputMode.STREAM;
+  private long mappedRegionSize;
+  private long initialLength;
 
 
   public ResilientFileOutputStream(File file, boolean append)
       throws FileNotFoundException {
     this.file = file;
     fos = new FileOutputStream(file, append);
+    channel = fos.getChannel();
     this.os = new BufferedOutputStream(fos);
+    this.initialLength = file.length();
+    this.presumedClean = true;
+  }
+
+  /**
+   * @param mappedRegionSize size of the regions mapped in
+   *          {@link FileOutputMode#MAPPED MAPPED} mode, ignored otherwise
+   * @since 1.1.3
+   */
+  public ResilientFileOutputStream(File file, boolean append,
+      FileOutputMode outputMode, long mappedRegionSize) throws IOException {
+    this.file = file;
+    this.outputMode = outputMode;
+    this.mappedRegionSize = mappedRegionSize;
+    this.os = openOutputStream(append);
+    if (os instanceof MappedFileOutputStream) {
+      // the file extends beyond the data while mapped
+      this.initialLength = ((MappedFileOutputStream) os).getPosition();
+    } else {
+      this.initialLength = file.length();
+    }
     this.presumedClean = true;
   }
 
+  private OutputStream openOutputStream(boolean append) throws IOException {
+    switch (outputMode) {
+    case CHANNEL:
+      fos = new FileOutputStream(file, append);
+      channel = fos.getChannel();
+      return new ChannelOutputStream(channel, BUFFER_SIZE);
+    case MAPPED:
+      fos = null;
+      MappedFileOutputStream mfos = new MappedFileOutputStream(file, append,
+          mappedRegionSize);
+      channel = mfos.getChannel();
+      return mfos;
+    default:
+      fos = new FileOutputStream(file, append);
+      channel = fos.getChannel();
+      return new BufferedOutputStream(fos);
+    }
+  }
+
   public FileChannel getChannel() {
     if (os == null) {
       return null;
     }
-    return fos.getChannel();
+    return channel;
+  }
+
+  public FileOutputMode getOutputMode() {
+    return outputMode;
   }
 
   public File getFile() {
     return file;
   }
 
+  /**
+   * The length of the data present in the file when this stream was
+   * created, zero unless opened in append mode.
+   *
+   * @since 1.1.3
+   */
+  public long getInitialLength() {
+    return initialLength;
+  }
+
   @Override
   String getDescription() {
     return "file ["+file+"]";
@@ -49,8 +114,7 @@ public class ResilientFileOutputStream extends ResilientOutputStreamBase {
   @Override
   OutputStream openNewOutputStream() throws IOException {
     // see LOGBACK-765
-    fos = new FileOutputStream(file, true);
-    return new BufferedOutputStream(fos);
+    return openOutputStream(true);
   }
   
   @Override
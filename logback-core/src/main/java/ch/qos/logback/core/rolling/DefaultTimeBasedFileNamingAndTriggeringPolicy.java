@@ -37,17 +37,15 @@ public class DefaultTimeBasedFileNamingAndTriggeringPolicy<E> extends
 
   public boolean isTriggeringEvent(File activeFile, final E event) {
     long time = getCurrentTime();
-    if (time >= nextCheck) {
-      Date dateOfElapsedPeriod = dateInCurrentPeriod;
-      addInfo("Elapsed period: "+dateOfElapsedPeriod);
-      elapsedPeriodsFileName = tbrp.fileNamePatternWCS
-          .convert(dateOfElapsedPeriod);
-      setDateInCurrentPeriod(time);
-      computeNextCheck();
-      return true;
-    } else {
+    if (time < nextCheck) {
       return false;
     }
+    Date dateOfElapsedPeriod = dateInCurrentPeriod;
+    addInfo("Elapsed period: "+dateOfElapsedPeriod);
+    elapsedPeriodsFileName = getCurrentPeriodsFileNameWithoutCompressionSuffix();
+    setDateInCurrentPeriod(time);
+    computeNextCheck();
+    return true;
   }
 
   @Override
@@ -13,11 +13,26 @@
  */
 package ch.qos.logback.core.rolling;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.rolling.helper.*;
+import ch.qos.logback.core.util.CloseUtil;
+import ch.qos.logback.core.util.FileUtil;
 
 /**
  * When rolling over, <code>FixedWindowRollingPolicy</code> renames files
@@ -26,6 +41,16 @@ import ch.qos.logback.core.rolling.helper.*;
  * For more information about this policy, please refer to the online manual at
  * http://logback.qos.ch/manual/appenders.html#FixedWindowRollingPolicy
  * 
+ * <p>If <b>manifestFile</b> is set, archives keep their names instead. On
+ * rollover, the active file takes the name of the oldest archive, which is
+ * deleted, or of the lowest free index while the window is not full. Thus a
+ * rollover costs one deletion and one rename or compression, whatever the
+ * size of the window, and windows of up to 1000 archives are allowed. The
+ * order of the archives is recorded in the manifest file, one archive name
+ * per line, newest first. If the manifest does not match the archives
+ * present on start up, as after a crash, the order is rebuilt from the
+ * modification times of the archives.
+ * 
  * @author Ceki G&uuml;lc&uuml;
  */
 public class FixedWindowRollingPolicy extends RollingPolicyBase {
@@ -37,6 +62,10 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
   RenameUtil util = new RenameUtil();
   Compressor compressor;
 
+  String manifestFile;
+  // the archives in the window, newest first, if manifestFile is set
+  LinkedList<String> window;
+
   public static final String ZIP_ENTRY_DATE_PATTERN = "yyyy-MM-dd_HHmm";
 
   /**
@@ -44,6 +73,11 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
    */
   private static int MAX_WINDOW_SIZE = 20;
 
+  /**
+   * The window may be larger when archives are not renamed on rollover.
+   */
+  static final int MAX_WINDOW_SIZE_WITH_MANIFEST = 1000;
+
   public FixedWindowRollingPolicy() {
     minIndex = 1;
     maxIndex = 7;
@@ -80,7 +114,8 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
       maxIndex = minIndex;
     }
 
-    final int maxWindowSize = getMaxWindowSize();
+    final int maxWindowSize = manifestFile != null ? Math.max(getMaxWindowSize(),
+        MAX_WINDOW_SIZE_WITH_MANIFEST) : getMaxWindowSize();
     if ((maxIndex - minIndex) > maxWindowSize) {
       addWarn("Large window sizes are not allowed.");
       maxIndex = minIndex + maxWindowSize;
@@ -99,8 +134,11 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
       String zipEntryFileNamePatternStr = transformFileNamePatternFromInt2Date(fileNamePatternStr);
       zipEntryFileNamePattern = new FileNamePattern(zipEntryFileNamePatternStr, context);
     }
-    compressor = new Compressor(compressionMode);
-    compressor.setContext(this.context);
+    compressor = newCompressor();
+    if (manifestFile != null) {
+      window = readWindow();
+      addInfo("Will keep the names of archives, in the order recorded in [" + manifestFile + "]");
+    }
     super.start();
   }
 
@@ -120,6 +158,10 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
   }
 
   public void rollover() throws RolloverFailure {
+    if (window != null) {
+      rolloverKeepingNames();
+      return;
+    }
 
     // Inside this method it is guaranteed that the hereto active log file is
     // closed.
@@ -145,18 +187,129 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
       }
 
       // move active file name to min
-      switch (compressionMode) {
-      case NONE:
-        util.rename(getActiveFileName(), fileNamePattern
-            .convertInt(minIndex));
-        break;
-      case GZ:
-        compressor.compress(getActiveFileName(), fileNamePattern.convertInt(minIndex), null);
-        break;
-      case ZIP:
-        compressor.compress(getActiveFileName(), fileNamePattern.convertInt(minIndex), zipEntryFileNamePattern.convert(new Date()));
-        break;
+      archiveActiveFile(fileNamePattern.convertInt(minIndex));
+    }
+  }
+
+  private void archiveActiveFile(String archiveName) throws RolloverFailure {
+    switch (compressionMode) {
+    case NONE:
+      util.rename(getActiveFileName(), archiveName);
+      break;
+    case GZ:
+      if (isParentCompressingOnWrite()) {
+        util.rename(getActiveFileName(), archiveName);
+      } else {
+        compressor.compress(getActiveFileName(), archiveName, null);
+      }
+      break;
+    case ZIP:
+      compressor.compress(getActiveFileName(), archiveName, zipEntryFileNamePattern.convert(new Date()));
+      break;
+    }
+  }
+
+  /**
+   * Archive the active file under the name of the oldest archive, or of the
+   * lowest free index, then record the new order in the manifest.
+   */
+  void rolloverKeepingNames() throws RolloverFailure {
+    String archiveName = null;
+    if (window.size() <= maxIndex - minIndex) {
+      for (int i = minIndex; i <= maxIndex; i++) {
+        String name = fileNamePattern.convertInt(i);
+        if (!window.contains(name)) {
+          archiveName = name;
+          break;
+        }
+      }
+    }
+    if (archiveName == null) {
+      archiveName = window.removeLast();
+    }
+    File file = new File(archiveName);
+    if (file.exists()) {
+      file.delete();
+    }
+    archiveActiveFile(archiveName);
+    window.addFirst(archiveName);
+    writeManifest();
+  }
+
+  /**
+   * The archives in the window, newest first, as recorded in the manifest if
+   * it names exactly the archives present, or else by decreasing modification
+   * time.
+   */
+  LinkedList<String> readWindow() {
+    List<String> present = new ArrayList<String>();
+    for (int i = minIndex; i <= maxIndex; i++) {
+      String name = fileNamePattern.convertInt(i);
+      if (new File(name).exists()) {
+        present.add(name);
+      }
+    }
+    List<String> recorded = readManifest();
+    if (recorded != null && recorded.size() == present.size()
+        && new HashSet<String>(recorded).equals(new HashSet<String>(present))) {
+      return new LinkedList<String>(recorded);
+    }
+    // the sort is stable, so that a lower index comes first on equal times
+    Collections.sort(present, new Comparator<String>() {
+      public int compare(String a, String b) {
+        long aTime = new File(a).lastModified();
+        long bTime = new File(b).lastModified();
+        return aTime > bTime ? -1 : (aTime == bTime ? 0 : 1);
+      }
+    });
+    if (!present.isEmpty()) {
+      addInfo("Ordered " + present.size() + " archives by modification time, as ["
+          + manifestFile + "] does not match them");
+    }
+    window = new LinkedList<String>(present);
+    writeManifest();
+    return window;
+  }
+
+  private List<String> readManifest() {
+    File file = new File(manifestFile);
+    if (!file.isFile()) {
+      return null;
+    }
+    List<String> names = new ArrayList<String>();
+    BufferedReader reader = null;
+    try {
+      reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.length() > 0) {
+          names.add(line);
+        }
+      }
+      return names;
+    } catch (IOException e) {
+      addWarn("Failed to read [" + manifestFile + "]", e);
+      return null;
+    } finally {
+      CloseUtil.closeQuietly(reader);
+    }
+  }
+
+  private void writeManifest() {
+    Writer writer = null;
+    try {
+      FileUtil.createMissingParentDirectories(new File(manifestFile));
+      writer = new OutputStreamWriter(new FileOutputStream(manifestFile), "UTF-8");
+      for (String name : window) {
+        writer.write(name);
+        writer.write(CoreConstants.LINE_SEPARATOR);
       }
+      writer.close();
+      writer = null;
+    } catch (IOException e) {
+      addWarn("Failed to write [" + manifestFile + "]", e);
+    } finally {
+      CloseUtil.closeQuietly(writer);
     }
   }
 
@@ -182,4 +335,19 @@ public class FixedWindowRollingPolicy extends RollingPolicyBase {
   public void setMinIndex(int minIndex) {
     this.minIndex = minIndex;
   }
+
+  public String getManifestFile() {
+    return manifestFile;
+  }
+
+  /**
+   * The file recording the order of the archives. When set, archives are
+   * not renamed on rollover, see the class documentation.
+   *
+   * @param manifestFile
+   * @since 1.1.3
+   */
+  public void setManifestFile(String manifestFile) {
+    this.manifestFile = manifestFile;
+  }
 }
@@ -14,11 +14,18 @@
 package ch.qos.logback.core.rolling;
 
 import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import ch.qos.logback.core.recovery.ResilientFileOutputStream;
+import ch.qos.logback.core.rolling.helper.BlockGZIPOutputStream;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
 import ch.qos.logback.core.rolling.helper.FileNamePattern;
+import ch.qos.logback.core.util.FileSize;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
 
 import static ch.qos.logback.core.CoreConstants.CODES_URL;
 
@@ -29,6 +36,21 @@ import static ch.qos.logback.core.CoreConstants.CODES_URL;
  * <p/>
  * For more information about this appender, please refer to the online manual
  * at http://logback.qos.ch/manual/appenders.html#RollingFileAppender
+ * <p/>
+ * Other logging threads wait while a rollover is in progress. To keep that
+ * wait short, {@link TimeBasedRollingPolicy} can archive elapsed files in the
+ * background, see its <b>asyncRollover</b> property.
+ * <p/>
+ * When <b>compressOnWrite</b> is set, the active file is written in the GZ
+ * format directly, so that a rollover only needs to rename it. This requires
+ * a file name pattern ending with <code>.gz</code>. The file is compressed in
+ * blocks of <b>compressionBlockSize</b> bytes, see
+ * {@link BlockGZIPOutputStream}. The current block is written out when full,
+ * when the file is closed, or on every flush if the encoder flushes
+ * immediately. In the latter case each event ends up in a block of its own,
+ * which compresses poorly; set <b>immediateFlush</b> to false on the encoder
+ * to benefit from large blocks. After a crash, the file is cut back to its
+ * last complete block before logging resumes.
  *
  * @author Heinz Richter
  * @author Ceki G&uuml;lc&uuml;
@@ -42,6 +64,11 @@ public class RollingFileAppender<E> extends FileAppender<E> {
   static private String RFA_NO_RP_URL = CODES_URL + "#rfa_no_rp";
   static private String COLLISION_URL = CODES_URL + "#rfa_collision";
 
+  public static final String DEFAULT_COMPRESSION_BLOCK_SIZE = "256 KB";
+
+  boolean compressOnWrite = false;
+  FileSize compressionBlockSize = FileSize.valueOf(DEFAULT_COMPRESSION_BLOCK_SIZE);
+
   public void start() {
     if (triggeringPolicy == null) {
       addWarn("No TriggeringPolicy was set for the RollingFileAppender named "
@@ -81,6 +108,21 @@ public class RollingFileAppender<E> extends FileAppender<E> {
       }
     }
 
+    if (compressOnWrite && rollingPolicy.getCompressionMode() != CompressionMode.GZ) {
+      addError("The \"compressOnWrite\" property requires a file name pattern ending with .gz. Aborting");
+      return;
+    }
+
+    if (compressOnWrite && isEncoderFlushingImmediately()) {
+      addInfo("Each flush of the encoder ends a compressed block of [" + getFile()
+              + "]. Set immediateFlush to false for a better compression ratio.");
+    }
+
+    // when compressing on write, the size limit applies to the compressed file
+    if (triggeringPolicy instanceof SizeBasedTriggeringPolicy && !compressOnWrite) {
+      ((SizeBasedTriggeringPolicy<E>) triggeringPolicy).setParent(this);
+    }
+
     currentlyActiveFile = new File(getFile());
     addInfo("Active log file name: " + getFile());
     super.start();
@@ -99,6 +141,37 @@ public class RollingFileAppender<E> extends FileAppender<E> {
     return false;
   }
 
+  private boolean isEncoderFlushingImmediately() {
+    return encoder instanceof LayoutWrappingEncoder
+            && ((LayoutWrappingEncoder<E>) encoder).isImmediateFlush();
+  }
+
+  @Override
+  public void openFile(String file_name) throws IOException {
+    if (compressOnWrite && append) {
+      long removed = BlockGZIPOutputStream.truncateIncompleteTail(new File(file_name));
+      if (removed > 0) {
+        addWarn("Removed " + removed + " bytes of an incomplete compressed block at the end of ["
+                + file_name + "]");
+      }
+    }
+    super.openFile(file_name);
+  }
+
+  @Override
+  protected OutputStream decorateFileOutputStream(ResilientFileOutputStream resilientFos) {
+    OutputStream os = super.decorateFileOutputStream(resilientFos);
+    if (compressOnWrite) {
+      int level = Deflater.DEFAULT_COMPRESSION;
+      if (rollingPolicy instanceof RollingPolicyBase) {
+        level = ((RollingPolicyBase) rollingPolicy).getCompressionLevel();
+      }
+      os = new BlockGZIPOutputStream(os, level, (int) compressionBlockSize.getSize(),
+              isEncoderFlushingImmediately());
+    }
+    return os;
+  }
+
   @Override
   public void stop() {
     if (rollingPolicy != null) rollingPolicy.stop();
@@ -182,6 +255,59 @@ public class RollingFileAppender<E> extends FileAppender<E> {
     super.subAppend(event);
   }
 
+  /**
+   * The batch is written in slices so that the roll-over check still precedes
+   * the writing of each event.
+   */
+  @Override
+  protected void subAppendBatch(List<E> eventList) {
+    int sliceStart = 0;
+    int size = eventList.size();
+    for (int i = 0; i < size; i++) {
+      synchronized (triggeringPolicy) {
+        if (triggeringPolicy.isTriggeringEvent(currentlyActiveFile, eventList.get(i))) {
+          if (i > sliceStart) {
+            super.subAppendBatch(eventList.subList(sliceStart, i));
+          }
+          sliceStart = i;
+          rollover();
+        }
+      }
+    }
+    super.subAppendBatch(sliceStart == 0 ? eventList : eventList.subList(sliceStart, size));
+  }
+
+  public boolean isCompressOnWrite() {
+    return compressOnWrite;
+  }
+
+  /**
+   * Should the active file be compressed as it is written, instead of being
+   * compressed on rollover? Default is false.
+   *
+   * @param compressOnWrite
+   * @since 1.1.3
+   */
+  public void setCompressOnWrite(boolean compressOnWrite) {
+    this.compressOnWrite = compressOnWrite;
+  }
+
+  public FileSize getCompressionBlockSize() {
+    return compressionBlockSize;
+  }
+
+  /**
+   * The number of uncompressed bytes per compressed block when
+   * <b>compressOnWrite</b> is set. Smaller blocks lose less data on a crash at
+   * the cost of a lower compression ratio. Default is 256 KB.
+   *
+   * @param compressionBlockSize
+   * @since 1.1.3
+   */
+  public void setCompressionBlockSize(FileSize compressionBlockSize) {
+    this.compressionBlockSize = compressionBlockSize;
+  }
+
   public RollingPolicy getRollingPolicy() {
     return rollingPolicy;
   }
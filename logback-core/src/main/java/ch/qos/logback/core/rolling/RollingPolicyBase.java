@@ -13,20 +13,25 @@
  */
 package ch.qos.logback.core.rolling;
 
+import java.util.zip.Deflater;
+
 import ch.qos.logback.core.FileAppender;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
+import ch.qos.logback.core.rolling.helper.Compressor;
 import ch.qos.logback.core.rolling.helper.FileNamePattern;
 import ch.qos.logback.core.spi.ContextAwareBase;
 
 /**
  * Implements methods common to most, it not all, rolling policies. Currently
- * such methods are limited to a compression mode getter/setter.
+ * such methods are limited to compression related getters and setters.
  * 
  * @author Ceki G&uuml;lc&uuml;
  */
 public abstract class RollingPolicyBase extends ContextAwareBase implements
     RollingPolicy {
   protected CompressionMode compressionMode = CompressionMode.NONE;
+  int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+  int compressionThreads = 1;
 
   FileNamePattern fileNamePattern;
   // fileNamePatternStr is always slashified, see setter
@@ -70,6 +75,50 @@ public abstract class RollingPolicyBase extends ContextAwareBase implements
     return compressionMode;
   }
 
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  /**
+   * The level at which archives are compressed, from 0 (no compression) to 9
+   * (best compression). By default, the default level of the compression
+   * library is used.
+   *
+   * @param compressionLevel
+   * @since 1.1.3
+   */
+  public void setCompressionLevel(int compressionLevel) {
+    this.compressionLevel = compressionLevel;
+  }
+
+  public int getCompressionThreads() {
+    return compressionThreads;
+  }
+
+  /**
+   * The number of threads compressing a GZ archive. Default is 1. With more
+   * than one thread, the archive is made of several GZIP members, which
+   * standard tools read as a single file.
+   *
+   * @param compressionThreads
+   * @since 1.1.3
+   */
+  public void setCompressionThreads(int compressionThreads) {
+    this.compressionThreads = compressionThreads;
+  }
+
+  /**
+   * Create a compressor for the compression mode and the compression
+   * settings of this policy.
+   */
+  protected Compressor newCompressor() {
+    Compressor compressor = new Compressor(compressionMode);
+    compressor.setContext(context);
+    compressor.setCompressionLevel(compressionLevel);
+    compressor.setCompressionThreads(compressionThreads);
+    return compressor;
+  }
+
   public boolean isStarted() {
     return started;
   }
@@ -93,4 +142,30 @@ public abstract class RollingPolicyBase extends ContextAwareBase implements
   public String getParentsRawFileProperty() {
     return parent.rawFileProperty();
   }
+
+  /**
+   * The number of bytes the parent appender has written to the active file,
+   * including those present when it was opened, or -1 if the parent does not
+   * know. In prudent mode, other processes write to the same file. When
+   * compressing on write, the parent counts uncompressed bytes.
+   *
+   * @since 1.1.3
+   */
+  public long getParentsBytesWritten() {
+    if (parent == null || parent.isPrudent() || isParentCompressingOnWrite()) {
+      return -1;
+    }
+    return parent.getBytesWritten();
+  }
+
+  /**
+   * Is the active file already compressed by the parent appender, in which
+   * case rolling over only requires renaming it?
+   *
+   * @since 1.1.3
+   */
+  public boolean isParentCompressingOnWrite() {
+    return compressionMode == CompressionMode.GZ && parent instanceof RollingFileAppender
+        && ((RollingFileAppender) parent).isCompressOnWrite();
+  }
 }
@@ -14,22 +14,48 @@
 package ch.qos.logback.core.rolling;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.Date;
+import java.util.Properties;
 
 import ch.qos.logback.core.joran.spi.NoAutoStart;
 import ch.qos.logback.core.rolling.helper.ArchiveRemover;
 import ch.qos.logback.core.rolling.helper.CompressionMode;
 import ch.qos.logback.core.rolling.helper.FileFilterUtil;
 import ch.qos.logback.core.rolling.helper.SizeAndTimeBasedArchiveRemover;
+import ch.qos.logback.core.util.CloseUtil;
 import ch.qos.logback.core.util.FileSize;
 
+/**
+ * Rolls over by time and, within a period, whenever the active file reaches
+ * <b>maxFileSize</b>, in which case the <b>%i</b> token of the file name
+ * pattern is incremented.
+ * <p/>
+ * On start up the counter of the current period is normally found by listing
+ * the folder of the archives. If <b>counterStateFile</b> is set, the counter is
+ * saved into that file each time it changes and read back on start up. The
+ * saved value is trusted if it belongs to the current period and no archive
+ * exists yet for the next counter value, which costs one or two file status
+ * checks instead of a folder listing. Otherwise the folder is listed as usual.
+ * <p/>
+ * The size of the active file is the number of bytes written by the parent
+ * appender, see {@link ch.qos.logback.core.FileAppender#getBytesWritten()},
+ * except in prudent mode where the length of the file is checked every few
+ * events.
+ */
 @NoAutoStart
 public class SizeAndTimeBasedFNATP<E> extends
         TimeBasedFileNamingAndTriggeringPolicyBase<E> {
 
+  static final String FILE_NAME_KEY = "fileName";
+  static final String COUNTER_KEY = "counter";
+
   int currentPeriodsCounter = 0;
   FileSize maxFileSize;
   String maxFileSizeAsString;
+  String counterStateFile;
 
   @Override
   public void start() {
@@ -43,13 +69,84 @@ public class SizeAndTimeBasedFNATP<E> extends
     // we need to get the correct value of currentPeriodsCounter.
     // usually the value is 0, unless the appender or the application
     // is stopped and restarted within the same period
-    String regex = tbrp.fileNamePattern.toRegexForFixedDate(dateInCurrentPeriod);
-    String stemRegex = FileFilterUtil.afterLastSlash(regex);
+    if (!readSavedCounter()) {
+      String regex = tbrp.fileNamePattern.toRegexForFixedDate(dateInCurrentPeriod);
+      String stemRegex = FileFilterUtil.afterLastSlash(regex);
+      computeCurrentPeriodsHighestCounterValue(stemRegex);
+      saveCounter();
+    }
 
+    started = true;
+  }
 
-    computeCurrentPeriodsHighestCounterValue(stemRegex);
+  /**
+   * Set currentPeriodsCounter from the counter state file, if there is one
+   * and its content is still valid.
+   *
+   * @return true if currentPeriodsCounter was set
+   */
+  boolean readSavedCounter() {
+    if (counterStateFile == null) {
+      return false;
+    }
+    File stateFile = new File(counterStateFile);
+    if (!stateFile.isFile()) {
+      return false;
+    }
+    Properties state = new Properties();
+    int counter;
+    String fileName;
+    FileInputStream fis = null;
+    try {
+      fis = new FileInputStream(stateFile);
+      state.load(fis);
+      counter = Integer.parseInt(state.getProperty(COUNTER_KEY));
+      fileName = state.getProperty(FILE_NAME_KEY);
+    } catch (IOException e) {
+      addWarn("Failed to read [" + counterStateFile + "]", e);
+      return false;
+    } catch (NumberFormatException e) {
+      addWarn("Invalid counter in [" + counterStateFile + "]");
+      return false;
+    } finally {
+      CloseUtil.closeQuietly(fis);
+    }
+    // the name changes with the period and with the file name pattern
+    if (counter < 0 || !tbrp.fileNamePatternWCS.convertMultipleArguments(dateInCurrentPeriod, counter).equals(fileName)) {
+      return false;
+    }
+    // archives created by another configuration or by a crashed instance
+    // which could not update the state file
+    String next = tbrp.fileNamePatternWCS.convertMultipleArguments(dateInCurrentPeriod, counter + 1);
+    if (new File(next).exists()) {
+      return false;
+    }
+    if (tbrp.compressionMode != CompressionMode.NONE
+            && new File(getFileNameIncludingCompressionSuffix(dateInCurrentPeriod, counter + 1)).exists()) {
+      return false;
+    }
+    currentPeriodsCounter = counter;
+    addInfo("Resuming with counter " + counter + " as saved in [" + counterStateFile + "]");
+    return true;
+  }
 
-    started = true;
+  void saveCounter() {
+    if (counterStateFile == null) {
+      return;
+    }
+    Properties state = new Properties();
+    state.setProperty(FILE_NAME_KEY, getCurrentPeriodsFileNameWithoutCompressionSuffix());
+    state.setProperty(COUNTER_KEY, Integer.toString(currentPeriodsCounter));
+    FileOutputStream fos = null;
+    try {
+      fos = new FileOutputStream(counterStateFile);
+      state.store(fos, null);
+      fos.close();
+    } catch (IOException e) {
+      addWarn("Failed to save counter to [" + counterStateFile + "]", e);
+    } finally {
+      CloseUtil.closeQuietly(fos);
+    }
   }
 
   protected ArchiveRemover createArchiveRemover() {
@@ -71,7 +168,8 @@ public class SizeAndTimeBasedFNATP<E> extends
 
     // if parent raw file property is not null, then the next
     // counter is max  found counter+1
-    if (tbrp.getParentsRawFileProperty() != null || (tbrp.compressionMode != CompressionMode.NONE)) {
+    if (tbrp.getParentsRawFileProperty() != null
+            || (tbrp.compressionMode != CompressionMode.NONE && !tbrp.isParentCompressingOnWrite())) {
       // TODO test me
       currentPeriodsCounter++;
     }
@@ -94,30 +192,45 @@ public class SizeAndTimeBasedFNATP<E> extends
       currentPeriodsCounter = 0;
       setDateInCurrentPeriod(time);
       computeNextCheck();
+      saveCounter();
       return true;
     }
 
-    // for performance reasons, check for changes every 16,invocationMask invocations
-    if (((++invocationCounter) & invocationMask) != invocationMask) {
-      return false;
-    }
-    if (invocationMask < 0x0F) {
-      invocationMask = (invocationMask << 1) + 1;
-    }
-
-    if (activeFile.length() >= maxFileSize.getSize()) {
+    if (activeFileSize(activeFile) >= maxFileSize.getSize()) {
       elapsedPeriodsFileName = tbrp.fileNamePatternWCS
               .convertMultipleArguments(dateInCurrentPeriod, currentPeriodsCounter);
       currentPeriodsCounter++;
+      saveCounter();
       return true;
     }
 
     return false;
   }
 
+  /**
+   * The size of the active file as counted by the parent appender or, if it
+   * does not know, the length of the file checked from time to time. Returns
+   * -1 when the file was not checked.
+   */
+  private long activeFileSize(File activeFile) {
+    long bytesWritten = tbrp.getParentsBytesWritten();
+    if (bytesWritten >= 0) {
+      return bytesWritten;
+    }
+
+    // for performance reasons, check for changes every 16,invocationMask invocations
+    if (((++invocationCounter) & invocationMask) != invocationMask) {
+      return -1;
+    }
+    if (invocationMask < 0x0F) {
+      invocationMask = (invocationMask << 1) + 1;
+    }
+    return activeFile.length();
+  }
+
   private String getFileNameIncludingCompressionSuffix(Date date, int counter) {
     return tbrp.fileNamePattern.convertMultipleArguments(
-            dateInCurrentPeriod, counter);
+            date, counter);
   }
 
 
@@ -135,4 +248,19 @@ public class SizeAndTimeBasedFNATP<E> extends
     this.maxFileSizeAsString = maxFileSize;
     this.maxFileSize = FileSize.valueOf(maxFileSize);
   }
+
+  public String getCounterStateFile() {
+    return counterStateFile;
+  }
+
+  /**
+   * The file in which to save the counter of the current period, to avoid
+   * listing the archive folder on start up. Not set by default.
+   *
+   * @param counterStateFile
+   * @since 1.1.3
+   */
+  public void setCounterStateFile(String counterStateFile) {
+    this.counterStateFile = counterStateFile;
+  }
 }
@@ -15,6 +15,7 @@ package ch.qos.logback.core.rolling;
 
 import java.io.File;
 
+import ch.qos.logback.core.FileAppender;
 import ch.qos.logback.core.util.FileSize;
 import ch.qos.logback.core.util.InvocationGate;
 
@@ -22,6 +23,12 @@ import ch.qos.logback.core.util.InvocationGate;
  * SizeBasedTriggeringPolicy looks at size of the file being currently written
  * to. If it grows bigger than the specified size, the FileAppender using the
  * SizeBasedTriggeringPolicy rolls the file and creates a new one.
+ * <p/>
+ * The size is the number of bytes written by the parent appender, as
+ * reported by {@link FileAppender#getBytesWritten()}, so that every event is
+ * checked without querying the file system. Without a parent, in prudent
+ * mode or when the parent compresses on write, the length of the file is
+ * checked from time to time instead.
  * 
  * For more information about this policy, please refer to the online manual at
  * http://logback.qos.ch/manual/appenders.html#SizeBasedTriggeringPolicy
@@ -38,7 +45,7 @@ public class SizeBasedTriggeringPolicy<E> extends TriggeringPolicyBase<E> {
   public static final long DEFAULT_MAX_FILE_SIZE = 10 * 1024 * 1024; // 10 MB
 
   String maxFileSizeAsString = Long.toString(DEFAULT_MAX_FILE_SIZE);
-  FileSize maxFileSize;
+  FileSize maxFileSize = FileSize.valueOf(maxFileSizeAsString);
 
   public SizeBasedTriggeringPolicy() {
   }
@@ -49,8 +56,14 @@ public class SizeBasedTriggeringPolicy<E> extends TriggeringPolicyBase<E> {
 
   private InvocationGate invocationGate = new InvocationGate();
 
+  private FileAppender<?> parent;
+
   public boolean isTriggeringEvent(final File activeFile, final E event) {
-  if(invocationGate.skipFurtherWork())
+    if (parent != null && !parent.isPrudent()) {
+      return parent.getBytesWritten() >= maxFileSize.getSize();
+    }
+
+    if(invocationGate.skipFurtherWork())
       return false;
 
     long now = System.currentTimeMillis();
@@ -59,6 +72,15 @@ public class SizeBasedTriggeringPolicy<E> extends TriggeringPolicyBase<E> {
     return (activeFile.length() >= maxFileSize.getSize());
   }
 
+  /**
+   * The appender writing the file watched by this policy.
+   *
+   * @since 1.1.3
+   */
+  public void setParent(FileAppender<?> parent) {
+    this.parent = parent;
+  }
+
   public String getMaxFileSize() {
     return maxFileSizeAsString;
   }
@@ -15,6 +15,8 @@ package ch.qos.logback.core.rolling;
 
 import java.io.File;
 import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
 
 import ch.qos.logback.core.rolling.helper.ArchiveRemover;
 import ch.qos.logback.core.rolling.helper.DateTokenConverter;
@@ -32,8 +34,12 @@ abstract public class TimeBasedFileNamingAndTriggeringPolicyBase<E> extends
 
   protected long artificialCurrentTime = -1;
   protected Date dateInCurrentPeriod = null;
+  // the file name of the current period and the time it was computed for
+  private String currentPeriodsFileName;
+  private long currentPeriodsFileNameTime;
 
-  protected long nextCheck;
+  // read for every event, written once per period
+  protected volatile long nextCheck;
   protected boolean started = false;
 
   public boolean isStarted() {
@@ -48,7 +54,7 @@ abstract public class TimeBasedFileNamingAndTriggeringPolicyBase<E> extends
               + "] does not contain a valid DateToken");
     }
 
-    rc = new RollingCalendar();
+    rc = newRollingCalendar(dtc);
     rc.init(dtc.getDatePattern());
     addInfo("The date pattern is '" + dtc.getDatePattern()
             + "' from file name pattern '" + tbrp.fileNamePattern.getPattern()
@@ -71,8 +77,20 @@ abstract public class TimeBasedFileNamingAndTriggeringPolicyBase<E> extends
     started = false;
   }
 
+  /**
+   * A calendar in the time zone of the given date token, if any, so that
+   * periods start when the file name changes.
+   */
+  static RollingCalendar newRollingCalendar(DateTokenConverter dtc) {
+    TimeZone timeZone = dtc.getTimeZone();
+    if (timeZone == null) {
+      return new RollingCalendar();
+    }
+    return new RollingCalendar(timeZone, Locale.getDefault());
+  }
+
   protected void computeNextCheck() {
-    nextCheck = rc.getNextTriggeringMillis(dateInCurrentPeriod);
+    nextCheck = rc.getNextTriggeringMillis(dateInCurrentPeriod.getTime());
   }
 
   protected void setDateInCurrentPeriod(long now) {
@@ -90,7 +108,13 @@ abstract public class TimeBasedFileNamingAndTriggeringPolicyBase<E> extends
   }
 
   public String getCurrentPeriodsFileNameWithoutCompressionSuffix() {
-    return tbrp.fileNamePatternWCS.convert(dateInCurrentPeriod);
+    // computed once per period instead of on every rollover related call
+    long time = dateInCurrentPeriod.getTime();
+    if (currentPeriodsFileName == null || currentPeriodsFileNameTime != time) {
+      currentPeriodsFileName = tbrp.fileNamePatternWCS.convert(dateInCurrentPeriod);
+      currentPeriodsFileNameTime = time;
+    }
+    return currentPeriodsFileName;
   }
 
   public void setCurrentTime(long timeInMillis) {
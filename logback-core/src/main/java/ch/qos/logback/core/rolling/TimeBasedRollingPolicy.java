@@ -15,13 +15,13 @@ package ch.qos.logback.core.rolling;
 
 import java.io.File;
 import java.util.Date;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import ch.qos.logback.core.CoreConstants;
 import ch.qos.logback.core.rolling.helper.*;
+import ch.qos.logback.core.util.FileSize;
 
 /**
  * <code>TimeBasedRollingPolicy</code> is both easy to configure and quite
@@ -31,6 +31,28 @@ import ch.qos.logback.core.rolling.helper.*;
  * <p>For more information, please refer to the online manual at
  * http://logback.qos.ch/manual/appenders.html#TimeBasedRollingPolicy
  * 
+ * <p>When <b>asyncRollover</b> is set, the thread hitting the rollover only
+ * moves the active file out of the way, renaming it within its own directory
+ * if the <b>file</b> property is set, so that the appender can open the new
+ * file at once. Renaming to the final archive name, compression and removal of
+ * old archives are then performed in the background, one rollover at a time
+ * and in order. Their outcome is reported as status messages.
+ * 
+ * <p>Background work, including compression and the removal of old archives
+ * when <b>asyncRollover</b> is not set, runs on the {@link MaintenanceExecutor}
+ * shared by the context. It may be configured with a nested
+ * <b>maintenanceExecutor</b> element, to limit its threads or throttle its
+ * I/O. The first configuration found in a context applies to all of its
+ * rolling policies.
+ * 
+ * <p>When <b>totalSizeCap</b> is set, the oldest archives are removed as soon
+ * as the archives together take more space than the cap. Archives are then
+ * tracked by an {@link ArchiveCatalog} built with a single folder scan at
+ * start up, which also takes over the enforcement of <b>maxHistory</b>.
+ * Archiving is performed in the background as if <b>asyncRollover</b> were set
+ * whenever compression is enabled, so that the size of each archive is known
+ * once it is final.
+ * 
  * @author Ceki G&uuml;lc&uuml;
  */
 public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
@@ -52,6 +74,14 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
 
   boolean cleanHistoryOnStart = false;
 
+  boolean asyncRollover = false;
+  private MaintenanceExecutor maintenanceExecutor;
+  private MaintenanceExecutor.SerialQueue maintenanceQueue;
+
+  private FileSize totalSizeCap;
+  ArchiveCatalog archiveCatalog;
+  private RollingCalendar catalogCalendar;
+
   public void start() {
     // set the LR for our utility object
     renameUtil.setContext(this.context);
@@ -67,8 +97,7 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
           + CoreConstants.SEE_FNP_NOT_SET);
     }
 
-    compressor = new Compressor(compressionMode);
-    compressor.setContext(context);
+    compressor = newCompressor();
 
     // wcs : without compression suffix
     fileNamePatternWCS = new FileNamePattern(Compressor.computeFileNameStr_WCS(
@@ -89,18 +118,46 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
     timeBasedFileNamingAndTriggeringPolicy.setTimeBasedRollingPolicy(this);
     timeBasedFileNamingAndTriggeringPolicy.start();
 
+    maintenanceQueue = MaintenanceExecutor.getShared(context, maintenanceExecutor).newSerialQueue();
+
     // the maxHistory property is given to TimeBasedRollingPolicy instead of to
     // the TimeBasedFileNamingAndTriggeringPolicy. This makes it more convenient
     // for the user at the cost of inconsistency here.
-    if (maxHistory != INFINITE_HISTORY) {
+    if (totalSizeCap != null) {
+      archiveCatalog = new ArchiveCatalog(fileNamePattern);
+      archiveCatalog.setContext(context);
+      archiveCatalog.scan(getActiveFileName());
+      catalogCalendar = TimeBasedFileNamingAndTriggeringPolicyBase
+          .newRollingCalendar(fileNamePattern.getPrimaryDateTokenConverter());
+      catalogCalendar.init(fileNamePattern.getPrimaryDateTokenConverter().getDatePattern());
+      addInfo("Will keep archives within a total size of " + totalSizeCap);
+      if(cleanHistoryOnStart) {
+        addInfo("Cleaning on start up");
+        final Date now = new Date(timeBasedFileNamingAndTriggeringPolicy.getCurrentTime());
+        future = maintenanceQueue.submit(new Runnable() {
+          public void run() {
+            cleanArchives(now);
+          }
+        });
+      }
+    } else if (maxHistory != INFINITE_HISTORY) {
       archiveRemover = timeBasedFileNamingAndTriggeringPolicy.getArchiveRemover();
       archiveRemover.setMaxHistory(maxHistory);
       if(cleanHistoryOnStart) {
         addInfo("Cleaning on start up");
-        archiveRemover.clean(new Date(timeBasedFileNamingAndTriggeringPolicy.getCurrentTime()));
+        final Date now = new Date(timeBasedFileNamingAndTriggeringPolicy.getCurrentTime());
+        future = maintenanceQueue.submit(new Runnable() {
+          public void run() {
+            archiveRemover.clean(now);
+          }
+        });
       }
     }
 
+    if (isArchivingAsynchronously()) {
+      addInfo("Will archive rolled over files asynchronously");
+    }
+
     super.start();
   }
 
@@ -108,6 +165,9 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
   public void stop() {
     if(!isStarted())
       return;
+    // every job submitted earlier has completed, as jobs run in order. The
+    // queue is kept: a rollover racing with stop still submits to it, and its
+    // jobs run on the calling thread once the shared executor is stopped
     waitForAsynchronousJobToStop();
     super.stop();
   }
@@ -148,10 +208,15 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
 
     String elapsedPeriodStem = FileFilterUtil.afterLastSlash(elapsedPeriodsFileName);
 
-    if (compressionMode == CompressionMode.NONE) {
+    if (isArchivingAsynchronously()) {
+      asyncRollover(elapsedPeriodsFileName, elapsedPeriodStem);
+      return;
+    }
+
+    if (compressionMode == CompressionMode.NONE || isParentCompressingOnWrite()) {
       if (getParentsRawFileProperty() != null) {
-        renameUtil.rename(getParentsRawFileProperty(), elapsedPeriodsFileName);
-      } // else { nothing to do if CompressionMode == NONE and parentsRawFileProperty == null }
+        renameUtil.rename(getParentsRawFileProperty(), withCompressionSuffix(elapsedPeriodsFileName));
+      } // else { nothing to do if the active file already has its final name }
     } else {
       if (getParentsRawFileProperty() == null) {
         future = asyncCompress(elapsedPeriodsFileName, elapsedPeriodsFileName, elapsedPeriodStem);
@@ -160,15 +225,110 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
       }
     }
 
-    if (archiveRemover != null) {
-      archiveRemover.clean(new Date(timeBasedFileNamingAndTriggeringPolicy.getCurrentTime()));
+    if (archiveCatalog != null || archiveRemover != null) {
+      final String archivedFileName = withCompressionSuffix(elapsedPeriodsFileName);
+      final Date now = new Date(timeBasedFileNamingAndTriggeringPolicy.getCurrentTime());
+      future = maintenanceQueue.submit(new Runnable() {
+        public void run() {
+          removeOldArchives(archivedFileName, now);
+        }
+      });
     }
   }
 
+  /**
+   * Is the file of an elapsed period given its final name in the background?
+   */
+  boolean isArchivingAsynchronously() {
+    return asyncRollover || (archiveCatalog != null && compressionMode != CompressionMode.NONE);
+  }
+
+  private void asyncRollover(final String elapsedPeriodsFileName,
+      final String elapsedPeriodStem) throws RolloverFailure {
+    final String nameOfFile2Archive;
+    String parentsRawFile = getParentsRawFileProperty();
+    if (parentsRawFile != null) {
+      // cheap, and frees the name of the active file
+      nameOfFile2Archive = parentsRawFile + System.nanoTime() + ".tmp";
+      renameUtil.rename(parentsRawFile, nameOfFile2Archive);
+    } else if (isParentCompressingOnWrite()) {
+      nameOfFile2Archive = withCompressionSuffix(elapsedPeriodsFileName);
+    } else {
+      nameOfFile2Archive = elapsedPeriodsFileName;
+    }
+    final Date now = new Date(timeBasedFileNamingAndTriggeringPolicy.getCurrentTime());
+    future = maintenanceQueue.submit(new Runnable() {
+      public void run() {
+        archive(nameOfFile2Archive, elapsedPeriodsFileName, elapsedPeriodStem, now);
+      }
+    });
+  }
+
+  /**
+   * Give the file of an elapsed period its final name, compressing it if
+   * required, then remove old archives. Invoked by the maintenance executor.
+   */
+  void archive(String nameOfFile2Archive, String elapsedPeriodsFileName,
+      String elapsedPeriodStem, Date now) {
+    long start = System.currentTimeMillis();
+    try {
+      if (compressionMode != CompressionMode.NONE && !isParentCompressingOnWrite()) {
+        compressor.compress(nameOfFile2Archive, elapsedPeriodsFileName, elapsedPeriodStem);
+      } else if (!nameOfFile2Archive.equals(withCompressionSuffix(elapsedPeriodsFileName))) {
+        renameUtil.rename(nameOfFile2Archive, withCompressionSuffix(elapsedPeriodsFileName));
+      }
+    } catch (RolloverFailure rf) {
+      addError("Failed to archive [" + nameOfFile2Archive + "] as ["
+          + elapsedPeriodsFileName + "]", rf);
+    }
+    removeOldArchives(withCompressionSuffix(elapsedPeriodsFileName), now);
+    addInfo("Archived [" + elapsedPeriodsFileName + "] in "
+        + (System.currentTimeMillis() - start) + " ms");
+  }
+
+  /**
+   * Append the suffix of the compression mode to a file name computed without
+   * it, as for the file of the elapsed period.
+   */
+  String withCompressionSuffix(String fileName) {
+    switch (compressionMode) {
+    case GZ:
+      return fileName + ".gz";
+    case ZIP:
+      return fileName + ".zip";
+    default:
+      return fileName;
+    }
+  }
+
+  /**
+   * Record the new archive, if archives are cataloged, then remove old
+   * archives.
+   */
+  void removeOldArchives(String archivedFileName, Date now) {
+    if (archiveCatalog != null) {
+      archiveCatalog.add(archivedFileName);
+      cleanArchives(now);
+    } else if (archiveRemover != null) {
+      archiveRemover.clean(now);
+    }
+  }
+
+  /**
+   * Remove archives beyond maxHistory, then the oldest archives exceeding
+   * totalSizeCap, by way of the archive catalog.
+   */
+  void cleanArchives(Date now) {
+    if (maxHistory != INFINITE_HISTORY) {
+      archiveCatalog.removeOlderThan(catalogCalendar.getRelativeDate(now, -maxHistory));
+    }
+    archiveCatalog.capTotalSize(totalSizeCap.getSize());
+  }
+
   Future asyncCompress(String nameOfFile2Compress, String nameOfCompressedFile, String innerEntryName)
       throws RolloverFailure {
-    AsynchronousCompressor ac = new AsynchronousCompressor(compressor);
-    return ac.compressAsynchronously(nameOfFile2Compress, nameOfCompressedFile, innerEntryName);
+    return maintenanceQueue.submit(new CompressionRunnable(compressor, nameOfFile2Compress,
+        nameOfCompressedFile, innerEntryName));
   }
 
   Future renamedRawAndAsyncCompress(String nameOfCompressedFile, String innerEntryName)
@@ -203,6 +363,9 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
     String parentsRawFileProperty = getParentsRawFileProperty();
     if (parentsRawFileProperty != null) {
       return parentsRawFileProperty;
+    } else if (isParentCompressingOnWrite()) {
+      return withCompressionSuffix(timeBasedFileNamingAndTriggeringPolicy
+          .getCurrentPeriodsFileNameWithoutCompressionSuffix());
     } else {
       return timeBasedFileNamingAndTriggeringPolicy
           .getCurrentPeriodsFileNameWithoutCompressionSuffix();
@@ -247,6 +410,50 @@ public class TimeBasedRollingPolicy<E> extends RollingPolicyBase implements
   }
 
 
+  public boolean isAsyncRollover() {
+    return asyncRollover;
+  }
+
+  /**
+   * Should archiving be performed by a background thread? Default is false.
+   *
+   * @param asyncRollover
+   * @since 1.1.3
+   */
+  public void setAsyncRollover(boolean asyncRollover) {
+    this.asyncRollover = asyncRollover;
+  }
+
+  public MaintenanceExecutor getMaintenanceExecutor() {
+    return maintenanceExecutor;
+  }
+
+  /**
+   * Configure the executor maintaining archives in the background, unless
+   * the context already has one.
+   *
+   * @param maintenanceExecutor
+   * @since 1.1.3
+   */
+  public void setMaintenanceExecutor(MaintenanceExecutor maintenanceExecutor) {
+    this.maintenanceExecutor = maintenanceExecutor;
+  }
+
+  public FileSize getTotalSizeCap() {
+    return totalSizeCap;
+  }
+
+  /**
+   * Set the maximum total size of all archives. When exceeded, the oldest
+   * archives are deleted. Not set by default.
+   *
+   * @param totalSizeCap
+   * @since 1.1.3
+   */
+  public void setTotalSizeCap(FileSize totalSizeCap) {
+    this.totalSizeCap = totalSizeCap;
+  }
+
   @Override
   public String toString() {
     return "c.q.l.core.rolling.TimeBasedRollingPolicy";
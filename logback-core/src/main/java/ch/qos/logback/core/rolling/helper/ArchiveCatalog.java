@@ -0,0 +1,281 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.File;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ch.qos.logback.core.pattern.Converter;
+import ch.qos.logback.core.pattern.LiteralConverter;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+/**
+ * An in-memory list of the archives matching a {@link FileNamePattern},
+ * ordered from oldest to newest, together with their total size.
+ * <p/>
+ * The catalog is filled by a single walk of the archive folders in
+ * {@link #scan(String)} and then kept up to date by calling
+ * {@link #add(String)} for every new archive. Removing old archives, whether
+ * to honor a maximum history or a total size cap, thus costs as many file
+ * deletions as there are archives to remove, without listing any folder.
+ * <p/>
+ * Archives removed by other means than this catalog are noticed only when the
+ * catalog gets to them, their size being counted until then.
+ *
+ * @since 1.1.3
+ */
+public class ArchiveCatalog extends ContextAwareBase {
+
+  static class Entry implements Comparable<Entry> {
+    final String path;
+    final long period;
+    final int index;
+    final long size;
+
+    Entry(String path, long period, int index, long size) {
+      this.path = path;
+      this.period = period;
+      this.index = index;
+      this.size = size;
+    }
+
+    public int compareTo(Entry o) {
+      if (period != o.period) {
+        return period < o.period ? -1 : 1;
+      }
+      if (index != o.index) {
+        return index < o.index ? -1 : 1;
+      }
+      return path.compareTo(o.path);
+    }
+  }
+
+  final FileNamePattern fileNamePattern;
+  final boolean parentClean;
+  final Pattern archiveRegex;
+  final int dateGroup;
+  // zero if the pattern has no %i token
+  final int indexGroup;
+  final SimpleDateFormat periodFormat;
+  // the part of the pattern preceding the first folder with variable name
+  final String baseFolder;
+  // number of path segments after baseFolder
+  final int depth;
+
+  final TreeSet<Entry> entries = new TreeSet<Entry>();
+  long totalSize = 0;
+
+  public ArchiveCatalog(FileNamePattern fileNamePattern) {
+    this.fileNamePattern = fileNamePattern;
+    DateTokenConverter dtc = fileNamePattern.getPrimaryDateTokenConverter();
+    if (dtc == null) {
+      throw new IllegalStateException("FileNamePattern [" + fileNamePattern.getPattern()
+          + "] does not contain a valid DateToken");
+    }
+    periodFormat = new SimpleDateFormat(dtc.getDatePattern());
+    if (dtc.getTimeZone() != null) {
+      periodFormat.setTimeZone(dtc.getTimeZone());
+    }
+
+    StringBuilder regex = new StringBuilder();
+    StringBuilder literalPrefix = new StringBuilder();
+    boolean variablePartSeen = false;
+    int groupCount = 0;
+    int dateGroup = 0;
+    int indexGroup = 0;
+    Converter<Object> p = fileNamePattern.headTokenConverter;
+    while (p != null) {
+      if (p instanceof LiteralConverter) {
+        String literal = p.convert(null);
+        regex.append(Pattern.quote(literal));
+        if (!variablePartSeen) {
+          literalPrefix.append(literal);
+        }
+      } else {
+        variablePartSeen = true;
+        if (p instanceof IntegerTokenConverter) {
+          regex.append("(\\d{1,9})");
+          indexGroup = ++groupCount;
+        } else if (p instanceof DateTokenConverter) {
+          DateTokenConverter aDtc = (DateTokenConverter) p;
+          String dateRegex = aDtc.toRegex();
+          regex.append('(').append(dateRegex).append(')');
+          groupCount++;
+          if (aDtc == dtc) {
+            dateGroup = groupCount;
+          }
+          groupCount += Pattern.compile(dateRegex).matcher("").groupCount();
+        }
+      }
+      p = p.getNext();
+    }
+    this.archiveRegex = Pattern.compile(regex.toString());
+    this.dateGroup = dateGroup;
+    this.indexGroup = indexGroup;
+
+    String prefix = literalPrefix.toString();
+    this.baseFolder = prefix.substring(0, prefix.lastIndexOf('/') + 1);
+    // count the folders of an actual archive name, since a date pattern may
+    // contain slashes
+    String sample = fileNamePattern.convertMultipleArguments(new Date(), 0);
+    int slashes = 0;
+    for (int i = baseFolder.length(); i < sample.length(); i++) {
+      if (sample.charAt(i) == '/') {
+        slashes++;
+      }
+    }
+    this.depth = slashes + 1;
+    this.parentClean = slashes > 0;
+  }
+
+  /**
+   * Fill the catalog with the archives present on disk, skipping the file
+   * named <code>activeFileName</code>, if any.
+   */
+  public synchronized void scan(String activeFileName) {
+    entries.clear();
+    totalSize = 0;
+    File folder = new File(baseFolder.length() == 0 ? "." : baseFolder);
+    String active = activeFileName == null ? null : FileFilterUtil.slashify(activeFileName);
+    walk(folder, baseFolder, depth, active);
+    addInfo("Found " + entries.size() + " archive(s) totaling " + totalSize
+        + " bytes for pattern [" + fileNamePattern + "]");
+  }
+
+  private void walk(File folder, String pathPrefix, int remainingDepth, String active) {
+    File[] children = folder.listFiles();
+    if (children == null) {
+      return;
+    }
+    for (File child : children) {
+      String path = pathPrefix + child.getName();
+      if (remainingDepth > 1) {
+        if (child.isDirectory()) {
+          walk(child, path + '/', remainingDepth - 1, active);
+        }
+      } else if (!path.equals(active) && child.isFile()) {
+        Entry entry = toEntry(path, child.length());
+        if (entry != null) {
+          put(entry);
+        }
+      }
+    }
+  }
+
+  /**
+   * Record the archive just created under the given name.
+   */
+  public synchronized void add(String archiveName) {
+    File file = new File(archiveName);
+    if (!file.isFile()) {
+      return;
+    }
+    Entry entry = toEntry(FileFilterUtil.slashify(archiveName), file.length());
+    if (entry == null) {
+      addWarn("[" + archiveName + "] does not match the pattern [" + fileNamePattern + "]");
+      return;
+    }
+    put(entry);
+  }
+
+  /**
+   * Delete the archives of periods starting before the period containing
+   * <code>date</code>.
+   */
+  public synchronized void removeOlderThan(Date date) {
+    long periodStart = parsePeriod(periodFormat.format(date));
+    Iterator<Entry> it = entries.iterator();
+    while (it.hasNext()) {
+      Entry oldest = it.next();
+      if (oldest.period >= periodStart) {
+        break;
+      }
+      it.remove();
+      delete(oldest);
+    }
+  }
+
+  /**
+   * Delete the oldest archives until their total size is no larger than
+   * <code>totalSizeCap</code>.
+   */
+  public synchronized void capTotalSize(long totalSizeCap) {
+    Iterator<Entry> it = entries.iterator();
+    while (totalSize > totalSizeCap && it.hasNext()) {
+      Entry oldest = it.next();
+      it.remove();
+      addInfo("Deleting [" + oldest.path + "] of size " + oldest.size
+          + " to stay within the total size cap of " + totalSizeCap);
+      delete(oldest);
+    }
+  }
+
+  public synchronized long getTotalSize() {
+    return totalSize;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  private void put(Entry entry) {
+    // the same name always gives the same period and index
+    Entry previous = entries.ceiling(entry);
+    if (previous != null && previous.compareTo(entry) == 0) {
+      entries.remove(previous);
+      totalSize -= previous.size;
+    }
+    entries.add(entry);
+    totalSize += entry.size;
+  }
+
+  private void delete(Entry entry) {
+    totalSize -= entry.size;
+    File file = new File(entry.path);
+    MaintenanceExecutor.throttleDeletes(1);
+    if (file.delete()) {
+      addInfo("deleting " + file);
+      if (parentClean) {
+        FileFilterUtil.removeEmptyParentDirectories(file, 0);
+      }
+    }
+  }
+
+  Entry toEntry(String path, long size) {
+    Matcher m = archiveRegex.matcher(path);
+    if (!m.matches()) {
+      return null;
+    }
+    long period = parsePeriod(m.group(dateGroup));
+    if (period < 0) {
+      return null;
+    }
+    int index = indexGroup == 0 ? 0 : Integer.parseInt(m.group(indexGroup));
+    return new Entry(path, period, index, size);
+  }
+
+  private long parsePeriod(String formattedDate) {
+    try {
+      return periodFormat.parse(formattedDate).getTime();
+    } catch (ParseException e) {
+      return -1;
+    }
+  }
+}
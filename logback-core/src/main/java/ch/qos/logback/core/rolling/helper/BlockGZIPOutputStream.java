@@ -0,0 +1,240 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses its input in the GZIP format as a sequence of self-contained
+ * blocks, each block being a complete GZIP member holding up to
+ * <code>blockSize</code> uncompressed bytes.
+ * <p/>
+ * The header of every member carries its total length in an extra field, in
+ * the spirit of the BGZF format. Each member is written with a single call to
+ * the underlying stream, once complete. Thus, if the process dies, the file
+ * consists of complete members possibly followed by part of one member;
+ * {@link #truncateIncompleteTail(File)} finds the end of the last complete
+ * member by reading one header per member, without decompressing anything.
+ * The result reads as an ordinary .gz file with <code>gunzip</code> or
+ * {@link java.util.zip.GZIPInputStream}.
+ * <p/>
+ * Bytes of the current block only reach the underlying stream when the block
+ * is full or the stream is closed, unless <code>flushEndsBlock</code> is set,
+ * in which case {@link #flush()} ends the current block as well. Frequent
+ * small blocks hurt the compression ratio, but nothing that was flushed stays
+ * in memory.
+ * <p/>
+ * This class is not thread-safe.
+ *
+ * @since 1.1.3
+ */
+public class BlockGZIPOutputStream extends OutputStream {
+
+  static final int HEADER_LENGTH = 20;
+  static final int TRAILER_LENGTH = 8;
+  static final byte SUBFIELD_ID1 = 'L';
+  static final byte SUBFIELD_ID2 = 'B';
+
+  final OutputStream out;
+  final Deflater deflater;
+  final CRC32 crc = new CRC32();
+  final int blockSize;
+  final boolean flushEndsBlock;
+
+  final byte[] block;
+  int count = 0;
+  // header, compressed data and trailer of the current member
+  byte[] member;
+  boolean memberWritten = false;
+  boolean closed = false;
+
+  public BlockGZIPOutputStream(OutputStream out, int level, int blockSize) {
+    this(out, level, blockSize, false);
+  }
+
+  public BlockGZIPOutputStream(OutputStream out, int level, int blockSize, boolean flushEndsBlock) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("blockSize must be positive");
+    }
+    this.out = out;
+    this.deflater = new Deflater(level, true);
+    this.blockSize = blockSize;
+    this.flushEndsBlock = flushEndsBlock;
+    this.block = new byte[blockSize];
+    this.member = new byte[HEADER_LENGTH + blockSize / 2 + TRAILER_LENGTH];
+  }
+
+  public void write(int b) throws IOException {
+    block[count++] = (byte) b;
+    if (count == blockSize) {
+      writeMember();
+    }
+  }
+
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      int n = Math.min(len, blockSize - count);
+      System.arraycopy(b, off, block, count, n);
+      count += n;
+      off += n;
+      len -= n;
+      if (count == blockSize) {
+        writeMember();
+      }
+    }
+  }
+
+  private void writeMember() throws IOException {
+    deflater.reset();
+    deflater.setInput(block, 0, count);
+    deflater.finish();
+    int length = HEADER_LENGTH;
+    while (!deflater.finished()) {
+      if (length == member.length - TRAILER_LENGTH) {
+        byte[] larger = new byte[member.length * 2];
+        System.arraycopy(member, 0, larger, 0, length);
+        member = larger;
+      }
+      length += deflater.deflate(member, length, member.length - TRAILER_LENGTH - length);
+    }
+    crc.reset();
+    crc.update(block, 0, count);
+    writeIntLE(member, length, (int) crc.getValue());
+    writeIntLE(member, length + 4, count);
+    length += TRAILER_LENGTH;
+    writeHeader(member, length);
+    out.write(member, 0, length);
+    memberWritten = true;
+    count = 0;
+  }
+
+  static void writeHeader(byte[] b, int memberLength) {
+    b[0] = 0x1f;
+    b[1] = (byte) 0x8b;
+    // deflate
+    b[2] = 8;
+    // FEXTRA
+    b[3] = 4;
+    // no modification time
+    writeIntLE(b, 4, 0);
+    b[8] = 0;
+    // unknown OS
+    b[9] = (byte) 0xff;
+    // XLEN
+    b[10] = 8;
+    b[11] = 0;
+    b[12] = SUBFIELD_ID1;
+    b[13] = SUBFIELD_ID2;
+    // SLEN
+    b[14] = 4;
+    b[15] = 0;
+    writeIntLE(b, 16, memberLength);
+  }
+
+  static void writeIntLE(byte[] b, int off, int value) {
+    b[off] = (byte) value;
+    b[off + 1] = (byte) (value >> 8);
+    b[off + 2] = (byte) (value >> 16);
+    b[off + 3] = (byte) (value >> 24);
+  }
+
+  static int readIntLE(byte[] b, int off) {
+    return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16
+        | (b[off + 3] & 0xff) << 24;
+  }
+
+  /**
+   * Flushes the underlying stream. The current block is ended beforehand only
+   * if <code>flushEndsBlock</code> is set and the block is not empty.
+   */
+  public void flush() throws IOException {
+    if (flushEndsBlock && count > 0) {
+      writeMember();
+    }
+    out.flush();
+  }
+
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      // an empty input still needs one member to be a valid .gz file
+      if (count > 0 || !memberWritten) {
+        writeMember();
+      }
+    } finally {
+      deflater.end();
+      out.close();
+    }
+  }
+
+  /**
+   * Truncate a file written by this class after the last complete member, if
+   * it ends with an incomplete one. Files which do not start with a member
+   * written by this class are left untouched.
+   *
+   * @return the number of bytes removed
+   */
+  public static long truncateIncompleteTail(File file) throws IOException {
+    if (!file.isFile()) {
+      return 0;
+    }
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      long length = raf.length();
+      long end = findEndOfCompleteMembers(raf, length);
+      if (end < length) {
+        raf.setLength(end);
+      }
+      return length - end;
+    } finally {
+      raf.close();
+    }
+  }
+
+  static long findEndOfCompleteMembers(RandomAccessFile raf, long length) throws IOException {
+    byte[] header = new byte[HEADER_LENGTH];
+    long position = 0;
+    while (position < length) {
+      if (length - position < HEADER_LENGTH) {
+        return position;
+      }
+      raf.seek(position);
+      raf.readFully(header);
+      if (!isMemberHeader(header)) {
+        // written by someone else, better leave it alone
+        return position == 0 ? length : position;
+      }
+      long memberLength = readIntLE(header, 16) & 0xffffffffL;
+      if (memberLength < HEADER_LENGTH + TRAILER_LENGTH || position + memberLength > length) {
+        return position;
+      }
+      position += memberLength;
+    }
+    return position;
+  }
+
+  static boolean isMemberHeader(byte[] b) {
+    return b[0] == 0x1f && b[1] == (byte) 0x8b && b[2] == 8 && b[3] == 4 && b[10] == 8
+        && b[11] == 0 && b[12] == SUBFIELD_ID1 && b[13] == SUBFIELD_ID2 && b[14] == 4
+        && b[15] == 0;
+  }
+}
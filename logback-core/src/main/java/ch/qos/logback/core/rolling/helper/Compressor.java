@@ -18,7 +18,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.zip.GZIPOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -26,11 +28,16 @@ import ch.qos.logback.core.rolling.RolloverFailure;
 import ch.qos.logback.core.spi.ContextAwareBase;
 import ch.qos.logback.core.status.ErrorStatus;
 import ch.qos.logback.core.status.WarnStatus;
+import ch.qos.logback.core.util.ExecutorServiceUtil;
 import ch.qos.logback.core.util.FileUtil;
 
 /**
  * The <code>Compression</code> class implements ZIP and GZ file
  * compression/decompression methods.
+ * <p/>
+ * The compression level can be set for both formats. GZ compression can also
+ * be spread over several threads, see {@link ParallelGZIPOutputStream}. The
+ * throughput achieved is reported as a status message after each compression.
  *
  * @author Ceki G&uuml;lc&uuml;
  */
@@ -39,11 +46,46 @@ public class Compressor extends ContextAwareBase {
   final CompressionMode compressionMode;
 
   static final int BUFFER_SIZE = 8192;
+  static final int PARALLEL_BLOCK_SIZE = 1024 * 1024;
+
+  int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+  int compressionThreads = 1;
+  int parallelBlockSize = PARALLEL_BLOCK_SIZE;
 
   public Compressor(CompressionMode compressionMode) {
     this.compressionMode = compressionMode;
   }
 
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  /**
+   * @param compressionLevel from 0 (no compression) to 9 (best compression),
+   *                         or -1 for the default level
+   * @since 1.1.3
+   */
+  public void setCompressionLevel(int compressionLevel) {
+    if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+      addWarn("Compression level " + compressionLevel + " is out of range, using the default level");
+      compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    }
+    this.compressionLevel = compressionLevel;
+  }
+
+  public int getCompressionThreads() {
+    return compressionThreads;
+  }
+
+  /**
+   * @param compressionThreads the number of threads compressing a GZ archive,
+   *                           1 by default
+   * @since 1.1.3
+   */
+  public void setCompressionThreads(int compressionThreads) {
+    this.compressionThreads = Math.max(1, compressionThreads);
+  }
+
   /**
    * @param nameOfFile2Compress
    * @param nameOfCompressedFile
@@ -99,6 +141,8 @@ public class Compressor extends ContextAwareBase {
     try {
       bis = new BufferedInputStream(new FileInputStream(nameOfFile2zip));
       zos = new ZipOutputStream(new FileOutputStream(nameOfZippedFile));
+      zos.setLevel(compressionLevel);
+      long start = System.currentTimeMillis();
 
       ZipEntry zipEntry = computeZipEntry(innerEntryName);
       zos.putNextEntry(zipEntry);
@@ -107,6 +151,7 @@ public class Compressor extends ContextAwareBase {
       int n;
 
       while ((n = bis.read(inbuf)) != -1) {
+        MaintenanceExecutor.throttleBytes(n);
         zos.write(inbuf, 0, n);
       }
 
@@ -114,6 +159,7 @@ public class Compressor extends ContextAwareBase {
       bis = null;
       zos.close();
       zos = null;
+      reportThroughput(file2zip, zippedFile, start);
 
       if (!file2zip.delete()) {
         addStatus(new WarnStatus("Could not delete [" + nameOfFile2zip + "].",
@@ -194,14 +240,24 @@ public class Compressor extends ContextAwareBase {
     createMissingTargetDirsIfNecessary(gzedFile);
 
     BufferedInputStream bis = null;
-    GZIPOutputStream gzos = null;
+    OutputStream gzos = null;
+    ExecutorService executor = null;
     try {
+      long start = System.currentTimeMillis();
       bis = new BufferedInputStream(new FileInputStream(nameOfFile2gz));
-      gzos = new GZIPOutputStream(new FileOutputStream(nameOfgzedFile));
+      FileOutputStream fos = new FileOutputStream(nameOfgzedFile);
+      if (compressionThreads > 1) {
+        executor = ExecutorServiceUtil.newFixedExecutorService(compressionThreads);
+        gzos = new ParallelGZIPOutputStream(fos, executor, compressionThreads,
+                compressionLevel, parallelBlockSize);
+      } else {
+        gzos = new ParallelGZIPOutputStream.LevelGZIPOutputStream(fos, compressionLevel);
+      }
       byte[] inbuf = new byte[BUFFER_SIZE];
       int n;
 
       while ((n = bis.read(inbuf)) != -1) {
+        MaintenanceExecutor.throttleBytes(n);
         gzos.write(inbuf, 0, n);
       }
 
@@ -209,6 +265,7 @@ public class Compressor extends ContextAwareBase {
       bis = null;
       gzos.close();
       gzos = null;
+      reportThroughput(file2gz, gzedFile, start);
 
       if (!file2gz.delete()) {
         addStatus(new WarnStatus("Could not delete [" + nameOfFile2gz + "].",
@@ -232,9 +289,20 @@ public class Compressor extends ContextAwareBase {
           // ignore
         }
       }
+      if (executor != null) {
+        executor.shutdownNow();
+      }
     }
   }
 
+  private void reportThroughput(File source, File target, long start) {
+    long elapsed = Math.max(1, System.currentTimeMillis() - start);
+    long sourceLength = source.length();
+    long throughputInKBPerSecond = sourceLength * 1000 / 1024 / elapsed;
+    addInfo("Compressed " + sourceLength + " bytes into " + target.length() + " in "
+            + elapsed + " ms (" + throughputInKBPerSecond + " KB/s)");
+  }
+
   static public String computeFileNameStr_WCS(String fileNamePatternStr,
                                               CompressionMode compressionMode) {
     int len = fileNamePatternStr.length();
@@ -0,0 +1,417 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedList;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.CoreConstants;
+import ch.qos.logback.core.joran.spi.NoAutoStart;
+import ch.qos.logback.core.spi.ContextAwareBase;
+import ch.qos.logback.core.spi.LifeCycle;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.ExecutorServiceUtil;
+import ch.qos.logback.core.util.FileSize;
+import ch.qos.logback.core.util.Throttle;
+
+/**
+ * Runs the renaming, compression and removal of archives for all the rolling
+ * policies of a context, on at most <b>maxThreads</b> threads shared by the
+ * whole context. See {@link #getShared(Context, MaintenanceExecutor)}.
+ * <p/>
+ * When <b>maxDeletesPerSecond</b> or <b>maxBytesPerSecond</b> are set, the
+ * tasks run by this executor are slowed down so that files are deleted, and
+ * bytes compressed or copied, at no more than the given rate, across all of
+ * its threads. Work done outside of this executor is not throttled.
+ * <p/>
+ * Tasks waiting longer than <b>latencyWarningThreshold</b> before starting
+ * are reported as warnings, along with the number of queued tasks. If
+ * <b>jmx</b> is set, these figures are also exposed as a
+ * {@link MaintenanceExecutorView} MBean.
+ *
+ * @since 1.1.3
+ */
+@NoAutoStart
+public class MaintenanceExecutor extends ContextAwareBase implements LifeCycle,
+    MaintenanceExecutorView {
+
+  public static final int DEFAULT_MAX_THREADS = 1;
+
+  static final ThreadLocal<MaintenanceExecutor> CURRENT = new ThreadLocal<MaintenanceExecutor>();
+
+  int maxThreads = DEFAULT_MAX_THREADS;
+  long maxDeletesPerSecond = 0;
+  FileSize maxBytesPerSecond;
+  Duration latencyWarningThreshold = Duration.buildByMinutes(1);
+  boolean jmx = false;
+
+  private ScheduledExecutorService executor;
+  private Throttle deleteThrottle;
+  private Throttle byteThrottle;
+  private ObjectName objectName;
+  private volatile boolean started = false;
+
+  private final AtomicInteger queueDepth = new AtomicInteger();
+  private long completedTaskCount;
+  private long totalLatencyNanos;
+  private long maxLatencyNanos;
+
+  /**
+   * Return the executor shared by all the components of
+   * <code>context</code>, starting it if necessary. The first configured
+   * executor given for a context becomes its shared executor; if there is
+   * none, one with default settings is created. The shared executor is
+   * stopped when the context is reset.
+   *
+   * @param context the context of the calling component
+   * @param configured an executor configured for the calling component, may
+   *                   be null
+   */
+  public static MaintenanceExecutor getShared(Context context, MaintenanceExecutor configured) {
+    synchronized (context) {
+      MaintenanceExecutor shared = (MaintenanceExecutor) context
+          .getObject(CoreConstants.MAINTENANCE_EXECUTOR);
+      if (shared != null && shared.isStarted()) {
+        if (configured != null && configured != shared) {
+          shared.addWarn("The context already has a maintenance executor, ignoring another configuration");
+        }
+        return shared;
+      }
+      shared = configured != null ? configured : new MaintenanceExecutor();
+      shared.setContext(context);
+      shared.start();
+      context.putObject(CoreConstants.MAINTENANCE_EXECUTOR, shared);
+      context.register(shared);
+      return shared;
+    }
+  }
+
+  /**
+   * Wait until <code>count</code> files may be deleted, if invoked by a task
+   * of an executor limiting <b>maxDeletesPerSecond</b>.
+   */
+  public static void throttleDeletes(int count) {
+    MaintenanceExecutor current = CURRENT.get();
+    if (current != null && current.deleteThrottle != null) {
+      current.deleteThrottle.acquire(count);
+    }
+  }
+
+  /**
+   * Wait until <code>count</code> bytes may be processed, if invoked by a
+   * task of an executor limiting <b>maxBytesPerSecond</b>.
+   */
+  public static void throttleBytes(long count) {
+    Throttle byteThrottle = currentByteThrottle();
+    if (byteThrottle != null) {
+      byteThrottle.acquire(count);
+    }
+  }
+
+  /**
+   * Return the byte throttle of the executor running the current task, or
+   * null if there is none, for code handing it on to lower level utilities.
+   */
+  public static Throttle currentByteThrottle() {
+    MaintenanceExecutor current = CURRENT.get();
+    return current != null ? current.byteThrottle : null;
+  }
+
+  public void start() {
+    if (maxThreads < 1) {
+      addWarn("maxThreads must be positive, using " + DEFAULT_MAX_THREADS);
+      maxThreads = DEFAULT_MAX_THREADS;
+    }
+    executor = ExecutorServiceUtil.newScheduledExecutorService(maxThreads);
+    deleteThrottle = maxDeletesPerSecond > 0 ? new Throttle(maxDeletesPerSecond) : null;
+    byteThrottle = maxBytesPerSecond != null && maxBytesPerSecond.getSize() > 0 ? new Throttle(
+        maxBytesPerSecond.getSize()) : null;
+    addInfo("Will maintain archives on at most " + maxThreads + " thread(s)"
+        + (deleteThrottle != null ? ", deleting at most " + maxDeletesPerSecond + " files per second" : "")
+        + (byteThrottle != null ? ", processing at most " + maxBytesPerSecond + " per second" : ""));
+    if (jmx) {
+      registerMBean();
+    }
+    started = true;
+  }
+
+  /**
+   * Let the tasks submitted so far complete, waiting for at most
+   * {@link CoreConstants#SECONDS_TO_WAIT_FOR_COMPRESSION_JOBS} seconds.
+   */
+  public void stop() {
+    if (!started) {
+      return;
+    }
+    started = false;
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(CoreConstants.SECONDS_TO_WAIT_FOR_COMPRESSION_JOBS,
+          TimeUnit.SECONDS)) {
+        addWarn("Timeout while waiting for " + queueDepth.get() + " maintenance task(s) to finish");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (objectName != null) {
+      unregisterMBean();
+    }
+    addInfo("Ran " + getCompletedTaskCount() + " maintenance task(s), waiting "
+        + getAverageLatency() + " ms on average and at most " + getMaxLatency() + " ms");
+  }
+
+  public boolean isStarted() {
+    return started;
+  }
+
+  private void registerMBean() {
+    MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+    try {
+      objectName = new ObjectName("ch.qos.logback.core:Type=MaintenanceExecutor,Name="
+          + getContext().getName());
+      if (mbs.isRegistered(objectName)) {
+        mbs.unregisterMBean(objectName);
+      }
+      mbs.registerMBean(new StandardMBean(this, MaintenanceExecutorView.class), objectName);
+    } catch (Exception e) {
+      addError("Failed to register mbean", e);
+      objectName = null;
+    }
+  }
+
+  private void unregisterMBean() {
+    try {
+      MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+      if (mbs.isRegistered(objectName)) {
+        mbs.unregisterMBean(objectName);
+      }
+    } catch (Exception e) {
+      addError("Failed to unregister mbean", e);
+    }
+    objectName = null;
+  }
+
+  /**
+   * Run <code>runnable</code> on one of the threads of this executor. Once
+   * this executor is stopped, tasks are run by the calling thread.
+   */
+  public Future<?> submit(Runnable runnable) {
+    FutureTask<Void> task = new FutureTask<Void>(new MaintenanceTask(runnable, 0), null);
+    execute(task);
+    return task;
+  }
+
+  /**
+   * Run <code>runnable</code> on one of the threads of this executor after
+   * the given delay.
+   */
+  public ScheduledFuture<?> schedule(Runnable runnable, long delay, TimeUnit unit) {
+    return executor.schedule(new MaintenanceTask(runnable, unit.toNanos(delay)), delay, unit);
+  }
+
+  /**
+   * Create a queue running the tasks submitted to it one at a time, in the
+   * order of their submission, on the threads of this executor.
+   */
+  public SerialQueue newSerialQueue() {
+    return new SerialQueue();
+  }
+
+  private void execute(FutureTask<Void> task) {
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      task.run();
+    }
+  }
+
+  private synchronized void recordLatency(long latencyNanos) {
+    completedTaskCount++;
+    totalLatencyNanos += latencyNanos;
+    if (latencyNanos > maxLatencyNanos) {
+      maxLatencyNanos = latencyNanos;
+    }
+  }
+
+  public int getMaxThreads() {
+    return maxThreads;
+  }
+
+  /**
+   * The maximum number of threads running maintenance tasks. Default is 1.
+   */
+  public void setMaxThreads(int maxThreads) {
+    this.maxThreads = maxThreads;
+  }
+
+  public long getMaxDeletesPerSecond() {
+    return maxDeletesPerSecond;
+  }
+
+  /**
+   * The maximum number of files deleted per second. Default is 0, meaning
+   * no limit.
+   */
+  public void setMaxDeletesPerSecond(long maxDeletesPerSecond) {
+    this.maxDeletesPerSecond = maxDeletesPerSecond;
+  }
+
+  public FileSize getMaxBytesPerSecond() {
+    return maxBytesPerSecond;
+  }
+
+  /**
+   * The maximum number of bytes compressed or copied per second. Not set by
+   * default, meaning no limit.
+   */
+  public void setMaxBytesPerSecond(FileSize maxBytesPerSecond) {
+    this.maxBytesPerSecond = maxBytesPerSecond;
+  }
+
+  public Duration getLatencyWarningThreshold() {
+    return latencyWarningThreshold;
+  }
+
+  /**
+   * Tasks waiting longer than this before starting are reported as
+   * warnings. Default is one minute.
+   */
+  public void setLatencyWarningThreshold(Duration latencyWarningThreshold) {
+    this.latencyWarningThreshold = latencyWarningThreshold;
+  }
+
+  public boolean isJmx() {
+    return jmx;
+  }
+
+  /**
+   * If true, the executor registers itself as a
+   * {@link MaintenanceExecutorView} MBean with the platform MBean server
+   * while started.
+   */
+  public void setJmx(boolean jmx) {
+    this.jmx = jmx;
+  }
+
+  public int getQueueDepth() {
+    return queueDepth.get();
+  }
+
+  public synchronized long getCompletedTaskCount() {
+    return completedTaskCount;
+  }
+
+  public synchronized long getAverageLatency() {
+    if (completedTaskCount == 0) {
+      return 0;
+    }
+    return TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos / completedTaskCount);
+  }
+
+  public synchronized long getMaxLatency() {
+    return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos);
+  }
+
+  /**
+   * Measures the time a task waited, and lets the static throttling methods
+   * find the executor running the task.
+   */
+  class MaintenanceTask implements Runnable {
+    final Runnable runnable;
+    final long dueNanos;
+
+    MaintenanceTask(Runnable runnable, long delayNanos) {
+      this.runnable = runnable;
+      this.dueNanos = System.nanoTime() + delayNanos;
+      queueDepth.incrementAndGet();
+    }
+
+    public void run() {
+      int stillQueued = queueDepth.decrementAndGet();
+      long latencyNanos = Math.max(0, System.nanoTime() - dueNanos);
+      recordLatency(latencyNanos);
+      if (TimeUnit.NANOSECONDS.toMillis(latencyNanos) > latencyWarningThreshold.getMilliseconds()) {
+        addWarn("Maintenance task waited " + TimeUnit.NANOSECONDS.toMillis(latencyNanos)
+            + " ms before starting, " + stillQueued + " task(s) still queued");
+      }
+      MaintenanceExecutor previous = CURRENT.get();
+      CURRENT.set(MaintenanceExecutor.this);
+      try {
+        runnable.run();
+      } finally {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Runs the tasks submitted to it one at a time, in order, on the threads
+   * of the enclosing executor. Queued tasks count in the queue depth of the
+   * executor.
+   */
+  public class SerialQueue {
+    private final LinkedList<FutureTask<Void>> pending = new LinkedList<FutureTask<Void>>();
+    private boolean running = false;
+
+    SerialQueue() {
+    }
+
+    public Future<?> submit(Runnable runnable) {
+      final MaintenanceTask maintenanceTask = new MaintenanceTask(runnable, 0);
+      FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+        public void run() {
+          try {
+            maintenanceTask.run();
+          } finally {
+            executeNext();
+          }
+        }
+      }, null);
+      boolean idle;
+      synchronized (this) {
+        pending.add(task);
+        idle = !running;
+        running = true;
+      }
+      if (idle) {
+        executeNext();
+      }
+      return task;
+    }
+
+    private void executeNext() {
+      FutureTask<Void> next;
+      synchronized (this) {
+        next = pending.poll();
+        if (next == null) {
+          running = false;
+          return;
+        }
+      }
+      execute(next);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+/**
+ * The management interface of {@link MaintenanceExecutor}, registered with
+ * the platform MBean server if the executor's <b>jmx</b> property is set.
+ *
+ * @since 1.1.3
+ */
+public interface MaintenanceExecutorView {
+
+  int getMaxThreads();
+
+  /**
+   * The number of tasks submitted but not started yet.
+   */
+  int getQueueDepth();
+
+  long getCompletedTaskCount();
+
+  /**
+   * The average time, in milliseconds, between the submission of a task and
+   * the moment it started.
+   */
+  long getAverageLatency();
+
+  /**
+   * The longest time, in milliseconds, a task waited before it started.
+   */
+  long getMaxLatency();
+
+}
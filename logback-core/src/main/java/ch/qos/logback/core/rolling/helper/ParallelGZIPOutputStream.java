@@ -0,0 +1,180 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses its input in the GZIP format using several threads.
+ * <p/>
+ * The input is cut into blocks of <code>blockSize</code> bytes. Each block is
+ * compressed by the given executor into a complete GZIP member, and members
+ * are written out in the order of their blocks. As the GZIP format allows
+ * several members in one file, the output can be read back by
+ * <code>gunzip</code> or {@link java.util.zip.GZIPInputStream} like any other
+ * .gz file. Since blocks do not share a dictionary, the output is slightly
+ * larger than with {@link GZIPOutputStream}.
+ * <p/>
+ * At most two blocks per thread are held in memory at any time.
+ * <p/>
+ * This class is not thread-safe.
+ *
+ * @since 1.1.3
+ */
+public class ParallelGZIPOutputStream extends OutputStream {
+
+  final OutputStream out;
+  final ExecutorService executor;
+  final int level;
+  final int blockSize;
+  final int maxPendingBlocks;
+
+  final LinkedList<Future<byte[]>> pendingBlocks = new LinkedList<Future<byte[]>>();
+  byte[] block;
+  int count = 0;
+  boolean memberWritten = false;
+  boolean closed = false;
+
+  /**
+   * @param out the stream receiving the compressed bytes
+   * @param executor the executor compressing blocks
+   * @param threadCount the number of threads of <code>executor</code>
+   * @param level the compression level, see {@link java.util.zip.Deflater}
+   * @param blockSize the size of uncompressed blocks
+   */
+  public ParallelGZIPOutputStream(OutputStream out, ExecutorService executor, int threadCount,
+      int level, int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("blockSize must be positive");
+    }
+    this.out = out;
+    this.executor = executor;
+    this.level = level;
+    this.blockSize = blockSize;
+    this.maxPendingBlocks = 2 * Math.max(1, threadCount);
+    this.block = new byte[blockSize];
+  }
+
+  public void write(int b) throws IOException {
+    block[count++] = (byte) b;
+    if (count == blockSize) {
+      submitBlock();
+    }
+  }
+
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      int n = Math.min(len, blockSize - count);
+      System.arraycopy(b, off, block, count, n);
+      count += n;
+      off += n;
+      len -= n;
+      if (count == blockSize) {
+        submitBlock();
+      }
+    }
+  }
+
+  private void submitBlock() throws IOException {
+    final byte[] data = block;
+    final int length = count;
+    pendingBlocks.add(executor.submit(new Callable<byte[]>() {
+      public byte[] call() throws IOException {
+        return compressBlock(data, length, level);
+      }
+    }));
+    block = new byte[blockSize];
+    count = 0;
+    while (pendingBlocks.size() > maxPendingBlocks) {
+      writeOldestBlock();
+    }
+  }
+
+  private void writeOldestBlock() throws IOException {
+    Future<byte[]> future = pendingBlocks.removeFirst();
+    try {
+      out.write(future.get());
+      memberWritten = true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while compressing");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Failed to compress block", cause);
+    }
+  }
+
+  static byte[] compressBlock(byte[] data, int length, int level) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(length / 4 + 64);
+    GZIPOutputStream gzos = new LevelGZIPOutputStream(baos, level);
+    gzos.write(data, 0, length);
+    gzos.close();
+    return baos.toByteArray();
+  }
+
+  /**
+   * Writes out the blocks submitted so far, except for the current partial
+   * block, then flushes the underlying stream.
+   */
+  public void flush() throws IOException {
+    while (!pendingBlocks.isEmpty()) {
+      writeOldestBlock();
+    }
+    out.flush();
+  }
+
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      // an empty input still needs one member to be a valid .gz file
+      if (count > 0 || (!memberWritten && pendingBlocks.isEmpty())) {
+        submitBlock();
+      }
+      while (!pendingBlocks.isEmpty()) {
+        writeOldestBlock();
+      }
+    } finally {
+      for (Future<byte[]> future : pendingBlocks) {
+        future.cancel(true);
+      }
+      pendingBlocks.clear();
+      out.close();
+    }
+  }
+
+  /**
+   * A {@link GZIPOutputStream} with a configurable compression level.
+   */
+  static class LevelGZIPOutputStream extends GZIPOutputStream {
+    LevelGZIPOutputStream(OutputStream out, int level) throws IOException {
+      super(out);
+      def.setLevel(level);
+    }
+  }
+}
@@ -105,17 +105,51 @@ public class RenameUtil extends ContextAwareBase {
 
 
 
+  /**
+   * Move <code>src</code> to <code>target</code> on another volume. The bytes
+   * are first copied to a temporary file next to <code>target</code>, which
+   * is then renamed to <code>target</code>. Thus <code>target</code> either
+   * does not exist or is complete, and <code>src</code> is only deleted once
+   * <code>target</code> is in place. On failure, <code>src</code> is left
+   * untouched.
+   * <p/>
+   * The copy can take a while for large files. Setting the
+   * <b>asyncRollover</b> property of {@link
+   * ch.qos.logback.core.rolling.TimeBasedRollingPolicy} moves it off the
+   * logging threads.
+   *
+   * @param src
+   * @param target
+   * @throws RolloverFailure
+   */
   public void renameByCopying(String src, String target)
           throws RolloverFailure {
 
+    File tmpFile = new File(target + System.nanoTime() + ".tmp");
+    long start = System.currentTimeMillis();
     FileUtil fileUtil = new FileUtil(getContext());
-    fileUtil.copy(src, target);
+    try {
+      fileUtil.copy(src, tmpFile.getPath(), MaintenanceExecutor.currentByteThrottle());
+    } catch (RolloverFailure rf) {
+      tmpFile.delete();
+      throw rf;
+    }
+
+    File targetFile = new File(target);
+    // same volume, hence cheap
+    if (!tmpFile.renameTo(targetFile)) {
+      // renameTo does not replace an existing file on all platforms
+      if (!targetFile.delete() || !tmpFile.renameTo(targetFile)) {
+        tmpFile.delete();
+        throw new RolloverFailure("Failed to rename [" + tmpFile + "] as [" + target + "]");
+      }
+    }
+    addInfo("Copied [" + src + "] to [" + target + "] in " + (System.currentTimeMillis() - start) + " ms");
 
     File srcFile = new File(src);
-   if (!srcFile.delete()) {
+    if (!srcFile.delete()) {
       addWarn("Could not delete " + src);
     }
-
   }
 
   void createMissingTargetDirsIfNecessary(File toFile) throws RolloverFailure {
@@ -14,6 +14,7 @@
 package ch.qos.logback.core.rolling.helper;
 
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
@@ -38,8 +39,17 @@ public class RollingCalendar extends GregorianCalendar {
   // The gmtTimeZone is used only in computeCheckPeriod() method.
   static final TimeZone GMT_TIMEZONE = TimeZone.getTimeZone("GMT");
 
+  // number of triggering instants computed at once by
+  // getNextTriggeringMillis(long)
+  static final int BOUNDARY_CACHE_SIZE = 32;
+
   PeriodicityType periodicityType = PeriodicityType.ERRONEOUS;
 
+  // boundaries[0] is the earliest instant the cache was computed for, the
+  // following entries are consecutive triggering instants
+  private transient long[] boundaries;
+  private transient int boundaryCount = 0;
+
   public RollingCalendar() {
     super();
   }
@@ -50,10 +60,12 @@ public class RollingCalendar extends GregorianCalendar {
 
   public void init(String datePattern) {
     periodicityType = computePeriodicityType(datePattern);
+    boundaryCount = 0;
   }
 
   private void setPeriodicityType(PeriodicityType periodicityType) {
     this.periodicityType = periodicityType;
+    boundaryCount = 0;
   }
 
   public PeriodicityType getPeriodicityType() {
@@ -64,6 +76,37 @@ public class RollingCalendar extends GregorianCalendar {
     return getNextTriggeringDate(now).getTime();
   }
 
+  /**
+   * Same as {@link #getNextTriggeringMillis(Date)}, but answered from the
+   * upcoming triggering instants, which are computed
+   * {@value #BOUNDARY_CACHE_SIZE} at a time. Each instant is computed from
+   * the previous one by this calendar, in its time zone, so that daylight
+   * saving time changes are accounted for as usual.
+   *
+   * @since 1.1.3
+   */
+  public long getNextTriggeringMillis(long now) {
+    if (boundaryCount == 0 || now < boundaries[0] || now >= boundaries[boundaryCount - 1]) {
+      computeBoundaries(now);
+    }
+    int index = Arrays.binarySearch(boundaries, 1, boundaryCount, now);
+    // the first boundary strictly after now
+    return boundaries[index >= 0 ? index + 1 : -index - 1];
+  }
+
+  private void computeBoundaries(long now) {
+    if (boundaries == null) {
+      boundaries = new long[BOUNDARY_CACHE_SIZE + 1];
+    }
+    boundaries[0] = now;
+    Date date = new Date(now);
+    for (int i = 1; i < boundaries.length; i++) {
+      boundaries[i] = getNextTriggeringMillis(date);
+      date.setTime(boundaries[i]);
+    }
+    boundaryCount = boundaries.length;
+  }
+
   // This method computes the roll over period by looping over the
   // periods, starting with the shortest, and stopping when the r0 is
   // different from from r1, where r0 is the epoch formatted according
@@ -39,6 +39,7 @@ public class SizeAndTimeBasedArchiveRemover extends DefaultArchiveRemover {
         parentDir, stemRegex);
 
     for (File f : matchingFileArray) {
+      MaintenanceExecutor.throttleDeletes(1);
       f.delete();
     }
 
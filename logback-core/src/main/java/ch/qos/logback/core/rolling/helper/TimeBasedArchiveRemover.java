@@ -28,6 +28,7 @@ public class TimeBasedArchiveRemover extends DefaultArchiveRemover {
     String filename = fileNamePattern.convert(date2delete);
     File file2Delete = new File(filename);
     if (file2Delete.exists() && file2Delete.isFile()) {
+      MaintenanceExecutor.throttleDeletes(1);
       file2Delete.delete();
       addInfo("deleting " + file2Delete);
       if (parentClean) {
@@ -14,9 +14,11 @@
 package ch.qos.logback.core.spi;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.BatchAppender;
 
 /**
  * A ReentrantReadWriteLock based implementation of the
@@ -51,6 +53,26 @@ public class AppenderAttachableImpl<E> implements AppenderAttachable<E> {
     return size;
   }
 
+  /**
+   * Hand over the whole list of events to attached appenders implementing
+   * {@link BatchAppender}, call <code>doAppend</code> for each event on the
+   * others.
+   */
+  public int appendBatchLoopOnAppenders(List<E> eventList) {
+    int size = 0;
+    for (Appender<E> appender : appenderList) {
+      if (appender instanceof BatchAppender) {
+        ((BatchAppender<E>) appender).doAppendBatch(eventList);
+      } else {
+        for (E e : eventList) {
+          appender.doAppend(e);
+        }
+      }
+      size++;
+    }
+    return size;
+  }
+
   /**
    * Get all attached appenders as an Enumeration. If there are no attached
    * appenders <code>null</code> is returned.
@@ -0,0 +1,32 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.spi;
+
+/**
+ * Implemented by events which may be reused for another logging call once
+ * every appender has returned, as logback-classic does in its optional event
+ * recycling mode. A component keeping a reference to such an event after
+ * returning from {@link ch.qos.logback.core.Appender#doAppend(Object)}, for
+ * instance to process it on another thread, must call {@link #retain()}
+ * first.
+ *
+ * @since 1.1.3
+ */
+public interface Recyclable {
+
+  /**
+   * Prevents this object from being reused. May be called several times.
+   */
+  void retain();
+}
@@ -18,41 +18,64 @@ import java.util.Date;
 import java.util.TimeZone;
 
 /**
- * A synchronized implementation of  SimpleDateFormat which uses caching internally.
+ * A thread-safe implementation of SimpleDateFormat which uses caching internally.
+ * <p/>
+ * The last formatted timestamp is cached in an immutable holder, so that hits
+ * require no locking. On a miss, each thread formats with its own clone of the
+ * SimpleDateFormat.
  *
  * @author Ceki G&uuml;c&uuml;
  * @since 0.9.29
  */
 public class CachingDateFormatter {
 
-
-  long lastTimestamp = -1;
-  String cachedStr = null;
-  final SimpleDateFormat sdf;
+  volatile CacheTuple cache = new CacheTuple(-1, null);
+  final SimpleDateFormat prototype;
+  final ThreadLocal<SimpleDateFormat> threadLocalFormat = new ThreadLocal<SimpleDateFormat>() {
+    @Override
+    protected SimpleDateFormat initialValue() {
+      synchronized (prototype) {
+        return (SimpleDateFormat) prototype.clone();
+      }
+    }
+  };
 
   public CachingDateFormatter(String pattern) {
-    sdf = new SimpleDateFormat(pattern);
+    prototype = new SimpleDateFormat(pattern);
   }
 
   public final String format(long now) {
-
-    // SimpleDateFormat is not thread safe.
+    // SimpleDateFormat is not thread safe, hence one instance per thread.
 
     // See also the discussion in http://jira.qos.ch/browse/LBCLASSIC-36
     // DateFormattingThreadedThroughputCalculator and SelectiveDateFormattingRunnable
     // are also note worthy
-
-    // The now == lastTimestamp guard minimizes synchronization
-    synchronized (this) {
-      if (now != lastTimestamp) {
-        lastTimestamp = now;
-        cachedStr = sdf.format(new Date(now));
-      }
-      return cachedStr;
+    CacheTuple localCache = cache;
+    if (now == localCache.timestamp) {
+      return localCache.str;
     }
+    String str = threadLocalFormat.get().format(new Date(now));
+    cache = new CacheTuple(now, str);
+    return str;
   }
 
+  /**
+   * Sets the time zone. Must be called before the first call to
+   * {@link #format(long)}.
+   */
   public void setTimeZone(TimeZone tz) {
-    sdf.setTimeZone(tz);
+    synchronized (prototype) {
+      prototype.setTimeZone(tz);
+    }
+  }
+
+  static class CacheTuple {
+    final long timestamp;
+    final String str;
+
+    CacheTuple(long timestamp, String str) {
+      this.timestamp = timestamp;
+      this.str = str;
+    }
   }
 }
@@ -0,0 +1,100 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A buffered {@link OutputStream} writing to a {@link FileChannel}.
+ * <p/>
+ * Small writes are copied into a buffer. A write which does not fit in the
+ * remaining space is not copied: the buffered bytes and the new bytes are
+ * handed over to the channel together in a single gathering write.
+ * <p/>
+ * This class is not thread-safe.
+ *
+ * @since 1.1.3
+ */
+public class ChannelOutputStream extends OutputStream {
+
+  final FileChannel channel;
+  final ByteBuffer buffer;
+  // reused by gathering writes
+  final ByteBuffer[] pair = new ByteBuffer[2];
+
+  public ChannelOutputStream(FileChannel channel, int bufferSize) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("bufferSize must be positive");
+    }
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocate(bufferSize);
+  }
+
+  public FileChannel getChannel() {
+    return channel;
+  }
+
+  public void write(int b) throws IOException {
+    if (!buffer.hasRemaining()) {
+      flushBuffer();
+    }
+    buffer.put((byte) b);
+  }
+
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (len <= buffer.remaining()) {
+      buffer.put(b, off, len);
+      return;
+    }
+    buffer.flip();
+    pair[0] = buffer;
+    pair[1] = ByteBuffer.wrap(b, off, len);
+    try {
+      while (pair[1].hasRemaining()) {
+        channel.write(pair);
+      }
+    } finally {
+      pair[1] = null;
+      buffer.clear();
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    buffer.flip();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } finally {
+      buffer.clear();
+    }
+  }
+
+  public void flush() throws IOException {
+    if (buffer.position() > 0) {
+      flushBuffer();
+    }
+  }
+
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,77 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} counting the bytes written through it to the
+ * underlying stream.
+ * <p/>
+ * Writes must be performed by one thread at a time. The count may be read by
+ * any thread.
+ *
+ * @since 1.1.3
+ */
+public class CountingOutputStream extends OutputStream {
+
+  final OutputStream out;
+  volatile long count;
+
+  public CountingOutputStream(OutputStream out) {
+    this.out = out;
+  }
+
+  /**
+   * The stream wrapped by this instance.
+   */
+  public OutputStream getUnderlyingOutputStream() {
+    return out;
+  }
+
+  /**
+   * The number of bytes written so far, plus those given to
+   * {@link #addToCount(long)}.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Count bytes not written through this stream, such as those already
+   * present in a file opened in append mode.
+   */
+  public void addToCount(long n) {
+    count += n;
+  }
+
+  public void write(int b) throws IOException {
+    out.write(b);
+    count++;
+  }
+
+  public void write(byte[] b, int off, int len) throws IOException {
+    out.write(b, off, len);
+    count += len;
+  }
+
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  public void close() throws IOException {
+    out.close();
+  }
+}
@@ -16,6 +16,9 @@ package ch.qos.logback.core.util;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -32,6 +35,9 @@ import ch.qos.logback.core.CoreConstants;
  */
 public class ExecutorServiceUtil {
 
+  // number of seconds an idle thread of a scheduled executor is kept alive
+  private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 10;
+
   private static final ThreadFactory THREAD_FACTORY = new ThreadFactory() {
 
     private final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
@@ -56,6 +62,37 @@ public class ExecutorServiceUtil {
         THREAD_FACTORY);
   }
   
+  /**
+   * Creates an executor service with a fixed number of threads and an
+   * unbounded queue, for short lived bursts of work. The caller is expected
+   * to shut it down once done.
+   *
+   * @param threadCount the number of threads
+   * @return executor service
+   * @since 1.1.3
+   */
+  static public ExecutorService newFixedExecutorService(int threadCount) {
+    return new ThreadPoolExecutor(threadCount, threadCount,
+        0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), THREAD_FACTORY);
+  }
+
+  /**
+   * Creates a scheduled executor service with at most
+   * <code>threadCount</code> threads. Idle threads terminate, so that an
+   * executor which is not shut down does not prevent the JVM from exiting.
+   *
+   * @param threadCount the number of threads
+   * @return scheduled executor service
+   * @since 1.1.3
+   */
+  static public ScheduledExecutorService newScheduledExecutorService(int threadCount) {
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threadCount, THREAD_FACTORY);
+    executor.setKeepAliveTime(IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
   /**
    * Shuts down an executor service.
    * <p>
@@ -0,0 +1,40 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+/**
+ * How {@link ch.qos.logback.core.FileAppender} writes bytes to its file.
+ *
+ * @since 1.1.3
+ */
+public enum FileOutputMode {
+  /**
+   * A {@link java.io.BufferedOutputStream} around a
+   * {@link java.io.FileOutputStream}. This is the default.
+   */
+  STREAM,
+  /**
+   * A {@link ChannelOutputStream}, which buffers into a ByteBuffer and writes
+   * large payloads with a single gathering write on the file's
+   * {@link java.nio.channels.FileChannel}.
+   */
+  CHANNEL,
+  /**
+   * A {@link MappedFileOutputStream}, which maps the file in fixed-size
+   * regions and appends by copying into the mapping. Flushing does not
+   * involve a system call. The unused tail of the last region is truncated
+   * when the file is closed.
+   */
+  MAPPED;
+}
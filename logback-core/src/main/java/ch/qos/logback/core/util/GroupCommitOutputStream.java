@@ -0,0 +1,125 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} which buffers the bytes of several events and hands
+ * them over to the underlying stream in a single write followed by a single
+ * flush, a so called group commit.
+ * <p/>
+ * A commit occurs when the buffer holds at least <code>bufferSize</code>
+ * bytes or, as reported by {@link #endOfEvents(int)}, at least
+ * <code>maxEvents</code> events. Otherwise, pending bytes remain buffered
+ * until {@link #commit()} is called, typically by a timer. Calls to
+ * {@link #flush()} are ignored, so that encoders flushing after each event do
+ * not defeat grouping.
+ * <p/>
+ * This class is not thread-safe. Callers must synchronize all access to it,
+ * including calls to {@link #commit()}.
+ *
+ * @since 1.1.3
+ */
+public class GroupCommitOutputStream extends OutputStream {
+
+  final OutputStream out;
+  final byte[] buffer;
+  final int maxEvents;
+  int count;
+  int pendingEvents;
+
+  public GroupCommitOutputStream(OutputStream out, int bufferSize, int maxEvents) {
+    if (bufferSize < 1) {
+      throw new IllegalArgumentException("bufferSize must be positive");
+    }
+    this.out = out;
+    this.buffer = new byte[bufferSize];
+    this.maxEvents = maxEvents;
+  }
+
+  /**
+   * The stream wrapped by this instance.
+   */
+  public OutputStream getUnderlyingOutputStream() {
+    return out;
+  }
+
+  public void write(int b) throws IOException {
+    if (count == buffer.length) {
+      commit();
+    }
+    buffer[count++] = (byte) b;
+  }
+
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (len >= buffer.length) {
+      // too large to be buffered, write through preserving order
+      commit();
+      out.write(b, off, len);
+      out.flush();
+      return;
+    }
+    if (len > buffer.length - count) {
+      commit();
+    }
+    System.arraycopy(b, off, buffer, count, len);
+    count += len;
+  }
+
+  /**
+   * Records the end of <code>n</code> events and commits if the event or
+   * size threshold is reached.
+   */
+  public void endOfEvents(int n) throws IOException {
+    pendingEvents += n;
+    if (pendingEvents >= maxEvents || count == buffer.length) {
+      commit();
+    }
+  }
+
+  /**
+   * Returns true if bytes are waiting to be committed.
+   */
+  public boolean hasPendingBytes() {
+    return count > 0;
+  }
+
+  /**
+   * Writes the buffered bytes to the underlying stream and flushes it.
+   */
+  public void commit() throws IOException {
+    pendingEvents = 0;
+    if (count > 0) {
+      out.write(buffer, 0, count);
+      count = 0;
+      out.flush();
+    }
+  }
+
+  /**
+   * Does nothing. Buffered bytes are written by {@link #commit()}.
+   */
+  public void flush() {
+  }
+
+  public void close() throws IOException {
+    try {
+      commit();
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An {@link OutputStream} appending to a file through memory mapped regions.
+ * <p/>
+ * The file is mapped in regions of <code>regionSize</code> bytes, starting at
+ * the end of the data. Writes are copied into the current region and a new
+ * region is mapped once it is full. Since the bytes land in the page cache
+ * directly, {@link #flush()} does nothing: the data survives a crash of the
+ * JVM, although not a crash of the operating system.
+ * <p/>
+ * Before a region is mapped, it is filled with zero bytes through the
+ * channel, so that its blocks are allocated on disk. Running out of disk
+ * space thus fails with an {@link IOException} when the region is reserved,
+ * rather than with a fault when writing to a sparse mapped page. Faults still
+ * raised by a mapped write are rethrown as {@link IOException}s as well.
+ * <p/>
+ * Mapping a region extends the file, so while the stream is open the file is
+ * longer than the data written to it, the difference being filled with zero
+ * bytes. {@link #close()} truncates the file to the end of the data. If the
+ * JVM dies before the stream is closed, the zero filled tail remains. When
+ * such a file is opened again in append mode, trailing zero bytes within the
+ * last <code>regionSize</code> bytes are treated as unused and overwritten.
+ * <p/>
+ * This class is not thread-safe. Only one writer may append to a given file.
+ *
+ * @since 1.1.3
+ */
+public class MappedFileOutputStream extends OutputStream {
+
+  static final int SCAN_BLOCK_SIZE = 8192;
+  static final int ZERO_FILL_BLOCK_SIZE = 64 * 1024;
+
+  final RandomAccessFile randomAccessFile;
+  final FileChannel channel;
+  final long regionSize;
+  final ByteBuffer zeros = ByteBuffer.allocate(ZERO_FILL_BLOCK_SIZE);
+
+  MappedByteBuffer region;
+  // offset in the file of the first byte after the data
+  long position;
+  boolean closed = false;
+
+  public MappedFileOutputStream(File file, boolean append, long regionSize) throws IOException {
+    if (regionSize < 1 || regionSize > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("regionSize must be between 1 and " + Integer.MAX_VALUE);
+    }
+    this.regionSize = regionSize;
+    this.randomAccessFile = new RandomAccessFile(file, "rw");
+    this.channel = randomAccessFile.getChannel();
+    try {
+      if (append) {
+        position = findEndOfData();
+      } else {
+        channel.truncate(0);
+        position = 0;
+      }
+      region = mapRegion();
+    } catch (IOException e) {
+      randomAccessFile.close();
+      throw e;
+    }
+  }
+
+  public FileChannel getChannel() {
+    return channel;
+  }
+
+  /**
+   * Returns the number of bytes of data in the file, excluding the unused
+   * part of the current region.
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  public void write(int b) throws IOException {
+    ensureOpenRegion();
+    try {
+      region.put((byte) b);
+    } catch (InternalError e) {
+      throw mappedWriteFailure(e);
+    }
+    position++;
+  }
+
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      ensureOpenRegion();
+      int n = Math.min(len, region.remaining());
+      try {
+        region.put(b, off, n);
+      } catch (InternalError e) {
+        throw mappedWriteFailure(e);
+      }
+      position += n;
+      off += n;
+      len -= n;
+    }
+  }
+
+  private void ensureOpenRegion() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (!region.hasRemaining()) {
+      MappedByteBuffer full = region;
+      region = mapRegion();
+      unmap(full);
+    }
+  }
+
+  /**
+   * Reserves the disk blocks of the region starting at the end of the data by
+   * filling it with zero bytes through the channel, then maps it.
+   */
+  MappedByteBuffer mapRegion() throws IOException {
+    long end = position + regionSize;
+    long offset = position;
+    while (offset < end) {
+      zeros.clear();
+      zeros.limit((int) Math.min(ZERO_FILL_BLOCK_SIZE, end - offset));
+      offset += channel.write(zeros, offset);
+    }
+    return channel.map(FileChannel.MapMode.READ_WRITE, position, regionSize);
+  }
+
+  /**
+   * The JVM reports a fault while accessing a mapped page, e.g. a SIGBUS on a
+   * full disk, as an InternalError, which would bypass the recovery of
+   * appenders handling IOExceptions.
+   */
+  private IOException mappedWriteFailure(InternalError e) {
+    return new IOException("Failed to write to the region mapped at offset " + position, e);
+  }
+
+  /**
+   * Does nothing. Written bytes are already in the page cache.
+   */
+  public void flush() {
+  }
+
+  /**
+   * Releases the current region and truncates the file to the end of the
+   * data.
+   */
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      MappedByteBuffer last = region;
+      region = null;
+      unmap(last);
+      channel.truncate(position);
+    } finally {
+      randomAccessFile.close();
+    }
+  }
+
+  /**
+   * Finds the end of the data left by a previous writer, ignoring a zero
+   * filled tail of at most <code>regionSize</code> bytes.
+   */
+  long findEndOfData() throws IOException {
+    long size = channel.size();
+    long limit = Math.max(0, size - regionSize);
+    ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK_SIZE);
+    long end = size;
+    while (end > limit) {
+      int len = (int) Math.min(SCAN_BLOCK_SIZE, end - limit);
+      long start = end - len;
+      block.clear();
+      block.limit(len);
+      while (block.hasRemaining()) {
+        if (channel.read(block, start + block.position()) < 0) {
+          break;
+        }
+      }
+      for (int i = block.position() - 1; i >= 0; i--) {
+        if (block.get(i) != 0) {
+          return start + i + 1;
+        }
+      }
+      end = start;
+    }
+    return limit;
+  }
+
+  /**
+   * Releases a mapping without waiting for the buffer to be garbage
+   * collected. This relies on JDK internals and is skipped when they are not
+   * accessible, in which case the mapping is released by the garbage
+   * collector. The buffer must not be accessed afterwards.
+   */
+  static void unmap(MappedByteBuffer buffer) {
+    if (buffer == null) {
+      return;
+    }
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        Method cleanMethod = cleaner.getClass().getMethod("clean");
+        cleanMethod.setAccessible(true);
+        cleanMethod.invoke(cleaner);
+      }
+    } catch (Exception e) {
+      // left to the garbage collector
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+/**
+ * What {@link ch.qos.logback.core.AsyncAppenderBase} does with an event when
+ * its queue is full.
+ *
+ * @since 1.1.3
+ */
+public enum OverflowPolicy {
+  /**
+   * Block the calling thread until there is room in the queue. This is the
+   * default.
+   */
+  BLOCK,
+  /**
+   * Block the calling thread for at most <b>eventDelayLimit</b>, then drop the
+   * event.
+   */
+  BLOCK_WITH_TIMEOUT,
+  /**
+   * Drop the event being appended, never block.
+   */
+  DROP_NEWEST,
+  /**
+   * Drop the oldest event in the queue to make room for the event being
+   * appended, never block. Not available with a ring buffer queue, which
+   * has a single consumer.
+   */
+  DROP_OLDEST;
+}
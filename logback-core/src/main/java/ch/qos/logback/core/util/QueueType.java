@@ -0,0 +1,33 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+/**
+ * The kind of queue {@link ch.qos.logback.core.AsyncAppenderBase} uses to
+ * hand over events to its worker thread.
+ *
+ * @since 1.1.3
+ */
+public enum QueueType {
+  /**
+   * A {@link java.util.concurrent.ArrayBlockingQueue}, guarded by a single
+   * lock. This is the default.
+   */
+  ARRAY_BLOCKING,
+  /**
+   * A {@link RingBufferBlockingQueue}, a lock-free pre-allocated ring buffer
+   * for many producers and a single consumer.
+   */
+  RING_BUFFER;
+}
@@ -0,0 +1,311 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, pre-allocated, lock-free {@link BlockingQueue} for multiple
+ * producers and a <em>single</em> consumer.
+ * <p/>
+ * Each slot of the ring carries a sequence number which tells producers
+ * whether the slot is free and the consumer whether it has been published.
+ * Producers claim slots by a CAS on the tail counter, so that they never
+ * contend on a lock. When the queue is full, producers back off by spinning,
+ * yielding and finally parking for short periods. When the queue is empty, the
+ * consumer waits according to the {@link WaitStrategy} given at construction
+ * time.
+ * <p/>
+ * Only one thread may invoke the consuming methods, i.e. {@link #poll()},
+ * {@link #take()}, {@link #drainTo(Collection)} and {@link #remove(Object)}.
+ * The latter only supports removal of the head element. Any thread may invoke
+ * {@link #size()}, {@link #remainingCapacity()} or {@link #iterator()}, the
+ * latter returning a weakly consistent snapshot.
+ *
+ * @param <E>
+ * @since 1.1.3
+ */
+public class RingBufferBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+  static final int SPIN_TRIES = 100;
+  static final int YIELD_TRIES = 100;
+  static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+  final int capacity;
+  final Object[] buffer;
+  final AtomicLongArray sequences;
+  final AtomicLong tail = new AtomicLong();
+  final WaitStrategy waitStrategy;
+
+  // only written by the consumer thread
+  volatile long head = 0;
+  volatile Thread waitingConsumer;
+
+  public RingBufferBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    if (waitStrategy == null) {
+      throw new NullPointerException("waitStrategy");
+    }
+    this.capacity = capacity;
+    this.waitStrategy = waitStrategy;
+    this.buffer = new Object[capacity];
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  private int indexOf(long position) {
+    return (int) (position % capacity);
+  }
+
+  public boolean offer(E e) {
+    if (e == null) {
+      throw new NullPointerException();
+    }
+    long position;
+    int index;
+    for (;;) {
+      position = tail.get();
+      index = indexOf(position);
+      long dif = sequences.get(index) - position;
+      if (dif == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          break;
+        }
+      } else if (dif < 0) {
+        // the slot still holds an element from the previous lap
+        return false;
+      }
+      // else another producer claimed the slot, try again
+    }
+    buffer[index] = e;
+    sequences.set(index, position + 1);
+    Thread consumer = waitingConsumer;
+    if (consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+    return true;
+  }
+
+  public void put(E e) throws InterruptedException {
+    int tries = 0;
+    while (!offer(e)) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      backOff(tries++);
+    }
+  }
+
+  public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    int tries = 0;
+    while (!offer(e)) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      if (deadline - System.nanoTime() <= 0) {
+        return false;
+      }
+      backOff(tries++);
+    }
+    return true;
+  }
+
+  private void backOff(int tries) {
+    if (tries < SPIN_TRIES) {
+      return;
+    } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+    }
+  }
+
+  private boolean isPublished(long position) {
+    return sequences.get(indexOf(position)) == position + 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  public E poll() {
+    long position = head;
+    if (!isPublished(position)) {
+      return null;
+    }
+    int index = indexOf(position);
+    E e = (E) buffer[index];
+    buffer[index] = null;
+    // hand the slot over to the producers of the next lap
+    sequences.set(index, position + capacity);
+    head = position + 1;
+    return e;
+  }
+
+  @SuppressWarnings("unchecked")
+  public E peek() {
+    long position = head;
+    if (!isPublished(position)) {
+      return null;
+    }
+    return (E) buffer[indexOf(position)];
+  }
+
+  public E take() throws InterruptedException {
+    E e = poll();
+    if (e != null) {
+      return e;
+    }
+    return awaitElement(false, 0L);
+  }
+
+  public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+    E e = poll();
+    if (e != null) {
+      return e;
+    }
+    return awaitElement(true, unit.toNanos(timeout));
+  }
+
+  private E awaitElement(boolean timed, long nanos) throws InterruptedException {
+    long deadline = timed ? System.nanoTime() + nanos : 0L;
+    int spins = 0;
+    for (;;) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      E e = poll();
+      if (e != null) {
+        return e;
+      }
+      if (timed) {
+        nanos = deadline - System.nanoTime();
+        if (nanos <= 0) {
+          return null;
+        }
+      }
+      if (waitStrategy == WaitStrategy.YIELDING) {
+        Thread.yield();
+      } else if (waitStrategy == WaitStrategy.SPIN_THEN_PARK && spins < SPIN_TRIES) {
+        spins++;
+      } else {
+        park(timed, nanos);
+      }
+    }
+  }
+
+  private void park(boolean timed, long nanos) {
+    waitingConsumer = Thread.currentThread();
+    try {
+      // re-check after announcing ourselves, producers publish before they
+      // look for a waiting consumer
+      if (isPublished(head)) {
+        return;
+      }
+      if (timed) {
+        LockSupport.parkNanos(this, nanos);
+      } else {
+        LockSupport.park(this);
+      }
+    } finally {
+      waitingConsumer = null;
+    }
+  }
+
+  public int drainTo(Collection<? super E> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  public int drainTo(Collection<? super E> c, int maxElements) {
+    if (c == null) {
+      throw new NullPointerException();
+    }
+    if (c == this) {
+      throw new IllegalArgumentException();
+    }
+    int n = 0;
+    E e;
+    while (n < maxElements && (e = poll()) != null) {
+      c.add(e);
+      n++;
+    }
+    return n;
+  }
+
+  /**
+   * Removes the head of the queue if it is equal to the argument.
+   *
+   * @throws UnsupportedOperationException if the argument is not the head
+   */
+  public boolean remove(Object o) {
+    if (o == null) {
+      return false;
+    }
+    E e = peek();
+    if (e == null) {
+      return false;
+    }
+    if (o == e || o.equals(e)) {
+      poll();
+      return true;
+    }
+    throw new UnsupportedOperationException("Only the head of a RingBufferBlockingQueue can be removed");
+  }
+
+  public int size() {
+    long h = head;
+    long size = tail.get() - h;
+    if (size < 0) {
+      return 0;
+    }
+    return size > capacity ? capacity : (int) size;
+  }
+
+  public int remainingCapacity() {
+    return capacity - size();
+  }
+
+  /**
+   * Returns an iterator over a snapshot of the published elements, in FIFO
+   * order. The iterator does not support removal.
+   */
+  @SuppressWarnings("unchecked")
+  public Iterator<E> iterator() {
+    List<E> snapshot = new ArrayList<E>();
+    long end = tail.get();
+    for (long position = head; position < end; position++) {
+      if (!isPublished(position)) {
+        break;
+      }
+      Object e = buffer[indexOf(position)];
+      if (e == null) {
+        break;
+      }
+      snapshot.add((E) e);
+    }
+    return Collections.unmodifiableList(snapshot).iterator();
+  }
+}
@@ -0,0 +1,72 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the rate at which permits, such as bytes or file deletions, are
+ * handed out. A caller asking for more permits than the rate allows sleeps
+ * until its share of time has come. Permits are not saved up while idle, so
+ * a burst following a quiet period is throttled as well.
+ * <p/>
+ * This class is thread-safe; callers are served in the order of their
+ * requests.
+ *
+ * @since 1.1.3
+ */
+public class Throttle {
+
+  private final double nanosPerPermit;
+  // the time at which the next permit becomes available
+  private long nextFreeNanos;
+
+  /**
+   * @param permitsPerSecond the sustained rate, must be positive
+   */
+  public Throttle(long permitsPerSecond) {
+    if (permitsPerSecond <= 0) {
+      throw new IllegalArgumentException("permitsPerSecond must be positive");
+    }
+    this.nanosPerPermit = (double) TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+    this.nextFreeNanos = System.nanoTime();
+  }
+
+  /**
+   * Reserve <code>permits</code> permits.
+   *
+   * @return the number of nanoseconds to wait before using them
+   */
+  synchronized long reserve(long permits, long now) {
+    long start = Math.max(now, nextFreeNanos);
+    nextFreeNanos = start + (long) (permits * nanosPerPermit);
+    return start - now;
+  }
+
+  /**
+   * Wait until <code>permits</code> permits are available. If interrupted,
+   * returns early with the interrupt flag of the current thread set.
+   */
+  public void acquire(long permits) {
+    long wait = reserve(permits, System.nanoTime());
+    if (wait <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(wait);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,37 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+/**
+ * How the consumer of a {@link RingBufferBlockingQueue} waits for elements
+ * when the queue is empty.
+ *
+ * @since 1.1.3
+ */
+public enum WaitStrategy {
+  /**
+   * Park the consumer thread immediately. Lowest CPU usage, highest wake-up
+   * latency.
+   */
+  BLOCKING,
+  /**
+   * Busy-spin for a short while, then park. A good compromise for most loads.
+   */
+  SPIN_THEN_PARK,
+  /**
+   * Spin and yield the processor, never park. Lowest latency, but keeps the
+   * consumer thread runnable at all times.
+   */
+  YIELDING;
+}
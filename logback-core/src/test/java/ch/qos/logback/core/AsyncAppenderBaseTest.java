@@ -17,11 +17,21 @@ import ch.qos.logback.core.helpers.NOPAppender;
 import ch.qos.logback.core.read.ListAppender;
 import ch.qos.logback.core.testUtil.DelayingListAppender;
 import ch.qos.logback.core.status.OnConsoleStatusListener;
+import ch.qos.logback.core.status.Status;
 import ch.qos.logback.core.status.StatusChecker;
 import ch.qos.logback.core.testUtil.NPEAppender;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.OverflowPolicy;
+import ch.qos.logback.core.util.QueueType;
+import ch.qos.logback.core.util.WaitStrategy;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -34,7 +44,7 @@ public class AsyncAppenderBaseTest {
 
 
   Context context = new ContextBase();
-  AsyncAppenderBase<Integer> asyncAppenderBase = new AsyncAppenderBase<Integer>();
+  HoldingAsyncAppender asyncAppenderBase = new HoldingAsyncAppender();
   LossyAsyncAppender lossyAsyncAppender = new LossyAsyncAppender();
   DelayingListAppender<Integer> delayingListAppender = new DelayingListAppender<Integer>();
   ListAppender<Integer> listAppender = new ListAppender<Integer>();
@@ -198,12 +208,13 @@ public class AsyncAppenderBaseTest {
     
     asyncAppenderBase.stop();
     
-    //suspend the thread so that we can make the following assertions without race conditions
-    asyncAppenderBase.worker.suspend();
-    
     //confirms that stop exited when runtime reached
+    //checked before suspending the worker, which may be holding the lock of the status manager
     statusChecker.assertContainsMatch("Max queue flush timeout \\(" + maxRuntime + " ms\\) exceeded.");
 
+    //suspend the thread so that we can make the following assertions without race conditions
+    asyncAppenderBase.worker.suspend();
+
     //confirms that the number of events posted are the number of events removed from the queue
     assertEquals(la.list.size(), loopLen - asyncAppenderBase.getNumberOfElementsInQueue());
     
@@ -216,6 +227,235 @@ public class AsyncAppenderBaseTest {
     verify(la, loopLen);
   }
 
+  @Test(timeout = 2000)
+  public void noEventLossInBatchMode() {
+    int bufferSize = 10;
+    int loopLen = bufferSize * 2;
+    asyncAppenderBase.addAppender(delayingListAppender);
+    asyncAppenderBase.setQueueSize(bufferSize);
+    asyncAppenderBase.setMaxBatchSize(4);
+    asyncAppenderBase.setMaxLingerTime(10);
+    asyncAppenderBase.start();
+    for (int i = 0; i < loopLen; i++) {
+      asyncAppenderBase.doAppend(i);
+    }
+    asyncAppenderBase.stop();
+    verify(delayingListAppender, loopLen);
+    for (int i = 0; i < loopLen; i++) {
+      assertEquals(Integer.valueOf(i), delayingListAppender.list.get(i));
+    }
+  }
+
+  @Test
+  public void batchAppenderReceivesWholeBatches() {
+    int loopLen = 5;
+    BatchRecordingAppender batchAppender = new BatchRecordingAppender();
+    batchAppender.setContext(context);
+    batchAppender.start();
+    asyncAppenderBase.addAppender(batchAppender);
+    asyncAppenderBase.setMaxBatchSize(loopLen);
+    asyncAppenderBase.holdWorker = true;
+    asyncAppenderBase.start();
+
+    for (int i = 0; i < loopLen; i++) {
+      asyncAppenderBase.doAppend(i);
+    }
+
+    asyncAppenderBase.releaseWorker();
+    asyncAppenderBase.stop();
+
+    assertEquals(1, batchAppender.batchSizes.size());
+    assertEquals(Integer.valueOf(loopLen), batchAppender.batchSizes.get(0));
+    assertEquals(loopLen, batchAppender.events.size());
+  }
+
+  @Test
+  public void invalidMaxBatchSizeShouldResultInNonStartedAppender() {
+    asyncAppenderBase.addAppender(new NOPAppender<Integer>());
+    asyncAppenderBase.setMaxBatchSize(0);
+    asyncAppenderBase.start();
+    assertFalse(asyncAppenderBase.isStarted());
+    statusChecker.assertContainsMatch("Invalid maxBatchSize");
+  }
+
+  @Test(timeout = 2000)
+  public void noEventLossWithRingBuffer() {
+    int bufferSize = 10;
+    int loopLen = bufferSize * 2;
+    asyncAppenderBase.addAppender(delayingListAppender);
+    asyncAppenderBase.setQueueSize(bufferSize);
+    asyncAppenderBase.setQueueType(QueueType.RING_BUFFER);
+    asyncAppenderBase.start();
+    for (int i = 0; i < loopLen; i++) {
+      asyncAppenderBase.doAppend(i);
+    }
+    asyncAppenderBase.stop();
+    verify(delayingListAppender, loopLen);
+    for (int i = 0; i < loopLen; i++) {
+      assertEquals(Integer.valueOf(i), delayingListAppender.list.get(i));
+    }
+  }
+
+  @Test
+  public void ringBufferWorkerThreadFlushesOnStop() {
+    int loopLen = 5;
+    asyncAppenderBase.addAppender(listAppender);
+    asyncAppenderBase.setQueueType(QueueType.RING_BUFFER);
+    asyncAppenderBase.setWaitStrategy(WaitStrategy.BLOCKING);
+    asyncAppenderBase.setDiscardingThreshold(0);
+    asyncAppenderBase.holdWorker = true;
+    asyncAppenderBase.start();
+
+    for (int i = 0; i < loopLen; i++) {
+      asyncAppenderBase.doAppend(i);
+    }
+    assertEquals(loopLen, asyncAppenderBase.getNumberOfElementsInQueue());
+
+    asyncAppenderBase.releaseWorker();
+    asyncAppenderBase.stop();
+
+    assertEquals(0, asyncAppenderBase.getNumberOfElementsInQueue());
+    verify(listAppender, loopLen);
+  }
+
+  @Test
+  public void neverBlockDropsNewestEventsWhenQueueIsFull() {
+    int bufferSize = 5;
+    int loopLen = bufferSize * 2;
+    asyncAppenderBase.addAppender(listAppender);
+    asyncAppenderBase.setQueueSize(bufferSize);
+    asyncAppenderBase.setDiscardingThreshold(0);
+    asyncAppenderBase.setNeverBlock(true);
+    asyncAppenderBase.holdWorker = true;
+    asyncAppenderBase.start();
+
+    for (int i = 0; i < loopLen; i++) {
+      asyncAppenderBase.doAppend(i);
+    }
+    assertEquals(loopLen - bufferSize, asyncAppenderBase.getDroppedEventCount());
+    assertEquals(loopLen - bufferSize, asyncAppenderBase.getDroppedEventCount(AsyncAppenderBase.DEFAULT_DROP_COUNTER_KEY));
+
+    asyncAppenderBase.releaseWorker();
+    asyncAppenderBase.stop();
+    assertEquals(bufferSize, listAppender.list.size());
+    assertEquals(Integer.valueOf(0), listAppender.list.get(0));
+    statusChecker.assertContainsMatch(".*dropped " + (loopLen - bufferSize) + " events since the last report");
+  }
+
+  @Test
+  public void dropOldestKeepsMostRecentEvents() {
+    int bufferSize = 5;
+    int loopLen = bufferSize * 2;
+    asyncAppenderBase.addAppender(listAppender);
+    asyncAppenderBase.setQueueSize(bufferSize);
+    asyncAppenderBase.setDiscardingThreshold(0);
+    asyncAppenderBase.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+    asyncAppenderBase.holdWorker = true;
+    asyncAppenderBase.start();
+
+    for (int i = 0; i < loopLen; i++) {
+      asyncAppenderBase.doAppend(i);
+    }
+    assertEquals(loopLen - bufferSize, asyncAppenderBase.getDroppedEventCount());
+
+    asyncAppenderBase.releaseWorker();
+    asyncAppenderBase.stop();
+    assertEquals(bufferSize, listAppender.list.size());
+    assertEquals(Integer.valueOf(loopLen - bufferSize), listAppender.list.get(0));
+  }
+
+  @Test
+  public void blockWithTimeoutDropsEventAfterEventDelayLimit() throws InterruptedException {
+    // suspending the worker is not an option here: a suspended worker queued
+    // on the queue's lock would prevent the timed offer from ever returning
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    ListAppender<Integer> blockingAppender = new ListAppender<Integer>() {
+      @Override
+      protected void append(Integer e) {
+        entered.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ie) {
+        }
+        super.append(e);
+      }
+    };
+    blockingAppender.setContext(context);
+    blockingAppender.start();
+    asyncAppenderBase.addAppender(blockingAppender);
+    asyncAppenderBase.setQueueSize(1);
+    asyncAppenderBase.setDiscardingThreshold(0);
+    asyncAppenderBase.setOverflowPolicy(OverflowPolicy.BLOCK_WITH_TIMEOUT);
+    asyncAppenderBase.setEventDelayLimit(new Duration(10));
+    asyncAppenderBase.start();
+
+    asyncAppenderBase.doAppend(0);
+    entered.await();
+    // the worker is blocked on event 0, event 1 fills the queue
+    asyncAppenderBase.doAppend(1);
+    asyncAppenderBase.doAppend(2);
+    assertEquals(1, asyncAppenderBase.getDroppedEventCount());
+
+    release.countDown();
+    asyncAppenderBase.stop();
+    assertEquals(2, blockingAppender.list.size());
+  }
+
+  @Test(timeout = 2000)
+  public void dropSummaryIsReportedWhileQueueIsIdle() throws InterruptedException {
+    int dropSummaryPeriod = 300;
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    ListAppender<Integer> blockingAppender = new ListAppender<Integer>() {
+      @Override
+      protected void append(Integer e) {
+        entered.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ie) {
+        }
+        super.append(e);
+      }
+    };
+    blockingAppender.setContext(context);
+    blockingAppender.start();
+    asyncAppenderBase.addAppender(blockingAppender);
+    asyncAppenderBase.setQueueSize(1);
+    asyncAppenderBase.setDiscardingThreshold(0);
+    asyncAppenderBase.setNeverBlock(true);
+    asyncAppenderBase.setDropSummaryPeriod(new Duration(dropSummaryPeriod));
+    asyncAppenderBase.start();
+
+    asyncAppenderBase.doAppend(0);
+    entered.await();
+    // the worker is blocked on event 0, event 1 fills the queue
+    asyncAppenderBase.doAppend(1);
+    asyncAppenderBase.doAppend(2);
+    assertEquals(1, asyncAppenderBase.getDroppedEventCount());
+    release.countDown();
+
+    // no further event arrives, the summary is due nonetheless
+    String regex = ".*dropped 1 events since the last report";
+    long deadline = System.currentTimeMillis() + 2 * dropSummaryPeriod;
+    while (!statusChecker.containsMatch(Status.WARN, regex) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    statusChecker.assertContainsMatch(Status.WARN, regex);
+    asyncAppenderBase.stop();
+  }
+
+  @Test
+  public void dropOldestFallsBackToDropNewestWithRingBuffer() {
+    asyncAppenderBase.addAppender(listAppender);
+    asyncAppenderBase.setQueueType(QueueType.RING_BUFFER);
+    asyncAppenderBase.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+    asyncAppenderBase.start();
+    asyncAppenderBase.stop();
+    assertEquals(OverflowPolicy.DROP_NEWEST, asyncAppenderBase.getOverflowPolicy());
+    statusChecker.assertContainsMatch("The DROP_OLDEST overflow policy is not supported");
+  }
+
   private void verify(ListAppender la, int expectedSize) {
     assertFalse(la.isStarted());
     assertEquals(expectedSize, la.list.size());
@@ -223,10 +463,45 @@ public class AsyncAppenderBaseTest {
     statusChecker.assertContainsMatch("Worker thread will flush remaining events before exiting.");
   }
 
+  /**
+   * Holds back the worker thread if requested, so that events stay in the
+   * queue until it is released.
+   */
+  static class HoldingAsyncAppender extends AsyncAppenderBase<Integer> {
+    boolean holdWorker = false;
+
+    @Override
+    void startWorker() {
+      if (!holdWorker) {
+        super.startWorker();
+      }
+    }
+
+    void releaseWorker() {
+      super.startWorker();
+    }
+  }
+
   static class LossyAsyncAppender extends AsyncAppenderBase<Integer> {
     @Override
     protected boolean isDiscardable(Integer i) {
       return (i % 3 == 0);
     }
   }
+
+  static class BatchRecordingAppender extends UnsynchronizedAppenderBase<Integer> {
+    List<Integer> batchSizes = new ArrayList<Integer>();
+    List<Integer> events = new ArrayList<Integer>();
+
+    @Override
+    protected void append(Integer i) {
+      appendBatch(Collections.singletonList(i));
+    }
+
+    @Override
+    protected void appendBatch(List<Integer> eventList) {
+      batchSizes.add(eventList.size());
+      events.addAll(eventList);
+    }
+  }
 }
@@ -14,6 +14,7 @@
 package ch.qos.logback.core;
 
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
@@ -23,6 +24,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import ch.qos.logback.core.layout.EchoLayout;
+import ch.qos.logback.core.util.Duration;
 import ch.qos.logback.core.pattern.parser.SamplePatternLayout;
 
 public class OutputStreamAppenderTest {
@@ -116,6 +119,106 @@ public class OutputStreamAppenderTest {
     assertTrue(result, result.endsWith(expectedFooter));
   }
   
+  OutputStreamAppender<Object> buildGroupCommitAppender(ByteArrayOutputStream baos, int maxEvents, long maxLatency) {
+    OutputStreamAppender<Object> wa = new OutputStreamAppender<Object>();
+    wa.setContext(context);
+    LayoutWrappingEncoder<Object> encoder = new LayoutWrappingEncoder<Object>();
+    encoder.setLayout(new EchoLayout<Object>());
+    encoder.setContext(context);
+    wa.setEncoder(encoder);
+    wa.setGroupCommit(true);
+    wa.setGroupCommitMaxEvents(maxEvents);
+    wa.setGroupCommitMaxLatency(new Duration(maxLatency));
+    wa.setOutputStream(baos);
+    wa.start();
+    return wa;
+  }
+
+  @Test
+  public void bytesWrittenIncludePendingEvents() {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    OutputStreamAppender<Object> wa = buildGroupCommitAppender(baos, 3, 60 * 1000);
+    assertEquals(0, wa.getBytesWritten());
+
+    wa.doAppend("a");
+    wa.doAppend("b");
+    assertEquals(0, baos.size());
+    assertEquals(2 * ("a" + CoreConstants.LINE_SEPARATOR).length(), wa.getBytesWritten());
+    wa.doAppend("c");
+    assertEquals(baos.size(), wa.getBytesWritten());
+    wa.stop();
+    assertEquals(0, wa.getBytesWritten());
+  }
+
+  @Test
+  public void groupCommitWaitsForMaxEvents() {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    OutputStreamAppender<Object> wa = buildGroupCommitAppender(baos, 3, 60 * 1000);
+
+    wa.doAppend("a");
+    wa.doAppend("b");
+    assertEquals(0, baos.size());
+    wa.doAppend("c");
+    assertEquals("a" + CoreConstants.LINE_SEPARATOR + "b" + CoreConstants.LINE_SEPARATOR + "c"
+        + CoreConstants.LINE_SEPARATOR, baos.toString());
+
+    wa.doAppend("d");
+    wa.stop();
+    assertTrue(baos.toString().endsWith("d" + CoreConstants.LINE_SEPARATOR));
+  }
+
+  @Test(timeout = 2000)
+  public void groupCommitFlushesAfterMaxLatency() throws InterruptedException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    OutputStreamAppender<Object> wa = buildGroupCommitAppender(baos, 100, 5);
+
+    wa.doAppend("a");
+    while (baos.size() == 0) {
+      Thread.sleep(1);
+    }
+    assertEquals("a" + CoreConstants.LINE_SEPARATOR, baos.toString());
+    wa.stop();
+  }
+
+  @Test
+  public void encodeOutsideLockKeepsEventsIntact() throws InterruptedException {
+    final int threadCount = 4;
+    final int loopLen = 500;
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final OutputStreamAppender<Object> wa = new OutputStreamAppender<Object>();
+    wa.setContext(context);
+    LayoutWrappingEncoder<Object> encoder = new LayoutWrappingEncoder<Object>();
+    encoder.setLayout(new EchoLayout<Object>());
+    encoder.setContext(context);
+    wa.setEncoder(encoder);
+    wa.setEncodeOutsideLock(true);
+    wa.setOutputStream(baos);
+    wa.start();
+
+    Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      final String msg = "thread" + t + "-0123456789";
+      threads[t] = new Thread() {
+        public void run() {
+          for (int i = 0; i < loopLen; i++) {
+            wa.doAppend(msg);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    wa.stop();
+
+    String[] lines = baos.toString().split(CoreConstants.LINE_SEPARATOR);
+    assertEquals(threadCount * loopLen, lines.length);
+    for (String line : lines) {
+      assertTrue(line, line.matches("thread[0-9]-0123456789"));
+    }
+  }
+
   String emtptyIfNull(String s) {
     return s == null ? "" : s;
   }
@@ -22,6 +22,7 @@ import org.junit.runners.Suite.SuiteClasses;
         OutputStreamAppenderTest.class,
         FileAppenderResilienceTest.class,
         FileAppenderResilience_AS_ROOT_Test.class,
-        AsyncAppenderBaseTest.class})
+        AsyncAppenderBaseTest.class,
+        PartitionedAsyncAppenderBaseTest.class})
 public class PackageTest {
 }
@@ -0,0 +1,215 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core;
+
+import ch.qos.logback.core.read.ListAppender;
+import ch.qos.logback.core.status.StatusChecker;
+import ch.qos.logback.core.util.QueueType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionedAsyncAppenderBaseTest {
+
+  Context context = new ContextBase();
+  StatusChecker statusChecker = new StatusChecker(context);
+  ModuloPartitionedAppender partitionedAppender = new ModuloPartitionedAppender();
+
+  @Before
+  public void setUp() {
+    partitionedAppender.setContext(context);
+  }
+
+  ListAppender<Integer> buildListAppender(String name) {
+    ListAppender<Integer> la = new ListAppender<Integer>();
+    la.setContext(context);
+    la.setName(name);
+    la.start();
+    return la;
+  }
+
+  @Test(timeout = 2000)
+  public void everyAppenderReceivesEveryEventInKeyOrder() {
+    int appenderCount = 3;
+    int partitionCount = 3;
+    int loopLen = 300;
+    List<ListAppender<Integer>> listAppenders = new ArrayList<ListAppender<Integer>>();
+    for (int i = 0; i < appenderCount; i++) {
+      ListAppender<Integer> la = buildListAppender("list" + i);
+      listAppenders.add(la);
+      partitionedAppender.addAppender(la);
+    }
+    partitionedAppender.setPartitionCount(partitionCount);
+    partitionedAppender.setQueueSize(10);
+    partitionedAppender.start();
+    for (int i = 0; i < loopLen; i++) {
+      partitionedAppender.doAppend(i);
+    }
+    partitionedAppender.stop();
+
+    for (ListAppender<Integer> la : listAppenders) {
+      assertFalse(la.isStarted());
+      assertEquals(loopLen, la.list.size());
+      int[] previous = new int[partitionCount];
+      Arrays.fill(previous, -1);
+      for (Integer i : la.list) {
+        int key = i % partitionCount;
+        assertTrue(i > previous[key]);
+        previous[key] = i;
+      }
+    }
+    statusChecker.assertIsErrorFree();
+  }
+
+  @Test(timeout = 2000)
+  public void ringBufferPartitionsDeliverAllEvents() {
+    int loopLen = 100;
+    ListAppender<Integer> la = buildListAppender("list");
+    partitionedAppender.addAppender(la);
+    partitionedAppender.setQueueType(QueueType.RING_BUFFER);
+    partitionedAppender.setMaxBatchSize(8);
+    partitionedAppender.start();
+    for (int i = 0; i < loopLen; i++) {
+      partitionedAppender.doAppend(i);
+    }
+    partitionedAppender.stop();
+    assertFalse(la.isStarted());
+    assertEquals(loopLen, la.list.size());
+  }
+
+  @Test(timeout = 2000)
+  public void neverBlockCountsDroppedEvents() throws InterruptedException {
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    ListAppender<Integer> blockingAppender = new ListAppender<Integer>() {
+      @Override
+      protected void append(Integer e) {
+        entered.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException ie) {
+        }
+        super.append(e);
+      }
+    };
+    blockingAppender.setContext(context);
+    blockingAppender.setName("blocking");
+    blockingAppender.start();
+    partitionedAppender.addAppender(blockingAppender);
+    partitionedAppender.setPartitionCount(1);
+    partitionedAppender.setQueueSize(1);
+    partitionedAppender.setDiscardingThreshold(0);
+    partitionedAppender.setNeverBlock(true);
+    partitionedAppender.start();
+
+    partitionedAppender.doAppend(0);
+    entered.await();
+    // the worker is blocked on event 0, event 1 fills the queue
+    partitionedAppender.doAppend(1);
+    partitionedAppender.doAppend(2);
+    assertEquals(1, partitionedAppender.getDroppedEventCount());
+
+    release.countDown();
+    partitionedAppender.stop();
+    assertEquals(2, blockingAppender.list.size());
+    statusChecker.assertContainsMatch(".*dropped 1 events since the last report");
+  }
+
+  @Test(timeout = 2000)
+  public void singleAppenderIsFedByAllPartitions() {
+    int loopLen = 100;
+    ListAppender<Integer> la = buildListAppender("list");
+    partitionedAppender.addAppender(la);
+    partitionedAppender.setPartitionCount(4);
+    partitionedAppender.start();
+    for (int i = 0; i < loopLen; i++) {
+      partitionedAppender.doAppend(i);
+    }
+    partitionedAppender.stop();
+    assertFalse(la.isStarted());
+    assertEquals(loopLen, la.list.size());
+  }
+
+  @Test(timeout = 2000)
+  public void stuckWorkersShareOneFlushDeadline() {
+    int partitionCount = 4;
+    int maxFlushTime = 200;
+    StuckAppender stuckAppender = new StuckAppender();
+    stuckAppender.setContext(context);
+    stuckAppender.start();
+    partitionedAppender.addAppender(stuckAppender);
+    partitionedAppender.setPartitionCount(partitionCount);
+    partitionedAppender.setMaxFlushTime(maxFlushTime);
+    partitionedAppender.start();
+    // keys "0" to "3" fall into distinct partitions, each worker gets stuck
+    for (int i = 0; i < partitionCount; i++) {
+      partitionedAppender.doAppend(i);
+    }
+
+    long start = System.currentTimeMillis();
+    partitionedAppender.stop();
+    long elapsed = System.currentTimeMillis() - start;
+    stuckAppender.release.countDown();
+
+    assertTrue("stop took " + elapsed + " ms", elapsed < 2 * maxFlushTime);
+    statusChecker.assertContainsMatch("Max queue flush timeout \\(" + maxFlushTime + " ms\\) exceeded.");
+  }
+
+  @Test
+  public void noAttachedAppenderShouldResultInNonStartedAppender() {
+    partitionedAppender.start();
+    assertFalse(partitionedAppender.isStarted());
+    statusChecker.assertContainsMatch("No attached appenders found.");
+  }
+
+  @Test
+  public void invalidPartitionCountShouldResultInNonStartedAppender() {
+    partitionedAppender.addAppender(buildListAppender("list"));
+    partitionedAppender.setPartitionCount(0);
+    partitionedAppender.start();
+    assertFalse(partitionedAppender.isStarted());
+    statusChecker.assertContainsMatch("Invalid partition count");
+  }
+
+  static class StuckAppender extends UnsynchronizedAppenderBase<Integer> {
+    final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    protected void append(Integer i) {
+      while (true) {
+        try {
+          release.await();
+          return;
+        } catch (InterruptedException ie) {
+          // stay stuck until released
+        }
+      }
+    }
+  }
+
+  static class ModuloPartitionedAppender extends PartitionedAsyncAppenderBase<Integer> {
+    @Override
+    protected String getPartitionKey(Integer i) {
+      return Integer.toString(i % partitionCount);
+    }
+  }
+}
@@ -18,6 +18,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.util.List;
 
 import ch.qos.logback.core.status.StatusChecker;
@@ -31,6 +33,9 @@ import ch.qos.logback.core.status.Status;
 import ch.qos.logback.core.status.StatusManager;
 import ch.qos.logback.core.testUtil.RandomUtil;
 import ch.qos.logback.core.util.CoreTestConstants;
+import ch.qos.logback.core.util.Duration;
+import ch.qos.logback.core.util.FileOutputMode;
+import ch.qos.logback.core.util.FileSize;
 
 public class FileAppenderTest extends AbstractAppenderTest<Object> {
 
@@ -128,4 +133,98 @@ public class FileAppenderTest extends AbstractAppenderTest<Object> {
     assertTrue(file.exists());
     assertTrue("failed to delete " + file.getAbsolutePath(), file.delete());
   }
+
+  @Test
+  public void allOutputModesWriteTheSameBytes() throws IOException {
+    for (FileOutputMode mode : FileOutputMode.values()) {
+      String filename = CoreTestConstants.OUTPUT_DIR_PREFIX + diff + "fat-outputMode-" + mode + ".log";
+      FileAppender<Object> appender = new FileAppender<Object>();
+      appender.setEncoder(new DummyEncoder<Object>());
+      appender.setAppend(false);
+      appender.setOutputMode(mode);
+      appender.setMappedRegionSize(FileSize.valueOf("64"));
+      appender.setFile(filename);
+      appender.setName("outputMode-" + mode);
+      appender.setContext(context);
+      appender.start();
+      for (int i = 0; i < 100; i++) {
+        appender.doAppend(new Object());
+      }
+      appender.stop();
+
+      File file = new File(filename);
+      StringBuilder expected = new StringBuilder();
+      for (int i = 0; i < 100; i++) {
+        expected.append(DummyEncoder.DUMMY);
+      }
+      RandomAccessFile raf = new RandomAccessFile(file, "r");
+      byte[] bytes = new byte[(int) raf.length()];
+      raf.readFully(bytes);
+      raf.close();
+      assertEquals(mode.toString(), expected.toString(), new String(bytes));
+      assertTrue("failed to delete " + file.getAbsolutePath(), file.delete());
+    }
+  }
+
+  @Test
+  public void prudentModeDisablesMapping() {
+    String filename = CoreTestConstants.OUTPUT_DIR_PREFIX + diff + "fat-prudentMapped.txt";
+    FileAppender<Object> appender = new FileAppender<Object>();
+    appender.setEncoder(new DummyEncoder<Object>());
+    appender.setFile(filename);
+    appender.setName("prudentModeDisablesMapping");
+    appender.setContext(context);
+    appender.setPrudent(true);
+    appender.setOutputMode(FileOutputMode.MAPPED);
+    appender.start();
+
+    assertEquals(FileOutputMode.CHANNEL, appender.getOutputMode());
+    StatusChecker statusChecker = new StatusChecker(context);
+    statusChecker.assertContainsMatch(Status.WARN, "Setting \"OutputMode\" property to CHANNEL");
+    appender.doAppend(new Object());
+    appender.stop();
+    File file = new File(filename);
+    assertEquals(DummyEncoder.DUMMY.length(), file.length());
+    assertTrue("failed to delete " + file.getAbsolutePath(), file.delete());
+  }
+
+  FileAppender<Object> buildPrudentGroupCommitAppender(String filename, String val) {
+    FileAppender<Object> appender = new FileAppender<Object>();
+    appender.setEncoder(new DummyEncoder<Object>(val));
+    appender.setFile(filename);
+    appender.setName("prudent-" + val);
+    appender.setContext(context);
+    appender.setPrudent(true);
+    appender.setGroupCommit(true);
+    appender.setGroupCommitMaxEvents(2);
+    appender.setGroupCommitMaxLatency(new Duration(60 * 1000));
+    appender.start();
+    return appender;
+  }
+
+  @Test
+  public void prudentModeWithGroupCommitAppendsWholeCommits() throws IOException {
+    String filename = CoreTestConstants.OUTPUT_DIR_PREFIX + diff + "fat-prudentGroupCommit.txt";
+    // two appenders on the same file, as two JVMs would have
+    FileAppender<Object> a = buildPrudentGroupCommitAppender(filename, "a");
+    FileAppender<Object> b = buildPrudentGroupCommitAppender(filename, "b");
+    assertTrue(a.isGroupCommit());
+
+    for (int i = 0; i < 3; i++) {
+      a.doAppend(new Object());
+      b.doAppend(new Object());
+    }
+    a.stop();
+    b.stop();
+    assertEquals(Status.INFO, new StatusChecker(context).getHighestLevel(0));
+
+    File file = new File(filename);
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    byte[] bytes = new byte[(int) raf.length()];
+    raf.readFully(bytes);
+    raf.close();
+    // commits after every second event, then once more on stop
+    assertEquals("aabbab", new String(bytes));
+    assertTrue("failed to delete " + file.getAbsolutePath(), file.delete());
+  }
 }
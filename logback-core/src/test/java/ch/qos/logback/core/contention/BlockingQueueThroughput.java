@@ -0,0 +1,100 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.contention;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import ch.qos.logback.core.util.RingBufferBlockingQueue;
+import ch.qos.logback.core.util.WaitStrategy;
+
+/**
+ * Compares the throughput of the queues available to AsyncAppenderBase with
+ * 1, 8 and 64 producer threads and a single draining consumer. Run with
+ * <code>-Xms</code>/<code>-Xmx</code> set to the same value for stable
+ * numbers.
+ */
+public class BlockingQueueThroughput {
+
+  static int QUEUE_SIZE = 256;
+  static int[] PRODUCER_COUNTS = { 1, 8, 64 };
+  static long OVERALL_DURATION_IN_MILLIS = 3000;
+
+  public static void main(String args[]) throws InterruptedException {
+    ThreadedThroughputCalculator tp = new ThreadedThroughputCalculator(OVERALL_DURATION_IN_MILLIS);
+    tp.printEnvironmentInfo("BlockingQueueThroughput");
+
+    for (int producerCount : PRODUCER_COUNTS) {
+      // warm up
+      measure(tp, new ArrayBlockingQueue<Object>(QUEUE_SIZE), producerCount);
+      measure(tp, new RingBufferBlockingQueue<Object>(QUEUE_SIZE, WaitStrategy.SPIN_THEN_PARK), producerCount);
+
+      measure(tp, new ArrayBlockingQueue<Object>(QUEUE_SIZE), producerCount);
+      tp.printThroughput("ArrayBlockingQueue,      " + producerCount + " producers: ");
+      for (WaitStrategy ws : WaitStrategy.values()) {
+        measure(tp, new RingBufferBlockingQueue<Object>(QUEUE_SIZE, ws), producerCount);
+        tp.printThroughput("RingBuffer " + ws + ", " + producerCount + " producers: ");
+      }
+    }
+  }
+
+  static void measure(ThreadedThroughputCalculator tp, BlockingQueue<Object> queue, int producerCount)
+      throws InterruptedException {
+    Consumer consumer = new Consumer(queue);
+    consumer.start();
+    RunnableWithCounterAndDone[] producers = new RunnableWithCounterAndDone[producerCount];
+    for (int i = 0; i < producerCount; i++) {
+      producers[i] = new Producer(queue);
+    }
+    tp.execute(producers);
+    consumer.interrupt();
+    consumer.join();
+  }
+
+  static class Producer extends RunnableWithCounterAndDone {
+    final BlockingQueue<Object> queue;
+    final Object event = new Object();
+
+    Producer(BlockingQueue<Object> queue) {
+      this.queue = queue;
+    }
+
+    public void run() {
+      try {
+        while (!done) {
+          queue.put(event);
+          counter++;
+        }
+      } catch (InterruptedException e) {
+      }
+    }
+  }
+
+  static class Consumer extends Thread {
+    final BlockingQueue<Object> queue;
+
+    Consumer(BlockingQueue<Object> queue) {
+      this.queue = queue;
+    }
+
+    public void run() {
+      try {
+        while (true) {
+          queue.take();
+        }
+      } catch (InterruptedException e) {
+      }
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.contention;
+
+import java.util.Date;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.rolling.DefaultTimeBasedFileNamingAndTriggeringPolicy;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
+import ch.qos.logback.core.rolling.helper.RollingCalendar;
+
+/**
+ * Measures the cost of the per event rollover check of a time based rolling
+ * policy, invoked as by RollingFileAppender, with 1 and 8 threads. For
+ * comparison, also measures computing the next triggering instant with a
+ * calendar against looking it up among the precomputed ones.
+ * <p/>
+ * The tree has no JMH setup, hence this harness.
+ */
+public class IsTriggeringEventThroughput {
+
+  static int[] THREAD_COUNTS = { 1, 8 };
+  static long OVERALL_DURATION_IN_MILLIS = 3000;
+
+  public static void main(String args[]) throws InterruptedException {
+    ThreadedThroughputCalculator tp = new ThreadedThroughputCalculator(OVERALL_DURATION_IN_MILLIS);
+    tp.printEnvironmentInfo("IsTriggeringEventThroughput");
+
+    TimeBasedRollingPolicy<Object> tbrp = buildPolicy();
+    RollingCalendar rc = new RollingCalendar();
+    rc.init("yyyy-MM-dd");
+
+    for (int threadCount : THREAD_COUNTS) {
+      // warm up
+      tp.execute(isTriggeringEventRunners(tbrp, threadCount));
+
+      tp.execute(isTriggeringEventRunners(tbrp, threadCount));
+      tp.printThroughput("isTriggeringEvent,  " + threadCount + " threads: ");
+    }
+
+    // single threaded, as RollingCalendar is not thread-safe
+    tp.execute(new RunnableWithCounterAndDone[] { new CalendarRunner(rc) });
+    tp.execute(new RunnableWithCounterAndDone[] { new CalendarRunner(rc) });
+    tp.printThroughput("calendar computation:     ");
+    tp.execute(new RunnableWithCounterAndDone[] { new BoundaryLookupRunner(rc) });
+    tp.execute(new RunnableWithCounterAndDone[] { new BoundaryLookupRunner(rc) });
+    tp.printThroughput("boundary lookup:          ");
+  }
+
+  static TimeBasedRollingPolicy<Object> buildPolicy() {
+    Context context = new ContextBase();
+    RollingFileAppender<Object> rfa = new RollingFileAppender<Object>();
+    rfa.setContext(context);
+    TimeBasedRollingPolicy<Object> tbrp = new TimeBasedRollingPolicy<Object>();
+    tbrp.setContext(context);
+    tbrp.setParent(rfa);
+    tbrp.setFileNamePattern("target/test-output/perf-%d.log");
+    tbrp.setTimeBasedFileNamingAndTriggeringPolicy(new DefaultTimeBasedFileNamingAndTriggeringPolicy<Object>());
+    tbrp.start();
+    return tbrp;
+  }
+
+  static RunnableWithCounterAndDone[] isTriggeringEventRunners(TimeBasedRollingPolicy<Object> tbrp,
+      int threadCount) {
+    RunnableWithCounterAndDone[] runners = new RunnableWithCounterAndDone[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      runners[i] = new IsTriggeringEventRunner(tbrp);
+    }
+    return runners;
+  }
+
+  static class IsTriggeringEventRunner extends RunnableWithCounterAndDone {
+    final TimeBasedRollingPolicy<Object> tbrp;
+    final Object event = new Object();
+
+    IsTriggeringEventRunner(TimeBasedRollingPolicy<Object> tbrp) {
+      this.tbrp = tbrp;
+    }
+
+    public void run() {
+      while (!done) {
+        // as in RollingFileAppender.subAppend
+        synchronized (tbrp) {
+          tbrp.isTriggeringEvent(null, event);
+        }
+        counter++;
+      }
+    }
+  }
+
+  static class CalendarRunner extends RunnableWithCounterAndDone {
+    final RollingCalendar rc;
+
+    CalendarRunner(RollingCalendar rc) {
+      this.rc = rc;
+    }
+
+    public void run() {
+      Date date = new Date();
+      while (!done) {
+        date.setTime(System.currentTimeMillis());
+        rc.getNextTriggeringMillis(date);
+        counter++;
+      }
+    }
+  }
+
+  static class BoundaryLookupRunner extends RunnableWithCounterAndDone {
+    final RollingCalendar rc;
+
+    BoundaryLookupRunner(RollingCalendar rc) {
+      this.rc = rc;
+    }
+
+    public void run() {
+      while (!done) {
+        rc.getNextTriggeringMillis(System.currentTimeMillis());
+        counter++;
+      }
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.encoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+public class StringBuilderEncoderTest {
+
+  static final String[] CHARSET_NAMES = {"UTF-8", "UTF-16", "ISO-8859-1", "US-ASCII", "windows-1252"};
+
+  // latin, greek, CJK, a surrogate pair and a lone surrogate
+  static final String MIXED = "hello \u03b1\u03b2\u03b3 \u65e5\u672c \ud83d\ude00 \ud800 end";
+
+  ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+  byte[] encode(StringBuilderEncoder sbe, String s) throws IOException {
+    baos.reset();
+    sbe.getBuilder().append(s);
+    sbe.encodeTo(baos);
+    return baos.toByteArray();
+  }
+
+  @Test
+  public void sameBytesAsStringGetBytes() throws IOException {
+    for (String name : CHARSET_NAMES) {
+      StringBuilderEncoder sbe = new StringBuilderEncoder(Charset.forName(name));
+      // twice, to exercise reuse of the encoder and its buffers
+      assertArrayEquals(name, MIXED.getBytes(name), encode(sbe, MIXED));
+      assertArrayEquals(name, MIXED.getBytes(name), encode(sbe, MIXED));
+    }
+  }
+
+  @Test
+  public void nullCharsetMeansPlatformDefault() throws IOException {
+    StringBuilderEncoder sbe = new StringBuilderEncoder(null);
+    assertArrayEquals(MIXED.getBytes(), encode(sbe, MIXED));
+  }
+
+  @Test
+  public void largeMessage() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 2 * StringBuilderEncoder.MAX_RETAINED_CAPACITY; i++) {
+      sb.append((char) ('a' + i % 26));
+    }
+    sb.append('\u03b1');
+    String large = sb.toString();
+
+    StringBuilderEncoder sbe = new StringBuilderEncoder(Charset.forName("UTF-8"));
+    assertArrayEquals(large.getBytes("UTF-8"), encode(sbe, large));
+    // buffers released after the large message must still work
+    assertArrayEquals(MIXED.getBytes("UTF-8"), encode(sbe, MIXED));
+  }
+
+  @Test
+  public void emptyBuilderWritesNothing() throws IOException {
+    StringBuilderEncoder sbe = new StringBuilderEncoder(Charset.forName("UTF-16"));
+    sbe.getBuilder();
+    sbe.encodeTo(baos);
+    assertEquals(0, baos.size());
+  }
+}
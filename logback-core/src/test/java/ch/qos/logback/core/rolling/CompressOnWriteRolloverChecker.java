@@ -0,0 +1,74 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling;
+
+import ch.qos.logback.core.util.Compare;
+import ch.qos.logback.core.util.CoreTestConstants;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks files written with <b>compressOnWrite</b> against the witness files
+ * of {@link DefaultRolloverChecker}. Every file, including the active one, is
+ * expected to be compressed.
+ */
+public class CompressOnWriteRolloverChecker implements RolloverChecker {
+
+  final String testId;
+
+  public CompressOnWriteRolloverChecker(String testId) {
+    this.testId = testId;
+  }
+
+  public void check(List<String> expectedFilenameList) throws IOException {
+    int lastIndex = expectedFilenameList.size() - 1;
+    int i = 0;
+    for (String fn : expectedFilenameList) {
+      String witnessFileName = CoreTestConstants.TEST_SRC_PREFIX + "witness/rolling/tbr-" + testId + "." + i;
+      if (i != lastIndex) {
+        assertTrue(fn.endsWith(".gz"));
+        assertTrue(Compare.gzFileCompare(fn, witnessFileName + ".gz"));
+      } else {
+        // the witness of the active file is not compressed
+        String decompressed = fn + ".decompressed";
+        gunzip(fn, decompressed);
+        assertTrue(Compare.compare(decompressed, witnessFileName));
+      }
+      i++;
+    }
+  }
+
+  static void gunzip(String source, String target) throws IOException {
+    InputStream in = new GZIPInputStream(new FileInputStream(source));
+    OutputStream out = new FileOutputStream(target);
+    try {
+      byte[] buf = new byte[4096];
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        out.write(buf, 0, n);
+      }
+    } finally {
+      in.close();
+      out.close();
+    }
+  }
+}
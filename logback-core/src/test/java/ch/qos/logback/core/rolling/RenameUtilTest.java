@@ -30,7 +30,10 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class RenameUtilTest {
 
@@ -101,8 +104,44 @@ public class RenameUtilTest {
   }
 
   @Test
-  public void renameByCopying() {
+  public void renameByCopying() throws IOException, RolloverFailure {
+    RenameUtil renameUtil = new RenameUtil();
+    renameUtil.setContext(context);
+
+    String src = randomOutputDirAsStr + "src.txt";
+    FileOutputStream fos = new FileOutputStream(src);
+    fos.write(("hello" + diff).getBytes());
+    fos.close();
+    long lastModified = 1000000000000L;
+    new File(src).setLastModified(lastModified);
+
+    String target = randomOutputDirAsStr + "target/target.txt";
+    new File(target).getParentFile().mkdirs();
+    renameUtil.renameByCopying(src, target);
+
+    assertTrue(statusChecker.isErrorFree(0));
+    assertFalse(new File(src).exists());
+    assertEquals(("hello" + diff).length(), new File(target).length());
+    assertEquals(lastModified, new File(target).lastModified());
+    // no temporary file left behind
+    assertEquals(1, new File(target).getParentFile().list().length);
+  }
+
+  @Test
+  public void failedRenameByCopyingKeepsSource() throws IOException {
+    RenameUtil renameUtil = new RenameUtil();
+    renameUtil.setContext(context);
 
+    String src = randomOutputDirAsStr + "missing.txt";
+    String target = randomOutputDirAsStr + "target2/target.txt";
+    new File(target).getParentFile().mkdirs();
+    try {
+      renameUtil.renameByCopying(src, target);
+      fail("expected a RolloverFailure");
+    } catch (RolloverFailure expected) {
+    }
+    assertFalse(new File(target).exists());
+    assertEquals(0, new File(target).getParentFile().list().length);
   }
 
 }
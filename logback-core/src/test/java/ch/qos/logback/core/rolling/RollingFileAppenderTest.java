@@ -18,15 +18,35 @@ import ch.qos.logback.core.Context;
 import ch.qos.logback.core.ContextBase;
 import ch.qos.logback.core.appender.AbstractAppenderTest;
 import ch.qos.logback.core.encoder.DummyEncoder;
+import ch.qos.logback.core.encoder.EchoEncoder;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import ch.qos.logback.core.layout.DummyLayout;
+import ch.qos.logback.core.rolling.helper.BlockGZIPOutputStream;
 import ch.qos.logback.core.status.Status;
 import ch.qos.logback.core.status.StatusChecker;
 import ch.qos.logback.core.testUtil.RandomUtil;
 import ch.qos.logback.core.util.CoreTestConstants;
+import ch.qos.logback.core.util.FileOutputMode;
+import ch.qos.logback.core.util.FileSize;
 import ch.qos.logback.core.util.StatusPrinter;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
 import static org.junit.Assert.*;
 
 public class RollingFileAppenderTest extends AbstractAppenderTest<Object> {
@@ -112,7 +132,6 @@ public class RollingFileAppenderTest extends AbstractAppenderTest<Object> {
     rfa.setContext(context);
     rfa.setRollingPolicy(tbrp);
     rfa.setFile("x");
-    StatusPrinter.print(context);
     StatusChecker statusChecker = new StatusChecker(context.getStatusManager());
     statusChecker.assertContainsMatch(Status.ERROR,
             "File property must be set before any triggeringPolicy ");
@@ -150,7 +169,6 @@ public class RollingFileAppenderTest extends AbstractAppenderTest<Object> {
     rfa.setRollingPolicy(tbrp);
     rfa.start();
 
-    StatusPrinter.print(context);
     assertTrue(tbrp.isStarted());
     assertTrue(rfa.isStarted());
     rfa.stop();
@@ -178,7 +196,6 @@ public class RollingFileAppenderTest extends AbstractAppenderTest<Object> {
 
     rfa.start();
 
-    StatusPrinter.print(context);
     assertTrue(fwRollingPolicy.isStarted());
     assertTrue(sbTriggeringPolicy.isStarted());
     assertTrue(rfa.isStarted());
@@ -207,4 +224,256 @@ public class RollingFileAppenderTest extends AbstractAppenderTest<Object> {
     assertTrue("Missing error: " + msg, containsMatch);
   }
 
+  @Test
+  public void mappedOutputModeTruncatesOnRollover() {
+    rfa.setContext(context);
+    rfa.setFile(randomOutputDir + "mapped.log");
+    rfa.setOutputMode(FileOutputMode.MAPPED);
+    rfa.setMappedRegionSize(FileSize.valueOf("1 kb"));
+
+    FixedWindowRollingPolicy fwRollingPolicy = new FixedWindowRollingPolicy();
+    fwRollingPolicy.setContext(context);
+    fwRollingPolicy.setFileNamePattern(randomOutputDir + "mapped-%i.log");
+    fwRollingPolicy.setParent(rfa);
+    fwRollingPolicy.start();
+    SizeBasedTriggeringPolicy<Object> sbTriggeringPolicy = new SizeBasedTriggeringPolicy<Object>();
+    sbTriggeringPolicy.setContext(context);
+    sbTriggeringPolicy.start();
+    rfa.setRollingPolicy(fwRollingPolicy);
+    rfa.setTriggeringPolicy(sbTriggeringPolicy);
+    rfa.start();
+    assertTrue(rfa.isStarted());
+
+    rfa.doAppend("a");
+    rfa.doAppend("b");
+    rfa.rollover();
+    rfa.doAppend("c");
+    rfa.stop();
+
+    assertEquals(2 * DummyEncoder.DUMMY.length(), new File(randomOutputDir + "mapped-1.log").length());
+    assertEquals(DummyEncoder.DUMMY.length(), new File(randomOutputDir + "mapped.log").length());
+  }
+
+  FixedWindowRollingPolicy startSizeBasedRollingFileAppender(String fileName, int maxFileSize) {
+    rfa.setContext(context);
+    rfa.setFile(randomOutputDir + fileName + ".log");
+    FixedWindowRollingPolicy fwRollingPolicy = new FixedWindowRollingPolicy();
+    fwRollingPolicy.setContext(context);
+    fwRollingPolicy.setFileNamePattern(randomOutputDir + fileName + "-%i.log");
+    fwRollingPolicy.setParent(rfa);
+    fwRollingPolicy.start();
+    SizeBasedTriggeringPolicy<Object> sbTriggeringPolicy = new SizeBasedTriggeringPolicy<Object>();
+    sbTriggeringPolicy.setContext(context);
+    sbTriggeringPolicy.setMaxFileSize(Integer.toString(maxFileSize));
+    sbTriggeringPolicy.start();
+    rfa.setRollingPolicy(fwRollingPolicy);
+    rfa.setTriggeringPolicy(sbTriggeringPolicy);
+    rfa.start();
+    assertTrue(rfa.isStarted());
+    return fwRollingPolicy;
+  }
+
+  @Test
+  public void sizeBasedRolloverHappensAtExactSize() {
+    // the mapped file is much longer than its data, a burst of events
+    // leaves no time for a periodic check of the file length
+    rfa.setOutputMode(FileOutputMode.MAPPED);
+    rfa.setMappedRegionSize(FileSize.valueOf("1 kb"));
+    startSizeBasedRollingFileAppender("exact", 3 * DummyEncoder.DUMMY.length());
+
+    for (int i = 0; i < 7; i++) {
+      rfa.doAppend("e" + i);
+    }
+    rfa.stop();
+
+    assertEquals(3 * DummyEncoder.DUMMY.length(), new File(randomOutputDir + "exact-2.log").length());
+    assertEquals(3 * DummyEncoder.DUMMY.length(), new File(randomOutputDir + "exact-1.log").length());
+    assertEquals(DummyEncoder.DUMMY.length(), new File(randomOutputDir + "exact.log").length());
+  }
+
+  @Test
+  public void sizeBasedRolloverCountsBytesAlreadyInFile() throws IOException {
+    new File(randomOutputDir).mkdirs();
+    FileOutputStream fos = new FileOutputStream(randomOutputDir + "existing.log");
+    fos.write((DummyEncoder.DUMMY + DummyEncoder.DUMMY).getBytes());
+    fos.close();
+
+    startSizeBasedRollingFileAppender("existing", 3 * DummyEncoder.DUMMY.length());
+    assertEquals(2 * DummyEncoder.DUMMY.length(), rfa.getBytesWritten());
+    rfa.doAppend("a");
+    rfa.doAppend("b");
+    rfa.stop();
+
+    assertEquals(3 * DummyEncoder.DUMMY.length(), new File(randomOutputDir + "existing-1.log").length());
+    assertEquals(DummyEncoder.DUMMY.length(), new File(randomOutputDir + "existing.log").length());
+  }
+
+  FixedWindowRollingPolicy startRollingFileAppenderWithManifest(String fileName) {
+    rfa.setContext(context);
+    rfa.setEncoder(new EchoEncoder<Object>());
+    rfa.setFile(randomOutputDir + fileName + ".log");
+    FixedWindowRollingPolicy fwRollingPolicy = new FixedWindowRollingPolicy();
+    fwRollingPolicy.setContext(context);
+    fwRollingPolicy.setFileNamePattern(randomOutputDir + fileName + "-%i.log");
+    fwRollingPolicy.setMaxIndex(3);
+    fwRollingPolicy.setManifestFile(randomOutputDir + fileName + ".manifest");
+    fwRollingPolicy.setParent(rfa);
+    fwRollingPolicy.start();
+    rfa.setRollingPolicy(fwRollingPolicy);
+    rfa.setTriggeringPolicy(new SizeBasedTriggeringPolicy<Object>());
+    rfa.start();
+    assertTrue(rfa.isStarted());
+    return fwRollingPolicy;
+  }
+
+  @Test
+  public void manifestKeepsArchiveNames() throws IOException {
+    startRollingFileAppenderWithManifest("manifest");
+    for (int i = 0; i < 5; i++) {
+      rfa.doAppend("e" + i);
+      rfa.rollover();
+    }
+    rfa.stop();
+
+    // the fourth and fifth archives replaced the first and second ones
+    assertEquals("e3", firstLine(randomOutputDir + "manifest-1.log"));
+    assertEquals("e4", firstLine(randomOutputDir + "manifest-2.log"));
+    assertEquals("e2", firstLine(randomOutputDir + "manifest-3.log"));
+    assertEquals(Arrays.asList(randomOutputDir + "manifest-2.log", randomOutputDir + "manifest-1.log",
+        randomOutputDir + "manifest-3.log"), lines(randomOutputDir + "manifest.manifest"));
+  }
+
+  @Test
+  public void missingManifestIsRebuiltFromModificationTimes() throws IOException {
+    new File(randomOutputDir).mkdirs();
+    File older = new File(randomOutputDir + "rebuilt-1.log");
+    File newer = new File(randomOutputDir + "rebuilt-2.log");
+    new FileOutputStream(older).close();
+    new FileOutputStream(newer).close();
+    older.setLastModified(System.currentTimeMillis() - 20000);
+    newer.setLastModified(System.currentTimeMillis() - 10000);
+
+    startRollingFileAppenderWithManifest("rebuilt");
+    rfa.doAppend("a");
+    rfa.rollover();
+    rfa.stop();
+
+    assertEquals("a", firstLine(randomOutputDir + "rebuilt-3.log"));
+    assertEquals(Arrays.asList(randomOutputDir + "rebuilt-3.log", newer.getPath(), older.getPath()),
+        lines(randomOutputDir + "rebuilt.manifest"));
+  }
+
+  List<String> lines(String filename) throws IOException {
+    BufferedReader reader = new BufferedReader(new FileReader(filename));
+    try {
+      List<String> lines = new ArrayList<String>();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+      return lines;
+    } finally {
+      reader.close();
+    }
+  }
+
+  String firstLine(String filename) throws IOException {
+    return lines(filename).get(0);
+  }
+
+  @Test
+  public void compressOnWriteRequiresGZCompression() {
+    rfa.setContext(context);
+    rfa.setCompressOnWrite(true);
+    tbrp.setFileNamePattern(randomOutputDir + "cow-%d.log.zip");
+    tbrp.start();
+    rfa.setRollingPolicy(tbrp);
+    rfa.start();
+
+    assertFalse(rfa.isStarted());
+    StatusChecker checker = new StatusChecker(context);
+    checker.assertContainsMatch(Status.ERROR, "The \"compressOnWrite\" property requires");
+  }
+
+  @Test
+  public void compressOnWriteResumesAfterIncompleteBlock() throws IOException {
+    // a file cut in the middle of its third block, as after a crash
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    BlockGZIPOutputStream bgzos = new BlockGZIPOutputStream(baos, Deflater.DEFAULT_COMPRESSION, 1000);
+    bgzos.write(new byte[2500]);
+    bgzos.close();
+    byte[] compressed = baos.toByteArray();
+    new File(randomOutputDir).mkdirs();
+    FileOutputStream fos = new FileOutputStream(randomOutputDir + "cow.log");
+    fos.write(compressed, 0, compressed.length - 5);
+    fos.close();
+
+    rfa.setContext(context);
+    rfa.setFile(randomOutputDir + "cow.log");
+    rfa.setCompressOnWrite(true);
+    FixedWindowRollingPolicy fwRollingPolicy = new FixedWindowRollingPolicy();
+    fwRollingPolicy.setContext(context);
+    fwRollingPolicy.setFileNamePattern(randomOutputDir + "cow-%i.log.gz");
+    fwRollingPolicy.setParent(rfa);
+    fwRollingPolicy.start();
+    SizeBasedTriggeringPolicy<Object> sbTriggeringPolicy = new SizeBasedTriggeringPolicy<Object>();
+    sbTriggeringPolicy.setContext(context);
+    sbTriggeringPolicy.start();
+    rfa.setRollingPolicy(fwRollingPolicy);
+    rfa.setTriggeringPolicy(sbTriggeringPolicy);
+    rfa.start();
+    assertTrue(rfa.isStarted());
+
+    rfa.doAppend("a");
+    rfa.rollover();
+    rfa.doAppend("b");
+    rfa.stop();
+
+    StatusChecker checker = new StatusChecker(context);
+    checker.assertContainsMatch(Status.WARN, "Removed \\d+ bytes of an incomplete compressed block");
+    // the rolled over file was only renamed
+    assertEquals(2000 + DummyEncoder.DUMMY.length(), gunzippedLength(randomOutputDir + "cow-1.log.gz"));
+    assertEquals(DummyEncoder.DUMMY.length(), gunzippedLength(randomOutputDir + "cow.log"));
+  }
+
+  @Test
+  public void compressOnWriteWithImmediateFlushEndsBlockOnEachEvent() throws IOException {
+    LayoutWrappingEncoder<Object> encoder = new LayoutWrappingEncoder<Object>();
+    encoder.setLayout(new DummyLayout<Object>());
+    encoder.setContext(context);
+    encoder.start();
+    rfa.setEncoder(encoder);
+    rfa.setContext(context);
+    rfa.setFile(randomOutputDir + "cow-flush.log");
+    rfa.setCompressOnWrite(true);
+    tbrp.setFileNamePattern(randomOutputDir + "cow-flush-%d.log.gz");
+    tbrp.start();
+    rfa.setRollingPolicy(tbrp);
+    rfa.start();
+    assertTrue(rfa.isStarted());
+
+    rfa.doAppend("a");
+    rfa.doAppend("b");
+    // both events can be read back before the file is closed
+    assertEquals(2 * DummyLayout.DUMMY.length(), gunzippedLength(randomOutputDir + "cow-flush.log"));
+    rfa.stop();
+
+    StatusChecker checker = new StatusChecker(context);
+    checker.assertContainsMatch(Status.INFO, "Each flush of the encoder ends a compressed block");
+  }
+
+  long gunzippedLength(String filename) throws IOException {
+    InputStream in = new GZIPInputStream(new FileInputStream(filename));
+    try {
+      long length = 0;
+      byte[] buf = new byte[1024];
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        length += n;
+      }
+      return length;
+    } finally {
+      in.close();
+    }
+  }
 }
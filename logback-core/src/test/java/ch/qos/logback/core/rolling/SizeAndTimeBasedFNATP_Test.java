@@ -15,17 +15,22 @@ package ch.qos.logback.core.rolling;
 
 import ch.qos.logback.core.encoder.EchoEncoder;
 import ch.qos.logback.core.status.InfoStatus;
+import ch.qos.logback.core.status.StatusChecker;
 import ch.qos.logback.core.status.StatusManager;
+import ch.qos.logback.core.util.CoreTestConstants;
 import ch.qos.logback.core.util.StatusPrinter;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
+import static org.junit.Assert.assertEquals;
+
 public class SizeAndTimeBasedFNATP_Test extends ScaffoldingForRollingTests {
   private SizeAndTimeBasedFNATP sizeAndTimeBasedFNATP = null;
   private RollingFileAppender<Object> rfa1 = new RollingFileAppender<Object>();
@@ -37,6 +42,7 @@ public class SizeAndTimeBasedFNATP_Test extends ScaffoldingForRollingTests {
   int fileSize = 0;
   int fileIndexCounter = 0;
   int sizeThreshold = 0;
+  String counterStateFile = null;
 
 
   @Before
@@ -59,6 +65,7 @@ public class SizeAndTimeBasedFNATP_Test extends ScaffoldingForRollingTests {
     sizeAndTimeBasedFNATP = new SizeAndTimeBasedFNATP<Object>();
     tbrp.setContext(context);
     sizeAndTimeBasedFNATP.setMaxFileSize("" + sizeThreshold);
+    sizeAndTimeBasedFNATP.setCounterStateFile(counterStateFile);
     tbrp.setTimeBasedFileNamingAndTriggeringPolicy(sizeAndTimeBasedFNATP);
     tbrp.setFileNamePattern(filenamePattern);
     tbrp.setParent(rfa);
@@ -193,4 +200,30 @@ public class SizeAndTimeBasedFNATP_Test extends ScaffoldingForRollingTests {
     List<String> zipFiles = filterElementsInListBySuffix(".zip");
     checkZipEntryMatchesZipFilename(zipFiles);
   }
+
+  @Test
+  public void noCompression_FileBlank_WithStopStart_CounterStateFile_8() throws Exception {
+    counterStateFile = CoreTestConstants.OUTPUT_DIR_PREFIX + diff + ".counter";
+    generic("test8", null, WITH_SECOND_PHASE, DEFAULT_COMPRESSION_SUFFIX);
+    StatusChecker checker = new StatusChecker(context);
+    checker.assertContainsMatch("Resuming with counter \\d+ as saved in");
+  }
+
+  @Test
+  public void noCompression_FileSet_WithStopStart_CounterStateFile_9() throws Exception {
+    counterStateFile = CoreTestConstants.OUTPUT_DIR_PREFIX + diff + ".counter";
+    generic("test9", "test9.log", WITH_SECOND_PHASE, DEFAULT_COMPRESSION_SUFFIX);
+  }
+
+  @Test
+  public void staleCounterStateFileIsIgnored() throws Exception {
+    counterStateFile = CoreTestConstants.OUTPUT_DIR_PREFIX + diff + ".counter";
+    new File(CoreTestConstants.OUTPUT_DIR_PREFIX).mkdirs();
+    FileOutputStream fos = new FileOutputStream(counterStateFile);
+    fos.write("fileName=some/other/file.log\ncounter=7\n".getBytes());
+    fos.close();
+    generic("test10", null, FIRST_PHASE_ONLY, DEFAULT_COMPRESSION_SUFFIX);
+    StatusChecker checker = new StatusChecker(context);
+    assertEquals(0, checker.matchCount("Resuming with counter"));
+  }
 }
@@ -18,9 +18,13 @@ import ch.qos.logback.core.ContextBase;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Calendar;
+import java.util.TimeZone;
 import java.util.logging.Logger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Ceki G&uuml;c&uuml;
@@ -81,4 +85,31 @@ public class TimeBasedFileNamingAndTriggeringPolicyBaseTest {
     assertEquals("foo-2011-12/59.log", elapsedPeriodsFileName);
   }
 
+  @Test
+  public void periodsFollowTheTimeZoneOfTheDateToken() {
+    // a time zone far from any likely default one
+    TimeZone timeZone = TimeZone.getTimeZone("Pacific/Kiritimati");
+    // Tuesday December 20th 17:59:01 CET 2011
+    long startTime = 1324400341553L;
+    tbrp.setFileNamePattern("foo-%d{yyyy-MM-dd, Pacific/Kiritimati}.log");
+    tbrp.start();
+
+    timeBasedFNATP.setCurrentTime(startTime);
+    timeBasedFNATP.start();
+
+    Calendar midnight = Calendar.getInstance(timeZone);
+    midnight.setTimeInMillis(startTime);
+    midnight.set(Calendar.HOUR_OF_DAY, 0);
+    midnight.set(Calendar.MINUTE, 0);
+    midnight.set(Calendar.SECOND, 0);
+    midnight.set(Calendar.MILLISECOND, 0);
+    midnight.add(Calendar.DATE, 1);
+
+    timeBasedFNATP.setCurrentTime(midnight.getTimeInMillis() - 1);
+    assertFalse(timeBasedFNATP.isTriggeringEvent(null, null));
+    timeBasedFNATP.setCurrentTime(midnight.getTimeInMillis());
+    assertTrue(timeBasedFNATP.isTriggeringEvent(null, null));
+    assertEquals("foo-2011-12-21.log", timeBasedFNATP.getElapsedPeriodsFileName());
+  }
+
 }
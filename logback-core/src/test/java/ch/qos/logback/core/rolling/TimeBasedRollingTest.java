@@ -66,6 +66,9 @@ public class TimeBasedRollingTest extends ScaffoldingForRollingTests {
 
   RolloverChecker rolloverChecker;
 
+  boolean asyncRollover = false;
+  boolean compressOnWrite = false;
+
   @Before
   @Override
   public void setUp() {
@@ -79,6 +82,7 @@ public class TimeBasedRollingTest extends ScaffoldingForRollingTests {
   void initRFA(RollingFileAppender<Object> rfa, String filename) {
     rfa.setContext(context);
     rfa.setEncoder(encoder);
+    rfa.setCompressOnWrite(compressOnWrite);
     if (filename != null) {
       rfa.setFile(filename);
     }
@@ -92,6 +96,7 @@ public class TimeBasedRollingTest extends ScaffoldingForRollingTests {
     tbrp.setParent(rfa);
     tbrp.timeBasedFileNamingAndTriggeringPolicy = new DefaultTimeBasedFileNamingAndTriggeringPolicy<Object>();
     tbrp.timeBasedFileNamingAndTriggeringPolicy.setCurrentTime(givenTime);
+    tbrp.setAsyncRollover(asyncRollover);
     rfa.setRollingPolicy(tbrp);
     tbrp.start();
     rfa.start();
@@ -127,7 +132,10 @@ public class TimeBasedRollingTest extends ScaffoldingForRollingTests {
     }
     waitForJobsToComplete();
 
-    massageExpectedFilesToCorresponToCurrentTarget(fileName, fileOptionIsSet);
+    // with compressOnWrite, the active file keeps its .gz suffix
+    if (!compressOnWrite || fileOptionIsSet) {
+      massageExpectedFilesToCorresponToCurrentTarget(fileName, fileOptionIsSet);
+    }
     StatusPrinter.print(context);
     rolloverChecker.check(expectedFilenameList);
   }
@@ -196,6 +204,46 @@ public class TimeBasedRollingTest extends ScaffoldingForRollingTests {
     defaultTest("test6", "test6", ".gz", FILE_OPTION_SET, NO_RESTART);
   }
 
+  @Test
+  public void asyncRollover_withCompression_FileBlank_NoRestart_2() throws IOException {
+    asyncRollover = true;
+    defaultTest("test2", "test2async", ".gz", FILE_OPTION_BLANK, NO_RESTART);
+  }
+
+  @Test
+  public void asyncRollover_noCompression_FileSet_StopRestart_4() throws IOException {
+    asyncRollover = true;
+    defaultTest("test4", "test4async", "", FILE_OPTION_SET, WITH_RESTART);
+  }
+
+  @Test
+  public void asyncRollover_withCompression_FileSet_NoRestart_6() throws IOException {
+    asyncRollover = true;
+    defaultTest("test6", "test6async", ".gz", FILE_OPTION_SET, NO_RESTART);
+  }
+
+  @Test
+  public void compressOnWrite_FileBlank_NoRestart_2() throws IOException {
+    compressOnWrite = true;
+    rolloverChecker = new CompressOnWriteRolloverChecker("test2");
+    genericTest("test2", "test2cow", ".gz", FILE_OPTION_BLANK, NO_RESTART);
+  }
+
+  @Test
+  public void compressOnWrite_FileSet_NoRestart_6() throws IOException {
+    compressOnWrite = true;
+    rolloverChecker = new CompressOnWriteRolloverChecker("test6");
+    genericTest("test6", "test6cow", ".gz", FILE_OPTION_SET, NO_RESTART);
+  }
+
+  @Test
+  public void asyncRollover_compressOnWrite_FileBlank_NoRestart_2() throws IOException {
+    asyncRollover = true;
+    compressOnWrite = true;
+    rolloverChecker = new CompressOnWriteRolloverChecker("test2");
+    genericTest("test2", "test2asynccow", ".gz", FILE_OPTION_BLANK, NO_RESTART);
+  }
+
   // LOGBACK-168
   @Test
   public void withMissingTargetDirWithCompression() throws IOException {
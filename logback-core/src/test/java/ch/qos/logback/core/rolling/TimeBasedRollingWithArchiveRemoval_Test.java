@@ -19,6 +19,7 @@ import ch.qos.logback.core.encoder.EchoEncoder;
 import ch.qos.logback.core.rolling.helper.RollingCalendar;
 import ch.qos.logback.core.testUtil.RandomUtil;
 import ch.qos.logback.core.util.CoreTestConstants;
+import ch.qos.logback.core.util.FileSize;
 import ch.qos.logback.core.util.StatusPrinter;
 import org.junit.Before;
 import org.junit.Test;
@@ -54,6 +55,8 @@ public class TimeBasedRollingWithArchiveRemoval_Test extends ScaffoldingForRolli
 
   int slashCount = 0;
 
+  FileSize totalSizeCap = null;
+
   @Before
   public void setUp() {
     super.setUp();
@@ -225,6 +228,64 @@ public class TimeBasedRollingWithArchiveRemoval_Test extends ScaffoldingForRolli
   }
 
 
+  // a full period's file holds about 35 KB
+  @Test
+  public void totalSizeCapWithoutMaxHistory() {
+    totalSizeCap = FileSize.valueOf("100 KB");
+    logOverMultiplePeriodsContinuously(currentTime, randomOutputDir + "clean-%d{" + DAILY_DATE_PATTERN + "}.txt",
+            MILLIS_IN_DAY, TimeBasedRollingPolicy.INFINITE_HISTORY, 10);
+    checkArchivesWithinTotalSizeCap(5);
+  }
+
+  @Test
+  public void maxHistoryEnforcedByCatalogWithCompression() {
+    totalSizeCap = FileSize.valueOf("10 MB");
+    int maxHistory = 4;
+    logOverMultiplePeriodsContinuously(currentTime, randomOutputDir + "clean-%d{" + DAILY_DATE_PATTERN + "}.txt.gz",
+            MILLIS_IN_DAY, maxHistory, maxHistory * 3);
+    check(expectedCountWithoutFolders(maxHistory));
+  }
+
+  @Test
+  public void totalSizeCapCountsArchivesFoundOnStart() {
+    String fileNamePattern = randomOutputDir + "/%d{" + DAILY_DATE_PATTERN + "}/clean.txt";
+    long endTime = logOverMultiplePeriodsContinuously(currentTime, fileNamePattern, MILLIS_IN_DAY,
+            TimeBasedRollingPolicy.INFINITE_HISTORY, 5);
+    check(6 * 2);
+    FileSize cap = FileSize.valueOf("100 KB");
+    assertTrue(archivedSize() > cap.getSize());
+
+    rfa = new RollingFileAppender<Object>();
+    tbrp = new TimeBasedRollingPolicy<Object>();
+    tbfnatp = new DefaultTimeBasedFileNamingAndTriggeringPolicy<Object>();
+    totalSizeCap = cap;
+    logOverMultiplePeriodsContinuously(endTime + MILLIS_IN_DAY, fileNamePattern, MILLIS_IN_DAY,
+            TimeBasedRollingPolicy.INFINITE_HISTORY, 1);
+    // archives of the first run were counted against the cap
+    checkArchivesWithinTotalSizeCap(5);
+  }
+
+  long archivedSize() {
+    List<File> fileList = new ArrayList<File>();
+    findFilesInFolderRecursivelyByPatterMatch(new File(randomOutputDir), fileList, "clean.*");
+    File activeFile = new File(tbrp.getActiveFileName());
+    long size = 0;
+    for (File f : fileList) {
+      if (!f.getAbsoluteFile().equals(activeFile.getAbsoluteFile())) {
+        size += f.length();
+      }
+    }
+    return size;
+  }
+
+  void checkArchivesWithinTotalSizeCap(int maxFileCount) {
+    assertTrue(archivedSize() <= totalSizeCap.getSize());
+    assertEquals(archivedSize(), tbrp.archiveCatalog.getTotalSize());
+    List<File> fileList = new ArrayList<File>();
+    findFilesInFolderRecursivelyByPatterMatch(new File(randomOutputDir), fileList, "clean.*");
+    assertTrue("too many files: " + fileList.size(), fileList.size() <= maxFileCount);
+  }
+
   int expectedCountWithoutFolders(int maxHistory) {
     return maxHistory + 1;
   }
@@ -248,6 +309,7 @@ public class TimeBasedRollingWithArchiveRemoval_Test extends ScaffoldingForRolli
     tbrp.setMaxHistory(maxHistory);
     tbrp.setParent(rfa);
     tbrp.setCleanHistoryOnStart(cleanHistoryOnStart);
+    tbrp.setTotalSizeCap(totalSizeCap);
     tbrp.timeBasedFileNamingAndTriggeringPolicy = tbfnatp;
     tbrp.timeBasedFileNamingAndTriggeringPolicy.setCurrentTime(currentTime);
     tbrp.start();
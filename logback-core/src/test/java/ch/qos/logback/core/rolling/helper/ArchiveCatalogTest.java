@@ -0,0 +1,128 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import org.junit.Test;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.testUtil.RandomUtil;
+import ch.qos.logback.core.util.CoreTestConstants;
+
+public class ArchiveCatalogTest {
+
+  Context context = new ContextBase();
+  String outputDir = CoreTestConstants.OUTPUT_DIR_PREFIX + RandomUtil.getPositiveInt() + "/";
+
+  ArchiveCatalog buildCatalog(String pattern) {
+    ArchiveCatalog catalog = new ArchiveCatalog(new FileNamePattern(pattern, context));
+    catalog.setContext(context);
+    return catalog;
+  }
+
+  File createFile(String name, int size) throws IOException {
+    File file = new File(outputDir + name);
+    file.getParentFile().mkdirs();
+    FileOutputStream fos = new FileOutputStream(file);
+    fos.write(new byte[size]);
+    fos.close();
+    return file;
+  }
+
+  @Test
+  public void scanFindsArchivesInDatedFolders() throws IOException {
+    createFile("2015/03/app.0.log.gz", 10);
+    createFile("2015/03/app.1.log.gz", 20);
+    createFile("2015/04/app.0.log.gz", 40);
+    createFile("2015/04/unrelated.txt", 1000);
+    createFile("app.0.log.gz", 1000);
+
+    ArchiveCatalog catalog = buildCatalog(outputDir + "%d{yyyy/MM}/app.%i.log.gz");
+    catalog.scan(null);
+    assertEquals(3, catalog.size());
+    assertEquals(70, catalog.getTotalSize());
+  }
+
+  @Test
+  public void scanSkipsActiveFile() throws IOException {
+    createFile("app-2015-03-01.log", 10);
+    createFile("app-2015-03-02.log", 20);
+
+    ArchiveCatalog catalog = buildCatalog(outputDir + "app-%d.log");
+    catalog.scan(outputDir + "app-2015-03-02.log");
+    assertEquals(1, catalog.size());
+    assertEquals(10, catalog.getTotalSize());
+  }
+
+  @Test
+  public void capDeletesOldestFirst() throws IOException {
+    // the index sorts numerically, not alphabetically
+    File f0 = createFile("app-2015-03-01.2.log", 10);
+    File f1 = createFile("app-2015-03-01.10.log", 10);
+    File f2 = createFile("app-2015-03-02.0.log", 10);
+
+    ArchiveCatalog catalog = buildCatalog(outputDir + "app-%d.%i.log");
+    catalog.scan(null);
+    File f3 = createFile("app-2015-03-03.0.log", 10);
+    catalog.add(f3.getPath());
+    assertEquals(40, catalog.getTotalSize());
+
+    catalog.capTotalSize(25);
+    assertFalse(f0.exists());
+    assertFalse(f1.exists());
+    assertTrue(f2.exists());
+    assertTrue(f3.exists());
+    assertEquals(20, catalog.getTotalSize());
+  }
+
+  @Test
+  public void removeOlderThanDeletesWholePeriods() throws Exception {
+    File march = createFile("2015-03/app.log", 10);
+    File april = createFile("2015-04/app.log", 10);
+    File may = createFile("2015-05/app.log", 10);
+
+    ArchiveCatalog catalog = buildCatalog(outputDir + "%d{yyyy-MM}/app.log");
+    catalog.scan(null);
+    Date midApril = new SimpleDateFormat("yyyy-MM-dd").parse("2015-04-15");
+    catalog.removeOlderThan(midApril);
+
+    assertFalse(march.exists());
+    // emptied folders are removed as well
+    assertFalse(march.getParentFile().exists());
+    assertTrue(april.exists());
+    assertTrue(may.exists());
+    assertEquals(2, catalog.size());
+  }
+
+  @Test
+  public void addingTheSameArchiveTwiceCountsItOnce() throws IOException {
+    File f = createFile("app-2015-03-01.log", 10);
+    ArchiveCatalog catalog = buildCatalog(outputDir + "app-%d.log");
+    catalog.scan(null);
+    createFile("app-2015-03-01.log", 30);
+    catalog.add(f.getPath());
+    assertEquals(1, catalog.size());
+    assertEquals(30, catalog.getTotalSize());
+  }
+}
@@ -0,0 +1,174 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import ch.qos.logback.core.testUtil.RandomUtil;
+import ch.qos.logback.core.util.CoreTestConstants;
+
+public class BlockGZIPOutputStreamTest {
+
+  String outputDir = CoreTestConstants.OUTPUT_DIR_PREFIX + RandomUtil.getPositiveInt() + "/";
+
+  byte[] logLikeInput(int size) {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(size);
+    int i = 0;
+    while (baos.size() < size) {
+      String line = "2015-03-01 12:00:00,000 [main] INFO a.b.C - message " + i++ + "\n";
+      baos.write(line.getBytes(), 0, line.length());
+    }
+    byte[] input = new byte[size];
+    System.arraycopy(baos.toByteArray(), 0, input, 0, size);
+    return input;
+  }
+
+  byte[] compress(byte[] input, int blockSize) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    BlockGZIPOutputStream bgzos = new BlockGZIPOutputStream(baos, Deflater.DEFAULT_COMPRESSION,
+        blockSize);
+    // uneven chunks, to cross block boundaries at odd places
+    int off = 0;
+    int chunk = 1;
+    while (off < input.length) {
+      int n = Math.min(chunk, input.length - off);
+      bgzos.write(input, off, n);
+      off += n;
+      chunk = chunk * 3 + 1;
+    }
+    bgzos.close();
+    return baos.toByteArray();
+  }
+
+  byte[] decompress(InputStream compressed) throws IOException {
+    InputStream in = new GZIPInputStream(compressed);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    byte[] buf = new byte[4096];
+    int n;
+    while ((n = in.read(buf)) != -1) {
+      baos.write(buf, 0, n);
+    }
+    in.close();
+    return baos.toByteArray();
+  }
+
+  File writeFile(String name, byte[] content, int length) throws IOException {
+    File file = new File(outputDir + name);
+    file.getParentFile().mkdirs();
+    FileOutputStream fos = new FileOutputStream(file);
+    fos.write(content, 0, length);
+    fos.close();
+    return file;
+  }
+
+  @Test
+  public void roundTripOverManyBlocks() throws IOException {
+    byte[] input = logLikeInput(100 * 1000);
+    byte[] compressed = compress(input, 7 * 1000);
+    assertArrayEquals(input, decompress(new ByteArrayInputStream(compressed)));
+  }
+
+  @Test
+  public void incompressibleInput() throws IOException {
+    byte[] input = new byte[10 * 1000];
+    new Random(1).nextBytes(input);
+    byte[] compressed = compress(input, 3000);
+    assertArrayEquals(input, decompress(new ByteArrayInputStream(compressed)));
+  }
+
+  @Test
+  public void flushEndsBlockWhenAsked() throws IOException {
+    byte[] input = logLikeInput(100);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    BlockGZIPOutputStream bgzos = new BlockGZIPOutputStream(baos, Deflater.DEFAULT_COMPRESSION,
+        1000, true);
+    bgzos.write(input);
+    bgzos.flush();
+    assertArrayEquals(input, decompress(new ByteArrayInputStream(baos.toByteArray())));
+    // nothing left over, closing adds no member
+    int length = baos.size();
+    bgzos.close();
+    assertEquals(length, baos.size());
+  }
+
+  @Test
+  public void flushKeepsBlockByDefault() throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    BlockGZIPOutputStream bgzos = new BlockGZIPOutputStream(baos, Deflater.DEFAULT_COMPRESSION,
+        1000);
+    bgzos.write(logLikeInput(100));
+    bgzos.flush();
+    assertEquals(0, baos.size());
+    bgzos.close();
+  }
+
+  @Test
+  public void tornTailIsTruncated() throws IOException {
+    int blockSize = 1000;
+    byte[] input = logLikeInput(10 * blockSize);
+    byte[] compressed = compress(input, blockSize);
+    // cut the file in the middle of the last member
+    File file = writeFile("torn.gz", compressed, compressed.length - 10);
+
+    long removed = BlockGZIPOutputStream.truncateIncompleteTail(file);
+    assertTrue(removed > 0);
+    assertEquals(compressed.length - 10 - removed, file.length());
+
+    byte[] expected = new byte[9 * blockSize];
+    System.arraycopy(input, 0, expected, 0, expected.length);
+    assertArrayEquals(expected, decompress(new FileInputStream(file)));
+  }
+
+  @Test
+  public void completeFileIsLeftUntouched() throws IOException {
+    byte[] compressed = compress(logLikeInput(5000), 1000);
+    File file = writeFile("complete.gz", compressed, compressed.length);
+    assertEquals(0, BlockGZIPOutputStream.truncateIncompleteTail(file));
+    assertEquals(compressed.length, file.length());
+  }
+
+  @Test
+  public void foreignFileIsLeftUntouched() throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    GZIPOutputStream gzos = new GZIPOutputStream(baos);
+    gzos.write(logLikeInput(5000));
+    gzos.close();
+    byte[] compressed = baos.toByteArray();
+    File file = writeFile("foreign.gz", compressed, compressed.length - 10);
+    assertEquals(0, BlockGZIPOutputStream.truncateIncompleteTail(file));
+    assertEquals(compressed.length - 10, file.length());
+  }
+
+  @Test
+  public void emptyInputGivesValidArchive() throws IOException {
+    byte[] compressed = compress(new byte[0], 1000);
+    assertArrayEquals(new byte[0], decompress(new ByteArrayInputStream(compressed)));
+  }
+}
@@ -125,6 +125,27 @@ public class CompressTest {
     // + "witness/compress3.txt.zip"));
   }
 
+  @Test
+  public void parallelGZWithLevel() throws Exception {
+    Compressor compressor = new Compressor(CompressionMode.GZ);
+    compressor.setContext(context);
+    compressor.setCompressionLevel(9);
+    compressor.setCompressionThreads(2);
+    // several members even for a small file
+    compressor.parallelBlockSize = 100;
+    compressor.compress(CoreTestConstants.TEST_SRC_PREFIX
+        + "input/compress2.txt", CoreTestConstants.OUTPUT_DIR_PREFIX
+        + "compress2.txt", null);
+
+    StatusChecker checker = new StatusChecker(context);
+    assertTrue(checker.isErrorFree(0));
+    checker.assertContainsMatch("Compressed 951 bytes into \\d+ in \\d+ ms");
+
+    assertTrue(Compare.gzCompare(CoreTestConstants.OUTPUT_DIR_PREFIX
+        + "compress2.txt.gz", CoreTestConstants.TEST_SRC_PREFIX
+        + "witness/compress2.txt.gz"));
+  }
+
   private void copy(File src, File dst) throws IOException {
     InputStream in = new FileInputStream(src);
     OutputStream out = new FileOutputStream(dst);
@@ -0,0 +1,183 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+import ch.qos.logback.core.Context;
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.status.Status;
+import ch.qos.logback.core.status.StatusChecker;
+import ch.qos.logback.core.testUtil.RandomUtil;
+import ch.qos.logback.core.util.Duration;
+
+public class MaintenanceExecutorTest {
+
+  Context context = new ContextBase();
+  MaintenanceExecutor executor = new MaintenanceExecutor();
+
+  @After
+  public void tearDown() {
+    executor.stop();
+  }
+
+  @Test
+  public void sharedByContext() {
+    MaintenanceExecutor shared = MaintenanceExecutor.getShared(context, executor);
+    assertSame(executor, shared);
+    assertTrue(executor.isStarted());
+    assertSame(executor, MaintenanceExecutor.getShared(context, null));
+    assertSame(executor, MaintenanceExecutor.getShared(context, new MaintenanceExecutor()));
+    new StatusChecker(context).assertContainsMatch(Status.WARN,
+        "The context already has a maintenance executor");
+  }
+
+  @Test
+  public void stoppedWithTheContext() {
+    MaintenanceExecutor.getShared(context, executor);
+    ((ContextBase) context).reset();
+    assertFalse(executor.isStarted());
+    MaintenanceExecutor other = MaintenanceExecutor.getShared(context, null);
+    assertTrue(other != executor);
+    other.stop();
+  }
+
+  @Test
+  public void serialQueueKeepsOrder() throws Exception {
+    executor.setMaxThreads(3);
+    MaintenanceExecutor.getShared(context, executor);
+    MaintenanceExecutor.SerialQueue queue = executor.newSerialQueue();
+    final List<Integer> ran = Collections.synchronizedList(new ArrayList<Integer>());
+    List<Integer> expected = new ArrayList<Integer>();
+    Future<?> last = null;
+    for (int i = 0; i < 20; i++) {
+      final int id = i;
+      expected.add(i);
+      last = queue.submit(new Runnable() {
+        public void run() {
+          ran.add(id);
+        }
+      });
+    }
+    last.get(10, TimeUnit.SECONDS);
+    assertEquals(expected, ran);
+  }
+
+  @Test
+  public void queueDepthAndLatency() throws Exception {
+    executor.setLatencyWarningThreshold(Duration.buildByMilliseconds(10));
+    MaintenanceExecutor.getShared(context, executor);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    executor.submit(new Runnable() {
+      public void run() {
+        started.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    started.await(10, TimeUnit.SECONDS);
+    Future<?> second = executor.submit(new Runnable() {
+      public void run() {
+      }
+    });
+    Future<?> third = executor.newSerialQueue().submit(new Runnable() {
+      public void run() {
+      }
+    });
+    assertEquals(2, executor.getQueueDepth());
+    Thread.sleep(50);
+    release.countDown();
+    second.get(10, TimeUnit.SECONDS);
+    third.get(10, TimeUnit.SECONDS);
+
+    assertEquals(0, executor.getQueueDepth());
+    assertEquals(3, executor.getCompletedTaskCount());
+    assertTrue(executor.getMaxLatency() >= 50);
+    new StatusChecker(context).assertContainsMatch(Status.WARN,
+        "Maintenance task waited \\d+ ms before starting");
+  }
+
+  @Test
+  public void deletesAreThrottledWithinTasksOnly() throws Exception {
+    executor.setMaxDeletesPerSecond(20);
+    MaintenanceExecutor.getShared(context, executor);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 5; i++) {
+      MaintenanceExecutor.throttleDeletes(1);
+    }
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 150);
+
+    final long[] elapsedMillis = new long[1];
+    executor.submit(new Runnable() {
+      public void run() {
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+          MaintenanceExecutor.throttleDeletes(1);
+        }
+        elapsedMillis[0] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      }
+    }).get(10, TimeUnit.SECONDS);
+    // the first delete is free, each other one waits 50 ms
+    assertTrue("elapsed " + elapsedMillis[0], elapsedMillis[0] >= 190);
+  }
+
+  @Test
+  public void tasksRunInCallerOnceStopped() throws Exception {
+    MaintenanceExecutor.getShared(context, executor);
+    executor.stop();
+    final Thread[] runner = new Thread[1];
+    executor.submit(new Runnable() {
+      public void run() {
+        runner[0] = Thread.currentThread();
+      }
+    }).get(10, TimeUnit.SECONDS);
+    assertSame(Thread.currentThread(), runner[0]);
+  }
+
+  @Test
+  public void registersMBean() throws Exception {
+    context.setName("maintenance" + RandomUtil.getPositiveInt());
+    executor.setJmx(true);
+    MaintenanceExecutor.getShared(context, executor);
+    MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("ch.qos.logback.core:Type=MaintenanceExecutor,Name="
+        + context.getName());
+    assertTrue(mbs.isRegistered(name));
+    assertEquals(1, mbs.getAttribute(name, "MaxThreads"));
+    executor.stop();
+    assertFalse(mbs.isRegistered(name));
+  }
+}
@@ -21,7 +21,9 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses( { CompressTest.class, FileNamePatternTest.class,
-    RollingCalendarTest.class, DatePatternToRegexTest.class })
+    RollingCalendarTest.class, DatePatternToRegexTest.class,
+    ArchiveCatalogTest.class, ParallelGZIPOutputStreamTest.class,
+    BlockGZIPOutputStreamTest.class, MaintenanceExecutorTest.class })
 public class PackageTest extends TestCase {
 
 }
@@ -0,0 +1,128 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.rolling.helper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Test;
+
+import ch.qos.logback.core.util.ExecutorServiceUtil;
+
+public class ParallelGZIPOutputStreamTest {
+
+  static final int THREAD_COUNT = 3;
+
+  ExecutorService executor = ExecutorServiceUtil.newFixedExecutorService(THREAD_COUNT);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  byte[] logLikeInput(int size) {
+    Random random = new Random(size);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(size);
+    int i = 0;
+    while (baos.size() < size) {
+      String line = "2015-03-01 12:00:00,000 [main] INFO a.b.C - message " + i++ + " "
+          + random.nextInt() + "\n";
+      baos.write(line.getBytes(), 0, line.length());
+    }
+    byte[] input = new byte[size];
+    System.arraycopy(baos.toByteArray(), 0, input, 0, size);
+    return input;
+  }
+
+  byte[] compress(byte[] input, int level, int blockSize) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ParallelGZIPOutputStream pgzos = new ParallelGZIPOutputStream(baos, executor, THREAD_COUNT,
+        level, blockSize);
+    // uneven chunks, to cross block boundaries at odd places
+    int off = 0;
+    int chunk = 1;
+    while (off < input.length) {
+      int n = Math.min(chunk, input.length - off);
+      pgzos.write(input, off, n);
+      off += n;
+      chunk = chunk * 3 + 1;
+    }
+    pgzos.close();
+    return baos.toByteArray();
+  }
+
+  byte[] decompress(byte[] compressed) throws IOException {
+    InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    byte[] buf = new byte[4096];
+    int n;
+    while ((n = in.read(buf)) != -1) {
+      baos.write(buf, 0, n);
+    }
+    in.close();
+    return baos.toByteArray();
+  }
+
+  @Test
+  public void roundTripOverManyBlocks() throws IOException {
+    byte[] input = logLikeInput(200 * 1000);
+    // 200 KB in 7 KB blocks, far more blocks than threads
+    assertArrayEquals(input, decompress(compress(input, Deflater.DEFAULT_COMPRESSION, 7 * 1000)));
+  }
+
+  @Test
+  public void inputSizeMultipleOfBlockSize() throws IOException {
+    byte[] input = logLikeInput(4 * 1024);
+    assertArrayEquals(input, decompress(compress(input, Deflater.DEFAULT_COMPRESSION, 1024)));
+  }
+
+  @Test
+  public void emptyInputGivesValidArchive() throws IOException {
+    assertArrayEquals(new byte[0], decompress(compress(new byte[0], Deflater.DEFAULT_COMPRESSION, 1024)));
+  }
+
+  @Test
+  public void singleByteWrites() throws IOException {
+    byte[] input = logLikeInput(3000);
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ParallelGZIPOutputStream pgzos = new ParallelGZIPOutputStream(baos, executor, THREAD_COUNT,
+        Deflater.DEFAULT_COMPRESSION, 512);
+    for (byte b : input) {
+      pgzos.write(b);
+    }
+    pgzos.close();
+    assertArrayEquals(input, decompress(baos.toByteArray()));
+  }
+
+  @Test
+  public void levelIsHonored() throws IOException {
+    byte[] input = logLikeInput(100 * 1000);
+    byte[] stored = compress(input, Deflater.NO_COMPRESSION, 10 * 1000);
+    byte[] best = compress(input, Deflater.BEST_COMPRESSION, 10 * 1000);
+    assertTrue(stored.length > input.length);
+    assertTrue(best.length < input.length / 2);
+    assertArrayEquals(input, decompress(stored));
+    assertArrayEquals(input, decompress(best));
+  }
+}
@@ -14,6 +14,8 @@
 package ch.qos.logback.core.rolling.helper;
 
 import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
 
 import junit.framework.TestCase;
 
@@ -92,4 +94,45 @@ public class RollingCalendarTest extends TestCase {
       assertEquals("p="+p, expected, result.getTime());
     }
   }
+
+  // the cached boundaries must agree with the ones computed on demand,
+  // including around daylight saving time changes
+  void checkCachedBoundaries(String datePattern, TimeZone timeZone, long start, long end,
+      long step) {
+    RollingCalendar cached = new RollingCalendar(timeZone, Locale.US);
+    cached.init(datePattern);
+    RollingCalendar direct = new RollingCalendar(timeZone, Locale.US);
+    direct.init(datePattern);
+    for (long t = start; t < end; t += step) {
+      assertEquals("t=" + t, direct.getNextTriggeringMillis(new Date(t)),
+          cached.getNextTriggeringMillis(t));
+    }
+  }
+
+  public void testCachedHourlyBoundariesAcrossDaylightSavingTime() {
+    TimeZone paris = TimeZone.getTimeZone("Europe/Paris");
+    // Saturday October 25th 2014, the night before the switch back to CET
+    long start = 1414195200000L;
+    checkCachedBoundaries("yyyy-MM-dd_HH", paris, start, start + 3 * 24 * 3600 * 1000L,
+        7 * 60 * 1000L);
+  }
+
+  public void testCachedDailyBoundariesAcrossDaylightSavingTime() {
+    TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+    // Sunday March 1st 2015, a week before the switch to EDT
+    long start = 1425168000000L;
+    checkCachedBoundaries("yyyy-MM-dd", newYork, start, start + 60 * 24 * 3600 * 1000L,
+        5 * 3600 * 1000L);
+  }
+
+  public void testCachedBoundariesWhenTimeGoesBackwards() {
+    RollingCalendar rc = new RollingCalendar(TimeZone.getTimeZone("UTC"), Locale.US);
+    rc.init("yyyy-MM-dd_HH_mm");
+    long t = 1414195200000L;
+    assertEquals(t + 60 * 1000L, rc.getNextTriggeringMillis(t));
+    // far beyond the cached boundaries
+    assertEquals(t + 1000 * 60 * 1000L, rc.getNextTriggeringMillis(t + 999 * 60 * 1000L));
+    // and back
+    assertEquals(t + 60 * 1000L, rc.getNextTriggeringMillis(t + 1));
+  }
 }
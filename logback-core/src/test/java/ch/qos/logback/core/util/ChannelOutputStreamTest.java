@@ -0,0 +1,78 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChannelOutputStreamTest {
+
+  File file;
+  ChannelOutputStream cos;
+
+  @Before
+  public void setUp() throws IOException {
+    file = new File(CoreTestConstants.OUTPUT_DIR_PREFIX + "cos-" + RandomUtil.getPositiveInt() + ".log");
+    file.getParentFile().mkdirs();
+    cos = new ChannelOutputStream(new FileOutputStream(file).getChannel(), 8);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    cos.close();
+    file.delete();
+  }
+
+  String readFile() throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      byte[] bytes = new byte[(int) raf.length()];
+      raf.readFully(bytes);
+      return new String(bytes, "US-ASCII");
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void smallWritesAreBuffered() throws IOException {
+    cos.write("abc".getBytes());
+    cos.write('d');
+    assertEquals(0, file.length());
+    cos.flush();
+    assertEquals("abcd", readFile());
+  }
+
+  @Test
+  public void largeWritesKeepOrder() throws IOException {
+    cos.write("abcde".getBytes());
+    cos.write("0123456789".getBytes());
+    assertEquals("abcde0123456789", readFile());
+    cos.write("xyz".getBytes());
+    cos.write("fghi".getBytes());
+    cos.write("jk".getBytes());
+    cos.flush();
+    assertEquals("abcde0123456789xyzfghijk", readFile());
+  }
+}
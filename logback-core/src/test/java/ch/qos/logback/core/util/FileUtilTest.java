@@ -13,10 +13,12 @@
  */
 package ch.qos.logback.core.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -88,6 +90,27 @@ public class FileUtilTest {
     Compare.compare(src, target);
   }
 
+  @Test
+  public void copyPreservesContentAndLastModified() throws IOException {
+    String dir = CoreTestConstants.OUTPUT_DIR_PREFIX+"/fu"+diff;
+    new File(dir).mkdirs();
+
+    String src = dir + "/copySrc.txt";
+    FileOutputStream fos = new FileOutputStream(src);
+    byte[] content = new byte[100 * 1000];
+    new Random(diff).nextBytes(content);
+    fos.write(content);
+    fos.close();
+    // file systems may only keep seconds
+    long lastModified = 1000000000000L;
+    new File(src).setLastModified(lastModified);
+
+    String target = dir + "/copyTarget.txt";
+    fileUtil.copy(src, target);
+    assertTrue(Compare.compare(src, target));
+    assertEquals(lastModified, new File(target).lastModified());
+  }
+
   @Test
   public void createParentDirIgnoresExistingDir() {
     String target = CoreTestConstants.OUTPUT_DIR_PREFIX+"/fu"+ diff +"/testing.txt";
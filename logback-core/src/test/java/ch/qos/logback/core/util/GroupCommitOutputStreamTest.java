@@ -0,0 +1,66 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GroupCommitOutputStreamTest {
+
+  ByteArrayOutputStream baos = new ByteArrayOutputStream();
+  GroupCommitOutputStream gcos = new GroupCommitOutputStream(baos, 8, 2);
+
+  @Test
+  public void flushIsDeferredUntilCommit() throws IOException {
+    gcos.write("abc".getBytes());
+    gcos.flush();
+    assertEquals(0, baos.size());
+    assertTrue(gcos.hasPendingBytes());
+    gcos.commit();
+    assertEquals("abc", baos.toString());
+    assertFalse(gcos.hasPendingBytes());
+  }
+
+  @Test
+  public void commitsAfterMaxEvents() throws IOException {
+    gcos.write('a');
+    gcos.endOfEvents(1);
+    assertEquals(0, baos.size());
+    gcos.write('b');
+    gcos.endOfEvents(1);
+    assertEquals("ab", baos.toString());
+  }
+
+  @Test
+  public void commitsWhenBufferIsFull() throws IOException {
+    gcos.write("abcde".getBytes());
+    gcos.write("fghi".getBytes());
+    assertEquals("abcde", baos.toString());
+    gcos.write("0123456789".getBytes());
+    assertEquals("abcdefghi0123456789", baos.toString());
+  }
+
+  @Test
+  public void closeCommits() throws IOException {
+    gcos.write("abc".getBytes());
+    gcos.close();
+    assertEquals("abc", baos.toString());
+  }
+}
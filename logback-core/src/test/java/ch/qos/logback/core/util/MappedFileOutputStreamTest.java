@@ -0,0 +1,107 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.qos.logback.core.testUtil.RandomUtil;
+
+import static org.junit.Assert.assertEquals;
+
+public class MappedFileOutputStreamTest {
+
+  File file;
+
+  @Before
+  public void setUp() {
+    file = new File(CoreTestConstants.OUTPUT_DIR_PREFIX + "mfos-" + RandomUtil.getPositiveInt() + ".log");
+    file.getParentFile().mkdirs();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  String readFile() throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      byte[] bytes = new byte[(int) raf.length()];
+      raf.readFully(bytes);
+      return new String(bytes, "US-ASCII");
+    } finally {
+      raf.close();
+    }
+  }
+
+  @Test
+  public void writesSpanningSeveralRegions() throws IOException {
+    MappedFileOutputStream mfos = new MappedFileOutputStream(file, false, 16);
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 20; i++) {
+      String s = "line " + i + "\n";
+      mfos.write(s.getBytes("US-ASCII"));
+      mfos.write('.');
+      expected.append(s).append('.');
+    }
+    // the mapped tail is part of the file until it is closed
+    assertEquals(true, file.length() > expected.length());
+    mfos.close();
+    assertEquals(expected.toString(), readFile());
+  }
+
+  @Test
+  public void appendAfterClose() throws IOException {
+    MappedFileOutputStream mfos = new MappedFileOutputStream(file, false, 64);
+    mfos.write("abc".getBytes());
+    mfos.close();
+    mfos = new MappedFileOutputStream(file, true, 64);
+    mfos.write("def".getBytes());
+    mfos.close();
+    assertEquals("abcdef", readFile());
+  }
+
+  @Test
+  public void truncateWhenNotAppending() throws IOException {
+    MappedFileOutputStream mfos = new MappedFileOutputStream(file, false, 64);
+    mfos.write("abc".getBytes());
+    mfos.close();
+    mfos = new MappedFileOutputStream(file, false, 64);
+    mfos.write("d".getBytes());
+    mfos.close();
+    assertEquals("d", readFile());
+  }
+
+  @Test
+  public void zeroTailLeftByCrashIsOverwritten() throws IOException {
+    // what an unclosed stream leaves behind
+    FileOutputStream fos = new FileOutputStream(file);
+    fos.write("abc".getBytes());
+    fos.write(new byte[61]);
+    fos.close();
+
+    MappedFileOutputStream mfos = new MappedFileOutputStream(file, true, 64);
+    assertEquals(3, mfos.getPosition());
+    mfos.write("def".getBytes());
+    mfos.close();
+    assertEquals("abcdef", readFile());
+  }
+}
@@ -26,6 +26,11 @@ import org.junit.runners.Suite.SuiteClasses;
   StatusPrinterTest.class,
   TimeUtilTest.class,
   ContentTypeUtilTest.class,
-  CharSequenceToRegexMapperTest.class})
+  CharSequenceToRegexMapperTest.class,
+  RingBufferBlockingQueueTest.class,
+  GroupCommitOutputStreamTest.class,
+  ChannelOutputStreamTest.class,
+  MappedFileOutputStreamTest.class,
+  ThrottleTest.class})
 public class PackageTest {
 }
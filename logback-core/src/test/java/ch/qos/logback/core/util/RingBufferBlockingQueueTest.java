@@ -0,0 +1,128 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RingBufferBlockingQueueTest {
+
+  RingBufferBlockingQueue<Integer> queue = new RingBufferBlockingQueue<Integer>(4, WaitStrategy.SPIN_THEN_PARK);
+
+  @Test
+  public void fifoOrderAcrossLaps() {
+    for (int lap = 0; lap < 3; lap++) {
+      for (int i = 0; i < 4; i++) {
+        assertTrue(queue.offer(lap * 4 + i));
+      }
+      for (int i = 0; i < 4; i++) {
+        assertEquals(Integer.valueOf(lap * 4 + i), queue.poll());
+      }
+    }
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void offerFailsWhenFull() {
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offer(i));
+    }
+    assertFalse(queue.offer(4));
+    assertEquals(4, queue.size());
+    assertEquals(0, queue.remainingCapacity());
+  }
+
+  @Test
+  public void drainToRespectsMaxElements() {
+    for (int i = 0; i < 4; i++) {
+      queue.offer(i);
+    }
+    List<Integer> list = new ArrayList<Integer>();
+    assertEquals(3, queue.drainTo(list, 3));
+    assertEquals(1, queue.size());
+    assertEquals(1, queue.drainTo(list));
+    assertEquals(4, list.size());
+  }
+
+  @Test
+  public void iteratorAndRemoveOfHead() {
+    queue.offer(0);
+    queue.offer(1);
+    for (Integer i : queue) {
+      assertTrue(queue.remove(i));
+    }
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test(timeout = 2000)
+  public void timedPollReturnsNullOnEmptyQueue() throws InterruptedException {
+    assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+  }
+
+  @Test(timeout = 5000)
+  public void multipleProducersLoseNothing() throws InterruptedException {
+    final int producerCount = 4;
+    final int perProducer = 10000;
+    Thread[] producers = new Thread[producerCount];
+    for (int p = 0; p < producerCount; p++) {
+      producers[p] = new Thread() {
+        public void run() {
+          try {
+            for (int i = 0; i < perProducer; i++) {
+              queue.put(i);
+            }
+          } catch (InterruptedException e) {
+          }
+        }
+      };
+      producers[p].start();
+    }
+    long sum = 0;
+    for (int i = 0; i < producerCount * perProducer; i++) {
+      sum += queue.take();
+    }
+    for (Thread t : producers) {
+      t.join();
+    }
+    assertEquals((long) producerCount * perProducer * (perProducer - 1) / 2, sum);
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test(timeout = 2000)
+  public void takeIsInterruptible() throws InterruptedException {
+    final boolean[] interrupted = new boolean[1];
+    Thread consumer = new Thread() {
+      public void run() {
+        try {
+          queue.take();
+        } catch (InterruptedException e) {
+          interrupted[0] = true;
+        }
+      }
+    };
+    consumer.start();
+    Thread.sleep(20);
+    consumer.interrupt();
+    consumer.join();
+    assertTrue(interrupted[0]);
+  }
+}
@@ -0,0 +1,53 @@
+/**
+ * Logback: the reliable, generic, fast and flexible logging framework.
+ * Copyright (C) 1999-2013, QOS.ch. All rights reserved.
+ *
+ * This program and the accompanying materials are dual-licensed under
+ * either the terms of the Eclipse Public License v1.0 as published by
+ * the Eclipse Foundation
+ *
+ *   or (per the licensee's choosing)
+ *
+ * under the terms of the GNU Lesser General Public License version 2.1
+ * as published by the Free Software Foundation.
+ */
+package ch.qos.logback.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ThrottleTest {
+
+  @Test
+  public void reservationsQueueUp() {
+    Throttle throttle = new Throttle(10);
+    long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+    assertEquals(0, throttle.reserve(5, now));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(500), throttle.reserve(1, now));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(600), throttle.reserve(1, now));
+  }
+
+  @Test
+  public void permitsAreNotSavedWhileIdle() {
+    Throttle throttle = new Throttle(10);
+    long now = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    assertEquals(0, throttle.reserve(1, now));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(100), throttle.reserve(1, now));
+  }
+
+  @Test
+  public void acquireWaits() {
+    Throttle throttle = new Throttle(1000);
+    long start = System.nanoTime();
+    for (int i = 0; i < 5; i++) {
+      throttle.acquire(100);
+    }
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    // the first 100 permits are free
+    assertTrue("elapsed " + elapsedMillis, elapsedMillis >= 390);
+  }
+}